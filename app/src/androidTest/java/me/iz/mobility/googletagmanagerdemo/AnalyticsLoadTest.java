@@ -0,0 +1,130 @@
+package me.iz.mobility.googletagmanagerdemo;
+
+import android.content.Context;
+import android.content.Intent;
+import android.test.ActivityInstrumentationTestCase2;
+import android.util.Log;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Drives {@link GTMAnalytics} and the {@link Utils} screen events from many threads at fixed
+ * rates, with the hits going through a {@link HitDispatcher} and a {@link MeasurementProtocolSink}
+ * to a local {@link CollectServer}. Logs the sustained hits per second, the queue depth and the
+ * end-to-end latency percentiles for each flush interval under the tag of this class, the
+ * numbers to size the dispatch period of GA with.
+ */
+public class AnalyticsLoadTest extends ActivityInstrumentationTestCase2<CategoryViewActivity> {
+
+    private static final String TAG = AnalyticsLoadTest.class.getSimpleName();
+    private static final int THREADS = 8;
+    // Events per second and thread, every tenth one is a screen view with its screen events.
+    private static final int[] RATES = {50, 200, 1000};
+    private static final long[] FLUSH_INTERVALS_MILLIS = {250, 1000, 5000};
+    private static final long DURATION_MILLIS = 10000;
+    private static final long SAMPLE_INTERVAL_MILLIS = 50;
+    private static final int QUEUE_CAPACITY = 1024;
+    private static final int BATCH_SIZE = 32;
+
+    public AnalyticsLoadTest() {
+        super(CategoryViewActivity.class);
+    }
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        Intent intent = new Intent();
+        intent.putExtra(CategoryViewActivity.CATEGORY_NAME_KEY, "Load");
+        intent.putExtra(CategoryViewActivity.IMAGE_FILES_KEY, new String[0]);
+        setActivityIntent(intent);
+    }
+
+    public void testSustainedLoad() throws Exception {
+        for (long flushInterval : FLUSH_INTERVALS_MILLIS) {
+            for (int rate : RATES) {
+                run(rate, flushInterval);
+            }
+        }
+    }
+
+    private void run(final int ratePerThread, long flushIntervalMillis) throws Exception {
+        CollectServer server = new CollectServer(0);
+        String url = server.start();
+        HitDispatcher dispatcher = new HitDispatcher(
+                new MeasurementProtocolSink(url, "UA-00000000-0", "load-test"),
+                QUEUE_CAPACITY, BATCH_SIZE, flushIntervalMillis);
+        dispatcher.start();
+        // Not the activity, its views can't be touched from these threads.
+        final Context context = getActivity().getApplicationContext();
+        final GTMAnalytics analytics = new GTMAnalytics((GTMDemo) context, dispatcher);
+
+        final AtomicLong offered = new AtomicLong();
+        final CountDownLatch done = new CountDownLatch(THREADS);
+        final long start = System.nanoTime();
+        final long end = start + TimeUnit.MILLISECONDS.toNanos(DURATION_MILLIS);
+        for (int t = 0; t < THREADS; t++) {
+            final String screen = "LoadScreen" + t;
+            new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    long period = TimeUnit.SECONDS.toNanos(1) / ratePerThread;
+                    long next = System.nanoTime();
+                    for (int i = 0; next < end; i++) {
+                        if (i % 10 == 0) {
+                            Utils.pushOpenScreenEvent(context, screen);
+                            analytics.setScreenName(screen);
+                            Utils.pushCloseScreenEvent(context, screen);
+                        } else {
+                            analytics.sendEvent("load", "event", screen);
+                        }
+                        offered.incrementAndGet();
+                        // Fixed rate, a thread that fell behind catches up without sleeping.
+                        next += period;
+                        long wait = next - System.nanoTime();
+                        if (wait > 0) {
+                            try {
+                                TimeUnit.NANOSECONDS.sleep(wait);
+                            } catch (InterruptedException e) {
+                                break;
+                            }
+                        }
+                    }
+                    done.countDown();
+                }
+            }, "load-" + t).start();
+        }
+
+        long samples = 0;
+        long depthSum = 0;
+        int maxDepth = 0;
+        while (!done.await(SAMPLE_INTERVAL_MILLIS, TimeUnit.MILLISECONDS)) {
+            int depth = dispatcher.getQueueDepth();
+            depthSum += depth;
+            maxDepth = Math.max(maxDepth, depth);
+            samples++;
+        }
+        // Sends what is left, so every admitted hit is counted.
+        dispatcher.shutdown();
+        double seconds = (System.nanoTime() - start) / 1e9;
+        server.shutdown();
+
+        StringBuilder report = new StringBuilder()
+                .append(THREADS).append(" threads x ").append(ratePerThread).append("/s, flush ")
+                .append(flushIntervalMillis).append("ms: offered ").append(offered.get())
+                .append(", received ").append(server.getHitCount())
+                .append(String.format(" (%.0f hits/s)", server.getHitCount() / seconds))
+                .append(" in ").append(server.getRequestCount()).append(" requests, dropped ")
+                .append(dispatcher.getDroppedCount()).append(", failed batches ")
+                .append(dispatcher.getFailedBatchCount())
+                .append(String.format(", queue depth mean %.1f max %d",
+                        samples > 0 ? (double) depthSum / samples : 0, maxDepth))
+                .append(", latency ");
+        server.getLatency().appendSummary(report);
+        Log.i(TAG, report.toString());
+
+        assertEquals(0L, dispatcher.getFailedBatchCount());
+        assertEquals(0L, server.getBadRequestCount());
+    }
+}
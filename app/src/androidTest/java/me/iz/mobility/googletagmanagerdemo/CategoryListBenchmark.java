@@ -0,0 +1,106 @@
+package me.iz.mobility.googletagmanagerdemo;
+
+import android.content.Intent;
+import android.os.Debug;
+import android.support.v7.widget.RecyclerView;
+import android.test.ActivityInstrumentationTestCase2;
+import android.text.Html;
+import android.util.Log;
+import android.widget.Button;
+import android.widget.LinearLayout;
+
+import java.util.Arrays;
+
+/**
+ * Measures a {@link CategoryViewActivity} of 10k images: allocations and time to show the
+ * list, and the time of each frame while scrolling through it, next to the one button per row
+ * {@link LinearLayout} the screen used to fill. Results are logged under the tag of this class.
+ */
+public class CategoryListBenchmark extends ActivityInstrumentationTestCase2<CategoryViewActivity> {
+
+    private static final String TAG = CategoryListBenchmark.class.getSimpleName();
+    private static final int ENTRIES = 10000;
+    private static final int SCROLL_FRAMES = 120;
+
+    private String[] fileNames;
+
+    public CategoryListBenchmark() {
+        super(CategoryViewActivity.class);
+    }
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        fileNames = new String[ENTRIES];
+        for (int i = 0; i < ENTRIES; i++) {
+            fileNames[i] = "image_" + i;
+        }
+        Intent intent = new Intent();
+        intent.putExtra(CategoryViewActivity.CATEGORY_NAME_KEY, "Benchmark");
+        intent.putExtra(CategoryViewActivity.IMAGE_FILES_KEY, fileNames);
+        setActivityIntent(intent);
+    }
+
+    public void testRecycledList() throws Throwable {
+        Debug.resetGlobalAllocCount();
+        Debug.resetGlobalAllocSize();
+        Debug.startAllocCounting();
+        long start = System.nanoTime();
+        final CategoryViewActivity activity = getActivity();
+        getInstrumentation().waitForIdleSync();
+        long shown = System.nanoTime() - start;
+        Debug.stopAllocCounting();
+        log("recycled list", shown, Debug.getGlobalAllocCount(), Debug.getGlobalAllocSize());
+
+        final RecyclerView list = (RecyclerView) activity.findViewById(R.id.image_file_list);
+        final long[] frames = new long[SCROLL_FRAMES];
+        for (int i = 0; i < SCROLL_FRAMES; i++) {
+            final int frame = i;
+            runTestOnUiThread(new Runnable() {
+                @Override
+                public void run() {
+                    // Scrolling lays out and binds the rows that come into view synchronously.
+                    long frameStart = System.nanoTime();
+                    list.scrollBy(0, list.getHeight() / 2);
+                    frames[frame] = System.nanoTime() - frameStart;
+                }
+            });
+        }
+        Arrays.sort(frames);
+        Log.i(TAG, String.format("scroll frames: p50 %.2f ms, p95 %.2f ms, max %.2f ms",
+                frames[SCROLL_FRAMES / 2] / 1e6, frames[SCROLL_FRAMES * 95 / 100] / 1e6,
+                frames[SCROLL_FRAMES - 1] / 1e6));
+        assertTrue(list.getChildCount() < 100);
+    }
+
+    public void testLinearLayoutBaseline() throws Throwable {
+        final CategoryViewActivity activity = getActivity();
+        getInstrumentation().waitForIdleSync();
+        final long[] created = new long[1];
+        Debug.resetGlobalAllocCount();
+        Debug.resetGlobalAllocSize();
+        Debug.startAllocCounting();
+        runTestOnUiThread(new Runnable() {
+            @Override
+            public void run() {
+                long start = System.nanoTime();
+                // What onCreate did before: one button per image, all of them added up front.
+                LinearLayout layout = new LinearLayout(activity);
+                layout.setOrientation(LinearLayout.VERTICAL);
+                for (String fileName : fileNames) {
+                    Button button = new Button(activity);
+                    button.setText(Html.fromHtml(fileName + "<br/><small><font color='grey'>0x0</font></small>"));
+                    layout.addView(button);
+                }
+                created[0] = System.nanoTime() - start;
+            }
+        });
+        Debug.stopAllocCounting();
+        log("linear layout", created[0], Debug.getGlobalAllocCount(), Debug.getGlobalAllocSize());
+    }
+
+    private static void log(String method, long nanos, int allocations, int allocatedBytes) {
+        Log.i(TAG, String.format("%s: %d entries in %.1f ms, %d allocations, %d KB", method, ENTRIES,
+                nanos / 1e6, allocations, allocatedBytes / 1024));
+    }
+}
@@ -0,0 +1,66 @@
+package me.iz.mobility.googletagmanagerdemo;
+
+import android.content.res.Resources;
+import android.test.AndroidTestCase;
+import android.util.Log;
+
+import java.lang.reflect.Field;
+
+/**
+ * Times looking up drawable ids by name with {@code Resources.getIdentifier} against
+ * {@link Drawables}, for every drawable of the app and as many names that don't exist.
+ * Results are logged under the tag of this class.
+ */
+public class DrawableLookupBenchmark extends AndroidTestCase {
+
+    private static final String TAG = DrawableLookupBenchmark.class.getSimpleName();
+    private static final int ROUNDS = 20;
+
+    private String[] names;
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        Field[] fields = R.drawable.class.getFields();
+        names = new String[fields.length * 2];
+        for (int i = 0; i < fields.length; i++) {
+            names[2 * i] = fields[i].getName();
+            names[2 * i + 1] = fields[i].getName() + "_missing";
+        }
+    }
+
+    public void testLookups() {
+        Resources resources = getContext().getResources();
+        String packageName = getContext().getPackageName();
+        for (String name : names) {
+            assertEquals(resources.getIdentifier(name, "drawable", packageName), Drawables.getId(name));
+        }
+
+        long sum = 0;
+        long best = Long.MAX_VALUE;
+        for (int round = 0; round < ROUNDS; round++) {
+            long start = System.nanoTime();
+            for (String name : names) {
+                sum += resources.getIdentifier(name, "drawable", packageName);
+            }
+            best = Math.min(best, System.nanoTime() - start);
+        }
+        log("getIdentifier", best);
+
+        best = Long.MAX_VALUE;
+        for (int round = 0; round < ROUNDS; round++) {
+            long start = System.nanoTime();
+            for (String name : names) {
+                sum += Drawables.getId(name);
+            }
+            best = Math.min(best, System.nanoTime() - start);
+        }
+        log("Drawables.getId", best);
+        assertTrue("Checksum", sum != 1);
+    }
+
+    private void log(String method, long nanos) {
+        Log.i(TAG, String.format("%s: %d lookups in %.3f ms, %.0f ns/lookup", method, names.length,
+                nanos / 1e6, (double) nanos / names.length));
+    }
+}
@@ -0,0 +1,93 @@
+package me.iz.mobility.googletagmanagerdemo;
+
+import android.content.Intent;
+import android.os.Debug;
+import android.test.ActivityInstrumentationTestCase2;
+import android.util.Log;
+
+/**
+ * Allocations per event sent through {@link GTMAnalytics}, by resource ids against through an
+ * {@link EventTemplate}. Results are logged under the tag of this class. The calling thread
+ * should only allocate the {@link Hit}; the whole process, dispatcher thread included, is
+ * counted as well but also picks up whatever else the app is doing.
+ */
+public class EventAllocationBenchmark extends ActivityInstrumentationTestCase2<CategoryViewActivity> {
+
+    private static final String TAG = EventAllocationBenchmark.class.getSimpleName();
+    // Below the capacity of the hit queue, so no event is dropped.
+    private static final int EVENTS = 512;
+    // The hit, with some room for the odd lazily created object.
+    private static final double MAX_ALLOCATIONS_PER_EVENT = 1.1;
+
+    private GTMAnalytics analytics;
+
+    public EventAllocationBenchmark() {
+        super(CategoryViewActivity.class);
+    }
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        Intent intent = new Intent();
+        intent.putExtra(CategoryViewActivity.CATEGORY_NAME_KEY, "Benchmark");
+        intent.putExtra(CategoryViewActivity.IMAGE_FILES_KEY, new String[0]);
+        setActivityIntent(intent);
+        analytics = GTMAnalytics.get(getActivity());
+    }
+
+    public void testAllocationsPerEvent() throws InterruptedException {
+        measure("sendEvent(int, int, int)", new Runnable() {
+            @Override
+            public void run() {
+                analytics.sendEvent(R.string.animals, R.string.refresh, R.string.pictures);
+            }
+        });
+
+        final EventTemplate template =
+                analytics.template(R.string.animals, R.string.refresh, R.string.pictures);
+        measure("send(EventTemplate)", new Runnable() {
+            @Override
+            public void run() {
+                analytics.send(template);
+            }
+        });
+    }
+
+    private void measure(String method, Runnable event) throws InterruptedException {
+        // Warm up, then have the dispatcher send them so the queue has room again.
+        for (int i = 0; i < EVENTS; i++) {
+            event.run();
+        }
+        HitDispatcher dispatcher = ((GTMDemo) getActivity().getApplication()).getHitDispatcher();
+        drain(dispatcher);
+
+        Debug.resetThreadAllocCount();
+        Debug.resetThreadAllocSize();
+        Debug.resetGlobalAllocCount();
+        Debug.resetGlobalAllocSize();
+        Debug.startAllocCounting();
+        for (int i = 0; i < EVENTS; i++) {
+            event.run();
+        }
+        int count = Debug.getThreadAllocCount();
+        int size = Debug.getThreadAllocSize();
+        // Let the dispatcher send them, for the process wide count.
+        drain(dispatcher);
+        Debug.stopAllocCounting();
+        int globalCount = Debug.getGlobalAllocCount();
+        int globalSize = Debug.getGlobalAllocSize();
+        Log.i(TAG, String.format("%s: %.1f allocations, %.0f bytes per event;"
+                        + " process wide %.1f allocations, %.0f bytes per event", method,
+                (double) count / EVENTS, (double) size / EVENTS,
+                (double) globalCount / EVENTS, (double) globalSize / EVENTS));
+        assertTrue(method + " allocated " + count + " objects for " + EVENTS + " events",
+                count <= EVENTS * MAX_ALLOCATIONS_PER_EVENT);
+    }
+
+    private static void drain(HitDispatcher dispatcher) throws InterruptedException {
+        dispatcher.flush();
+        while (dispatcher.getQueueDepth() > 0) {
+            Thread.sleep(10);
+        }
+    }
+}
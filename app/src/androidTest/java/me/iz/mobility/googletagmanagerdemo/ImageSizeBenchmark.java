@@ -0,0 +1,123 @@
+package me.iz.mobility.googletagmanagerdemo;
+
+import android.content.res.Resources;
+import android.graphics.drawable.Drawable;
+import android.test.AndroidTestCase;
+import android.util.Log;
+import android.util.TypedValue;
+
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+/**
+ * Times the three ways {@link CategoryViewActivity} can get the sizes of a category of images:
+ * decoding each drawable, decoding only the bounds, and looking the size up in the index.
+ * <p/>
+ * The app doesn't ship the images its container refers to, so this measures all bitmap
+ * drawables that end up in the APK. Results are logged under the tag of this class.
+ */
+public class ImageSizeBenchmark extends AndroidTestCase {
+
+    private static final String TAG = ImageSizeBenchmark.class.getSimpleName();
+    private static final int ROUNDS = 5;
+    private static final int[] CATEGORY_SIZES = {10, 100, 1000};
+
+    private String[] names;
+    private ImageIndexer indexer;
+    // Keeps the measured sizes alive.
+    private long sink;
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        Resources resources = getContext().getResources();
+        TypedValue value = new TypedValue();
+        List<String> bitmaps = new ArrayList<>();
+        for (Field field : R.drawable.class.getFields()) {
+            resources.getValue(field.getInt(null), value, true);
+            if (value.string != null && value.string.toString().endsWith(".png")) {
+                bitmaps.add(field.getName());
+            }
+        }
+        names = bitmaps.toArray(new String[bitmaps.size()]);
+        Executor direct = new Executor() {
+            @Override
+            public void execute(Runnable command) {
+                command.run();
+            }
+        };
+        indexer = new ImageIndexer(getContext(), direct, direct,
+                getContext().getFileStreamPath("benchmark.index"));
+    }
+
+    public void testImageSizes() {
+        assertTrue("No drawables to measure", names.length > 0);
+        for (int categorySize : CATEGORY_SIZES) {
+            // Larger categories repeat drawables. Resources caches decoded drawables, so if
+            // anything this favours decoding them.
+            String[] category = new String[categorySize];
+            for (int i = 0; i < categorySize; i++) {
+                category[i] = names[i % names.length];
+            }
+            log("decode drawable", category.length, timeDecodeDrawables(category));
+            log("decode bounds", category.length, timeDecodeBounds(category));
+            log("index lookup", category.length, timeIndexLookup(category));
+        }
+    }
+
+    private long timeDecodeDrawables(String[] category) {
+        Resources resources = getContext().getResources();
+        String packageName = getContext().getPackageName();
+        long best = Long.MAX_VALUE;
+        for (int round = 0; round < ROUNDS; round++) {
+            long start = System.nanoTime();
+            for (String name : category) {
+                Drawable drawable = resources.getDrawable(
+                        resources.getIdentifier(name, "drawable", packageName));
+                sink += drawable.getMinimumWidth() + drawable.getMinimumHeight();
+            }
+            best = Math.min(best, System.nanoTime() - start);
+        }
+        return best;
+    }
+
+    private long timeDecodeBounds(String[] category) {
+        int[] size = new int[2];
+        long best = Long.MAX_VALUE;
+        for (int round = 0; round < ROUNDS; round++) {
+            long start = System.nanoTime();
+            for (String name : category) {
+                indexer.measure(name, size);
+                sink += size[0] + size[1];
+            }
+            best = Math.min(best, System.nanoTime() - start);
+        }
+        return best;
+    }
+
+    private long timeIndexLookup(String[] category) {
+        int[] size = new int[2];
+        ImageIndex.Builder builder = new ImageIndex.Builder(ImageIndex.EMPTY, 0);
+        for (String name : names) {
+            builder.add(name, indexer.measure(name, size), size[0], size[1]);
+        }
+        ImageIndex index = builder.build();
+        long best = Long.MAX_VALUE;
+        for (int round = 0; round < ROUNDS; round++) {
+            long start = System.nanoTime();
+            for (String name : category) {
+                int entry = index.find(name);
+                sink += index.getWidth(entry) + index.getHeight(entry);
+            }
+            best = Math.min(best, System.nanoTime() - start);
+        }
+        return best;
+    }
+
+    private static void log(String method, int categorySize, long nanos) {
+        Log.i(TAG, String.format("%s: %d images in %.3f ms, %.2f us/image", method, categorySize,
+                nanos / 1e6, nanos / 1e3 / categorySize));
+    }
+}
@@ -0,0 +1,89 @@
+/*
+ * Copyright 2026 Basit Parkar.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ *  @date 10/17/26 7:14 PM
+ *  @modified 10/17/26 7:14 PM
+ */
+
+package me.iz.mobility.googletagmanagerdemo;
+
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.os.Build;
+
+import java.util.Iterator;
+import java.util.LinkedList;
+
+/**
+ * Bitmaps that are no longer shown or cached, kept so the decoder can decode into them through
+ * {@link BitmapFactory.Options#inBitmap} instead of allocating new ones. Bounded by bytes, the
+ * oldest bitmaps are let go first.
+ */
+class BitmapPool {
+
+    private final long maxBytes;
+
+    // Guarded by this, oldest first.
+    private final LinkedList<Bitmap> bitmaps = new LinkedList<>();
+    private long bytes;
+
+    BitmapPool(long maxBytes) {
+        this.maxBytes = maxBytes;
+    }
+
+    synchronized void put(Bitmap bitmap) {
+        if (!bitmap.isMutable() || bitmap.isRecycled() || bitmap.getByteCount() > maxBytes) {
+            return;
+        }
+        bitmaps.addLast(bitmap);
+        bytes += bitmap.getByteCount();
+        while (bytes > maxBytes) {
+            bytes -= bitmaps.removeFirst().getByteCount();
+        }
+    }
+
+    /**
+     * Sets {@code inBitmap} of the options to a pooled bitmap the decoder can reuse, if there is
+     * one. The options must hold the bounds of the image.
+     */
+    synchronized void reuseFor(BitmapFactory.Options options) {
+        int width = SampleSize.sampled(options.outWidth, options.inSampleSize);
+        int height = SampleSize.sampled(options.outHeight, options.inSampleSize);
+        for (Iterator<Bitmap> i = bitmaps.iterator(); i.hasNext(); ) {
+            Bitmap candidate = i.next();
+            if (canReuse(candidate, width, height, options.inSampleSize)) {
+                i.remove();
+                bytes -= candidate.getByteCount();
+                options.inBitmap = candidate;
+                return;
+            }
+        }
+    }
+
+    synchronized void clear() {
+        bitmaps.clear();
+        bytes = 0;
+    }
+
+    private static boolean canReuse(Bitmap candidate, int width, int height, int sampleSize) {
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.KITKAT) {
+            // Any bitmap that is large enough, ARGB_8888 is what images are decoded to.
+            return width * height * 4 <= candidate.getAllocationByteCount();
+        }
+        // Older decoders only reuse bitmaps of exactly the same size and without subsampling.
+        return sampleSize == 1 && candidate.getWidth() == width && candidate.getHeight() == height
+                && candidate.getConfig() == Bitmap.Config.ARGB_8888;
+    }
+}
@@ -0,0 +1,186 @@
+/*
+ * Copyright 2026 Basit Parkar.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ *  @date 10/17/26 5:58 PM
+ *  @modified 10/17/26 5:58 PM
+ */
+
+package me.iz.mobility.googletagmanagerdemo;
+
+import android.support.v7.widget.RecyclerView;
+import android.view.MotionEvent;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.Button;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * A {@link RecyclerView} adapter of button rows, each identified by a key. Rows keep their id
+ * for as long as their key is in the list, and {@link #setRows} only notifies the rows that
+ * were added, removed, moved or show something else, so a refresh only rebinds those.
+ */
+public abstract class ButtonListAdapter extends RecyclerView.Adapter<ButtonListAdapter.ButtonHolder> {
+
+    // Beyond this many row changes it is cheaper to rebind the visible rows.
+    private static final int MAX_ROW_CHANGES = 256;
+
+    public static class ButtonHolder extends RecyclerView.ViewHolder {
+        final Button button;
+
+        ButtonHolder(Button button) {
+            super(button);
+            this.button = button;
+        }
+    }
+
+    private String[] keys = new String[0];
+    private int[] contents = new int[0];
+    private long[] ids = new long[0];
+    private Map<String, Long> idsByKey = new HashMap<>();
+    private long nextId;
+
+    private final ListDiff.Target notifier = new ListDiff.Target() {
+        @Override
+        public void onRemoved(int position) {
+            notifyItemRemoved(position);
+        }
+
+        @Override
+        public void onInserted(int position) {
+            notifyItemInserted(position);
+        }
+
+        @Override
+        public void onMoved(int fromPosition, int toPosition) {
+            notifyItemMoved(fromPosition, toPosition);
+        }
+
+        @Override
+        public void onChanged(int position) {
+            notifyItemChanged(position);
+        }
+    };
+
+    protected ButtonListAdapter() {
+        setHasStableIds(true);
+    }
+
+    /**
+     * Replaces the rows.
+     *
+     * @param rowKeys     identify the rows across updates.
+     * @param rowContents a hash of what each row shows, a row is rebound when it changes.
+     */
+    public void setRows(String[] rowKeys, int[] rowContents) {
+        String[] newKeys = ListDiff.uniqueKeys(rowKeys);
+        ListDiff diff = ListDiff.compute(keys, contents, newKeys, rowContents, MAX_ROW_CHANGES);
+        replaceRows(newKeys, rowContents, diff);
+    }
+
+    /**
+     * Replaces the rows with operations that were computed beforehand, off the UI thread, along
+     * with the contents they were computed from.
+     *
+     * @return false, changing nothing, if the operations don't start from the current rows.
+     */
+    boolean applyRows(CatalogChange.Rows rows) {
+        if (!Arrays.equals(keys, rows.oldKeys)) {
+            return false;
+        }
+        replaceRows(rows.newKeys, rows.newContents, rows.diff);
+        return true;
+    }
+
+    private void replaceRows(String[] newKeys, int[] rowContents, ListDiff diff) {
+        Map<String, Long> newIdsByKey = new HashMap<>(newKeys.length * 2);
+        long[] newIds = new long[newKeys.length];
+        for (int i = 0; i < newKeys.length; i++) {
+            Long id = idsByKey.get(newKeys[i]);
+            newIds[i] = id != null ? id : nextId++;
+            newIdsByKey.put(newKeys[i], newIds[i]);
+        }
+        keys = newKeys;
+        contents = rowContents;
+        ids = newIds;
+        idsByKey = newIdsByKey;
+
+        if (diff != null) {
+            diff.dispatch(notifier);
+        } else {
+            notifyDataSetChanged();
+        }
+    }
+
+    /**
+     * Shows the given row in the button.
+     */
+    protected abstract void bind(Button button, int position);
+
+    protected abstract void onRowClicked(int position);
+
+    /**
+     * Called when a finger lands on a row, before it may become a click.
+     */
+    protected void onRowTouched(int position) {
+    }
+
+    @Override
+    public ButtonHolder onCreateViewHolder(ViewGroup parent, int viewType) {
+        Button button = new Button(parent.getContext());
+        button.setLayoutParams(new RecyclerView.LayoutParams(ViewGroup.LayoutParams.MATCH_PARENT,
+                ViewGroup.LayoutParams.WRAP_CONTENT));
+        final ButtonHolder holder = new ButtonHolder(button);
+        button.setOnClickListener(new View.OnClickListener() {
+            @Override
+            public void onClick(View view) {
+                int position = holder.getAdapterPosition();
+                if (position != RecyclerView.NO_POSITION) {
+                    onRowClicked(position);
+                }
+            }
+        });
+        button.setOnTouchListener(new View.OnTouchListener() {
+            @Override
+            public boolean onTouch(View view, MotionEvent event) {
+                int position = holder.getAdapterPosition();
+                if (event.getActionMasked() == MotionEvent.ACTION_DOWN
+                        && position != RecyclerView.NO_POSITION) {
+                    onRowTouched(position);
+                }
+                // Let the button handle the touch as usual.
+                return false;
+            }
+        });
+        return holder;
+    }
+
+    @Override
+    public void onBindViewHolder(ButtonHolder holder, int position) {
+        bind(holder.button, position);
+    }
+
+    @Override
+    public int getItemCount() {
+        return keys.length;
+    }
+
+    @Override
+    public long getItemId(int position) {
+        return ids[position];
+    }
+}
@@ -0,0 +1,173 @@
+/*
+ * Copyright 2026 Basit Parkar.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ *  @date 10/18/26 8:15 AM
+ *  @modified 10/18/26 8:15 AM
+ */
+
+package me.iz.mobility.googletagmanagerdemo;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * What changed between two versions of the catalog: the adjective, the list of categories and
+ * the images of each category. Computed off the UI thread by the {@link CatalogRepository}, so
+ * screens only have to apply the row operations to the entries that changed.
+ */
+public final class CatalogChange {
+
+    // Beyond this many row operations the screens rebind everything anyway.
+    static final int MAX_OPERATIONS = 256;
+
+    /**
+     * The catalog the screens showed before, null for the first change a screen gets.
+     */
+    public final CatalogSnapshot previous;
+    public final CatalogSnapshot current;
+
+    /**
+     * The row operations from one keyed list to another, see {@link ButtonListAdapter#applyRows}.
+     */
+    static final class Rows {
+        final String[] oldKeys;
+        final String[] newKeys;
+        // What each new row shows, the adapter keeps these to compare the next rows against.
+        final int[] newContents;
+        // Null if there are too many operations.
+        final ListDiff diff;
+
+        Rows(String[] oldKeys, String[] newKeys, int[] oldContents, int[] newContents) {
+            this.oldKeys = oldKeys;
+            this.newKeys = newKeys;
+            this.newContents = newContents;
+            this.diff = ListDiff.compute(oldKeys, oldContents, newKeys, newContents,
+                    MAX_OPERATIONS);
+        }
+    }
+
+    private final boolean adjectiveChanged;
+    final Rows categories;
+    // Changed categories of the previous catalog to the operations on their images, null for
+    // a category that is gone.
+    private final Map<String, Rows> changedCategories;
+
+    private CatalogChange(CatalogSnapshot previous, CatalogSnapshot current, Rows categories,
+                          Map<String, Rows> changedCategories) {
+        this.previous = previous;
+        this.current = current;
+        this.adjectiveChanged = previous == null || !previous.adjective.equals(current.adjective);
+        this.categories = categories;
+        this.changedCategories = changedCategories;
+    }
+
+    /**
+     * @param previous the catalog the screens show, or null if they show nothing yet.
+     */
+    static CatalogChange compute(CatalogSnapshot previous, CatalogSnapshot current) {
+        CategoryCatalog newCatalog = current.catalog;
+        String[] newKeys = ListDiff.uniqueKeys(namesOf(newCatalog));
+        int[] newContents = contentsOf(newCatalog);
+        if (previous == null) {
+            return new CatalogChange(null, current, new Rows(new String[0], newKeys, new int[0],
+                    rowContentsOf(newContents, current.adjective)), null);
+        }
+
+        CategoryCatalog oldCatalog = previous.catalog;
+        String[] oldKeys = ListDiff.uniqueKeys(namesOf(oldCatalog));
+        int[] oldContents = contentsOf(oldCatalog);
+        Map<String, Integer> newIndex = new HashMap<>(newKeys.length * 2);
+        for (int i = 0; i < newKeys.length; i++) {
+            newIndex.put(newKeys[i], i);
+        }
+        Map<String, Rows> changed = new HashMap<>();
+        for (int i = 0; i < oldKeys.length; i++) {
+            Integer j = newIndex.get(oldKeys[i]);
+            if (j == null) {
+                changed.put(oldKeys[i], null);
+            } else if (oldContents[i] != newContents[j]) {
+                String[] oldImages = ListDiff.uniqueKeys(oldCatalog.getImages(i));
+                String[] newImages = ListDiff.uniqueKeys(newCatalog.getImages(j));
+                changed.put(oldKeys[i], new Rows(oldImages, newImages, new int[oldImages.length],
+                        new int[newImages.length]));
+            }
+        }
+        return new CatalogChange(previous, current, new Rows(oldKeys, newKeys,
+                rowContentsOf(oldContents, previous.adjective),
+                rowContentsOf(newContents, current.adjective)), changed);
+    }
+
+    private static String[] namesOf(CategoryCatalog catalog) {
+        String[] names = new String[catalog.size()];
+        for (int i = 0; i < names.length; i++) {
+            names[i] = catalog.getName(i);
+        }
+        return names;
+    }
+
+    /**
+     * A hash of the images of each category.
+     */
+    private static int[] contentsOf(CategoryCatalog catalog) {
+        int[] contents = new int[catalog.size()];
+        for (int i = 0; i < contents.length; i++) {
+            int hash = 1;
+            for (int j = 0, n = catalog.getImageCount(i); j < n; j++) {
+                hash = 31 * hash + catalog.getImage(i, j).hashCode();
+            }
+            contents[i] = hash;
+        }
+        return contents;
+    }
+
+    /**
+     * What each category row shows: the adjective and the images of the category.
+     */
+    private static int[] rowContentsOf(int[] contents, String adjective) {
+        int adjectiveHash = adjective != null ? adjective.hashCode() : 0;
+        int[] rowContents = new int[contents.length];
+        for (int i = 0; i < contents.length; i++) {
+            rowContents[i] = 31 * adjectiveHash + contents[i];
+        }
+        return rowContents;
+    }
+
+    /**
+     * @return true if nothing a screen shows has changed.
+     */
+    public boolean isEmpty() {
+        return !adjectiveChanged && categories.diff != null && categories.diff.size() == 0;
+    }
+
+    public boolean isAdjectiveChanged() {
+        return adjectiveChanged;
+    }
+
+    /**
+     * @return true if the images of the category changed or the category is gone. Always true
+     * for the first change.
+     */
+    public boolean isCategoryChanged(String name) {
+        return changedCategories == null || changedCategories.containsKey(name);
+    }
+
+    /**
+     * @return the row operations from the previous to the current images of a changed category,
+     * or null if it is gone or this is the first change.
+     */
+    Rows getImageRows(String name) {
+        return changedCategories != null ? changedCategories.get(name) : null;
+    }
+}
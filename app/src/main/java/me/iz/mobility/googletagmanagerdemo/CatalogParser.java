@@ -0,0 +1,293 @@
+/*
+ * Copyright 2026 Basit Parkar.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ *  @date 10/17/26 11:34 AM
+ *  @modified 10/17/26 11:34 AM
+ */
+
+package me.iz.mobility.googletagmanagerdemo;
+
+import java.util.Arrays;
+import java.util.Map;
+
+/**
+ * Single pass parser for the category JSON string stored in the container:
+ * <pre>
+ * [
+ *     {"name": "Bunny", "image_files": ["bunny_1", "bunny_2", "bunny_3"]},
+ *     {"name": "Tiger", "image_files": ["tiger_1", "tiger_2"]}
+ * ]
+ * </pre>
+ * Reads the string token by token straight into the flat arrays of a {@link CategoryCatalog},
+ * without building a {@code JSONArray}/{@code JSONObject} tree first. Unknown keys are skipped.
+ * All names go through a pool so that equal strings share one instance.
+ */
+final class CatalogParser {
+
+    private static final String NAME_KEY = "name";
+    private static final String IMAGE_FILES_KEY = "image_files";
+
+    private final String json;
+    private final Map<String, String> pool;
+    private int pos;
+
+    private String[] names = new String[16];
+    private int nameCount;
+    private int[] imageOffsets = new int[17];
+    private String[] images = new String[64];
+    private int imageCount;
+
+    private CatalogParser(String json, Map<String, String> pool) {
+        this.json = json;
+        this.pool = pool;
+    }
+
+    /**
+     * @param pool strings already known to the caller; new strings are added to it.
+     * @throws IllegalArgumentException if the string is not a valid category list.
+     */
+    static CategoryCatalog parse(String json, Map<String, String> pool) {
+        return new CatalogParser(json, pool).parseCatalog();
+    }
+
+    private CategoryCatalog parseCatalog() {
+        expect('[');
+        if (peek() == ']') {
+            pos++;
+        } else {
+            do {
+                parseCategory();
+            } while (nextSeparator(']'));
+        }
+        if (skipWhitespace() < json.length()) {
+            throw error("Unexpected trailing characters");
+        }
+        return new CategoryCatalog(Arrays.copyOf(names, nameCount),
+                Arrays.copyOf(imageOffsets, nameCount + 1), Arrays.copyOf(images, imageCount));
+    }
+
+    private void parseCategory() {
+        expect('{');
+        int firstImage = imageCount;
+        String name = null;
+        if (peek() == '}') {
+            pos++;
+        } else {
+            do {
+                String key = readString();
+                expect(':');
+                if (NAME_KEY.equals(key)) {
+                    name = intern(readString());
+                } else if (IMAGE_FILES_KEY.equals(key)) {
+                    // A repeated key replaces the earlier list, like it would in a JSONObject.
+                    imageCount = firstImage;
+                    parseImageFiles();
+                } else {
+                    skipValue();
+                }
+            } while (nextSeparator('}'));
+        }
+        if (name == null) {
+            throw error("Category without a name");
+        }
+        if (nameCount == names.length) {
+            names = Arrays.copyOf(names, nameCount * 2);
+            imageOffsets = Arrays.copyOf(imageOffsets, nameCount * 2 + 1);
+        }
+        names[nameCount++] = name;
+        imageOffsets[nameCount] = imageCount;
+    }
+
+    private void parseImageFiles() {
+        expect('[');
+        if (peek() == ']') {
+            pos++;
+            return;
+        }
+        do {
+            if (imageCount == images.length) {
+                images = Arrays.copyOf(images, imageCount * 2);
+            }
+            images[imageCount++] = intern(readString());
+        } while (nextSeparator(']'));
+    }
+
+    private String intern(String s) {
+        String pooled = pool.get(s);
+        if (pooled == null) {
+            pool.put(s, s);
+            return s;
+        }
+        return pooled;
+    }
+
+    /**
+     * Consumes either a ',' (returns true) or the closing character (returns false).
+     */
+    private boolean nextSeparator(char close) {
+        char c = peek();
+        pos++;
+        if (c == ',') {
+            return true;
+        }
+        if (c == close) {
+            return false;
+        }
+        pos--;
+        throw error("Expected ',' or '" + close + "'");
+    }
+
+    private String readString() {
+        expect('"');
+        int start = pos;
+        int length = json.length();
+        while (pos < length) {
+            char c = json.charAt(pos);
+            if (c == '"') {
+                return json.substring(start, pos++);
+            }
+            if (c == '\\') {
+                return readEscapedString(start);
+            }
+            pos++;
+        }
+        throw error("Unterminated string");
+    }
+
+    private String readEscapedString(int start) {
+        StringBuilder sb = new StringBuilder(pos - start + 16);
+        sb.append(json, start, pos);
+        int length = json.length();
+        while (pos < length) {
+            char c = json.charAt(pos++);
+            if (c == '"') {
+                return sb.toString();
+            }
+            if (c != '\\') {
+                sb.append(c);
+                continue;
+            }
+            if (pos >= length) {
+                break;
+            }
+            c = json.charAt(pos++);
+            switch (c) {
+                case 'b':
+                    sb.append('\b');
+                    break;
+                case 'f':
+                    sb.append('\f');
+                    break;
+                case 'n':
+                    sb.append('\n');
+                    break;
+                case 'r':
+                    sb.append('\r');
+                    break;
+                case 't':
+                    sb.append('\t');
+                    break;
+                case 'u':
+                    if (pos + 4 > length) {
+                        throw error("Truncated unicode escape");
+                    }
+                    try {
+                        sb.append((char) Integer.parseInt(json.substring(pos, pos + 4), 16));
+                    } catch (NumberFormatException e) {
+                        throw error("Invalid unicode escape");
+                    }
+                    pos += 4;
+                    break;
+                default:
+                    // '"', '\\', '/' and anything else stand for themselves.
+                    sb.append(c);
+            }
+        }
+        throw error("Unterminated string");
+    }
+
+    private void skipValue() {
+        char c = peek();
+        switch (c) {
+            case '"':
+                readString();
+                break;
+            case '[':
+                pos++;
+                if (peek() == ']') {
+                    pos++;
+                } else {
+                    do {
+                        skipValue();
+                    } while (nextSeparator(']'));
+                }
+                break;
+            case '{':
+                pos++;
+                if (peek() == '}') {
+                    pos++;
+                } else {
+                    do {
+                        readString();
+                        expect(':');
+                        skipValue();
+                    } while (nextSeparator('}'));
+                }
+                break;
+            default:
+                // Numbers, true, false and null.
+                int start = pos;
+                while (pos < json.length() && "{}[],:\" \t\r\n".indexOf(json.charAt(pos)) < 0) {
+                    pos++;
+                }
+                if (pos == start) {
+                    throw error("Expected a value");
+                }
+        }
+    }
+
+    private void expect(char expected) {
+        if (peek() != expected) {
+            throw error("Expected '" + expected + "'");
+        }
+        pos++;
+    }
+
+    /**
+     * Skips whitespace and returns the next character without consuming it.
+     */
+    private char peek() {
+        if (skipWhitespace() >= json.length()) {
+            throw error("Unexpected end of input");
+        }
+        return json.charAt(pos);
+    }
+
+    private int skipWhitespace() {
+        int length = json.length();
+        while (pos < length) {
+            char c = json.charAt(pos);
+            if (c != ' ' && c != '\n' && c != '\r' && c != '\t') {
+                break;
+            }
+            pos++;
+        }
+        return pos;
+    }
+
+    private IllegalArgumentException error(String message) {
+        return new IllegalArgumentException(message + " at offset " + pos);
+    }
+}
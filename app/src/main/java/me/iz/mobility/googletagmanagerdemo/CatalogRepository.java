@@ -0,0 +1,379 @@
+/*
+ * Copyright 2026 Basit Parkar.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ *  @date 10/17/26 11:52 AM
+ *  @modified 10/17/26 11:52 AM
+ */
+
+package me.iz.mobility.googletagmanagerdemo;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+
+/**
+ * Parses the category JSON of the container off the calling thread and remembers the result
+ * for the container version it came from, so asking again for an unchanged container doesn't
+ * parse the string again.
+ * <p/>
+ * Every newly parsed catalog is also written to a {@link CatalogSnapshot} file, which the next
+ * cold start reads back with {@link #loadSnapshot(SnapshotCallback)} instead of waiting for the
+ * container. A snapshot of the same version also satisfies {@link #load}.
+ * <p/>
+ * Screens that stay open across container versions register a {@link ChangeListener}. Each new
+ * catalog is compared with the one they were last given on the parse thread, and they are only
+ * handed the {@link CatalogChange}.
+ */
+public class CatalogRepository {
+
+    public interface Callback {
+        void onCatalogLoaded(CategoryCatalog catalog);
+
+        void onCatalogError(String json, Exception e);
+    }
+
+    public interface SnapshotCallback {
+        /**
+         * @param snapshot the last good snapshot, or null if there is none.
+         */
+        void onSnapshotLoaded(CatalogSnapshot snapshot);
+    }
+
+    public interface ChangeListener {
+        /**
+         * Called on the callback executor, first with the current catalog, if there is one, and
+         * then with every change to it.
+         */
+        void onCatalogChanged(CatalogChange change);
+    }
+
+    private static final Callback IGNORE = new Callback() {
+        @Override
+        public void onCatalogLoaded(CategoryCatalog catalog) {
+        }
+
+        @Override
+        public void onCatalogError(String json, Exception e) {
+            // The screens keep showing the last good catalog.
+        }
+    };
+
+    private final Executor parseExecutor;
+    private final Executor callbackExecutor;
+    private final File snapshotFile;
+
+    // Guarded by this.
+    private CatalogSnapshot cached;
+    private PendingParse pending;
+    private boolean snapshotRead;
+    private final List<ChangeListener> changeListeners = new ArrayList<>();
+    // The catalog the change listeners were last given, only touched by the parse executor.
+    private CatalogSnapshot published;
+
+    /**
+     * @param parseExecutor    runs the parsing and the snapshot I/O off the UI thread. Must run
+     *                         tasks one at a time.
+     * @param callbackExecutor delivers the results, usually on the UI thread.
+     * @param snapshotFile     where the last good catalog is kept, or null to not keep it.
+     */
+    public CatalogRepository(Executor parseExecutor, Executor callbackExecutor, File snapshotFile) {
+        this.parseExecutor = parseExecutor;
+        this.callbackExecutor = callbackExecutor;
+        this.snapshotFile = snapshotFile;
+    }
+
+    /**
+     * Delivers the catalog for the given container version to the callback. Only parses the
+     * string if this version hasn't been parsed before or if a parse is not already running.
+     *
+     * @param adjective stored in the snapshot next to the catalog.
+     */
+    public void load(String version, String adjective, String json, Callback callback) {
+        final PendingParse parse;
+        final CategoryCatalog previous;
+        synchronized (this) {
+            if (cached != null && cached.matches(version, json)) {
+                // Already published when it was parsed or read.
+                deliver(callback, cached.catalog);
+                return;
+            }
+            if (pending != null && pending.version.equals(version) && pending.json.equals(json)) {
+                pending.callbacks.add(callback);
+                return;
+            }
+            parse = pending = new PendingParse(version, adjective, json, callback);
+            previous = cached != null ? cached.catalog : null;
+        }
+        parseExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                parse(parse, previous);
+            }
+        });
+    }
+
+    /**
+     * Loads the catalog of a container version for the change listeners only.
+     */
+    public void publish(String version, String adjective, String json) {
+        if (json.isEmpty()) {
+            // No category information in the container, there is nothing to parse or keep.
+            final CatalogSnapshot snapshot = new CatalogSnapshot(version, adjective, json,
+                    CategoryCatalog.EMPTY);
+            parseExecutor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    publish(snapshot);
+                }
+            });
+            return;
+        }
+        load(version, adjective, json, IGNORE);
+    }
+
+    /**
+     * Reads the snapshot file, unless a catalog has already been loaded, for the change
+     * listeners only.
+     */
+    public void publishSnapshot() {
+        parseExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                readSnapshot();
+            }
+        });
+    }
+
+    /**
+     * Must be called on the thread of the callback executor, and so must
+     * {@link #removeChangeListener}.
+     */
+    public void addChangeListener(final ChangeListener listener) {
+        synchronized (this) {
+            changeListeners.add(listener);
+        }
+        parseExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                // Changes computed while this waited may arrive first; screens don't rely on
+                // the previous catalog of a change matching what they show.
+                if (published != null) {
+                    deliverChange(listener, CatalogChange.compute(null, published));
+                }
+            }
+        });
+    }
+
+    public void removeChangeListener(ChangeListener listener) {
+        synchronized (this) {
+            changeListeners.remove(listener);
+        }
+    }
+
+    /**
+     * Reads the snapshot file, unless a catalog has already been loaded, and delivers it to the
+     * callback.
+     */
+    public void loadSnapshot(final SnapshotCallback callback) {
+        parseExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                final CatalogSnapshot snapshot = readSnapshot();
+                callbackExecutor.execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        callback.onSnapshotLoaded(snapshot);
+                    }
+                });
+            }
+        });
+    }
+
+    /**
+     * @return the last successfully parsed or read catalog, or null.
+     */
+    public synchronized CatalogSnapshot getCached() {
+        return cached;
+    }
+
+    private CatalogSnapshot readSnapshot() {
+        synchronized (this) {
+            if (cached != null || snapshotRead || snapshotFile == null) {
+                return cached;
+            }
+            snapshotRead = true;
+        }
+        CatalogSnapshot snapshot = null;
+        if (snapshotFile.exists()) {
+            try {
+                snapshot = CatalogSnapshot.read(snapshotFile);
+            } catch (IOException e) {
+                // Corrupt or from an older format, the next parse writes a new one.
+                snapshotFile.delete();
+            }
+        }
+        synchronized (this) {
+            if (cached == null) {
+                cached = snapshot;
+            }
+            snapshot = cached;
+        }
+        if (snapshot != null && published == null) {
+            publish(snapshot);
+        }
+        return snapshot;
+    }
+
+    private void writeSnapshot(CatalogSnapshot snapshot) {
+        if (snapshotFile == null) {
+            return;
+        }
+        try {
+            snapshot.write(snapshotFile);
+        } catch (IOException e) {
+            // Not fatal, the next cold start just waits for the container.
+            snapshotFile.delete();
+        }
+    }
+
+    private void parse(PendingParse parse, CategoryCatalog previous) {
+        CategoryCatalog catalog = null;
+        Exception error = null;
+        try {
+            catalog = CatalogParser.parse(parse.json, newPool(previous));
+        } catch (RuntimeException e) {
+            error = e;
+        }
+
+        List<Callback> callbacks;
+        CatalogSnapshot snapshot = null;
+        synchronized (this) {
+            if (catalog != null) {
+                snapshot = cached = new CatalogSnapshot(parse.version, parse.adjective, parse.json,
+                        catalog);
+            }
+            if (pending == parse) {
+                pending = null;
+            }
+            callbacks = parse.callbacks;
+        }
+        for (Callback callback : callbacks) {
+            if (catalog != null) {
+                deliver(callback, catalog);
+            } else {
+                deliverError(callback, parse.json, error);
+            }
+        }
+        if (snapshot != null) {
+            publish(snapshot);
+            writeSnapshot(snapshot);
+        }
+    }
+
+    /**
+     * Hands the change from the last published catalog to the change listeners. Runs on the
+     * parse executor.
+     */
+    private void publish(CatalogSnapshot snapshot) {
+        if (snapshot == published) {
+            return;
+        }
+        List<ChangeListener> listeners;
+        synchronized (this) {
+            listeners = new ArrayList<>(changeListeners);
+        }
+        CatalogSnapshot previous = published;
+        published = snapshot;
+        if (listeners.isEmpty()) {
+            return;
+        }
+        CatalogChange change = CatalogChange.compute(previous, snapshot);
+        if (change.isEmpty()) {
+            return;
+        }
+        for (ChangeListener listener : listeners) {
+            deliverChange(listener, change);
+        }
+    }
+
+    private void deliverChange(final ChangeListener listener, final CatalogChange change) {
+        callbackExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                synchronized (CatalogRepository.this) {
+                    if (!changeListeners.contains(listener)) {
+                        // Removed after the change was computed.
+                        return;
+                    }
+                }
+                listener.onCatalogChanged(change);
+            }
+        });
+    }
+
+    /**
+     * Seeds the string pool with the previous catalog so unchanged names keep their instances.
+     */
+    private static Map<String, String> newPool(CategoryCatalog previous) {
+        Map<String, String> pool = new HashMap<>();
+        if (previous != null) {
+            for (int i = 0; i < previous.size(); i++) {
+                String name = previous.getName(i);
+                pool.put(name, name);
+                for (int j = 0; j < previous.getImageCount(i); j++) {
+                    String image = previous.getImage(i, j);
+                    pool.put(image, image);
+                }
+            }
+        }
+        return pool;
+    }
+
+    private void deliver(final Callback callback, final CategoryCatalog catalog) {
+        callbackExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                callback.onCatalogLoaded(catalog);
+            }
+        });
+    }
+
+    private void deliverError(final Callback callback, final String json, final Exception e) {
+        callbackExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                callback.onCatalogError(json, e);
+            }
+        });
+    }
+
+    private static final class PendingParse {
+        final String version;
+        final String adjective;
+        final String json;
+        final List<Callback> callbacks = new ArrayList<>(1);
+
+        PendingParse(String version, String adjective, String json, Callback callback) {
+            this.version = version;
+            this.adjective = adjective;
+            this.json = json;
+            callbacks.add(callback);
+        }
+    }
+}
@@ -0,0 +1,250 @@
+/*
+ * Copyright 2026 Basit Parkar.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ *  @date 10/17/26 1:10 PM
+ *  @modified 10/17/26 1:10 PM
+ */
+
+package me.iz.mobility.googletagmanagerdemo;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+/**
+ * The last good {@link CategoryCatalog} together with the container values needed to show it,
+ * stored in a compact binary file so the next cold start can render {@link MainActivity} before
+ * the container has loaded.
+ * <p/>
+ * File layout, big endian:
+ * <pre>
+ * int  magic            'GTMC'
+ * int  format version
+ * int  payload length
+ * long CRC32 of the payload
+ * payload:
+ *   int  string count, then per string: int byte length, UTF-8 bytes
+ *   int  container version      (string index)
+ *   int  adjective              (string index)
+ *   int  JSON length, int JSON hash code
+ *   int  category count, then per category: int name (string index), int image count
+ *   int  image count, then per image: int file name (string index)
+ * </pre>
+ * Every string is stored once, names are referenced by index.
+ */
+public final class CatalogSnapshot {
+
+    static final int MAGIC = 0x47544D43;
+    static final int FORMAT_VERSION = 1;
+    private static final int HEADER_SIZE = 4 + 4 + 4 + 8;
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    public final String version;
+    public final String adjective;
+    public final CategoryCatalog catalog;
+    // Fingerprint of the JSON string the catalog was parsed from.
+    final int jsonLength;
+    final int jsonHash;
+
+    public CatalogSnapshot(String version, String adjective, String json, CategoryCatalog catalog) {
+        this(version, adjective, json.length(), json.hashCode(), catalog);
+    }
+
+    CatalogSnapshot(String version, String adjective, int jsonLength, int jsonHash,
+                    CategoryCatalog catalog) {
+        this.version = version;
+        this.adjective = adjective;
+        this.jsonLength = jsonLength;
+        this.jsonHash = jsonHash;
+        this.catalog = catalog;
+    }
+
+    /**
+     * @return true if the snapshot was made from this container version and JSON string.
+     */
+    public boolean matches(String version, String json) {
+        return this.version.equals(version) && jsonLength == json.length()
+                && jsonHash == json.hashCode();
+    }
+
+    /**
+     * Writes the snapshot to a temporary file, syncs it and renames it over {@code file}, so a
+     * crash never leaves a half written snapshot behind.
+     */
+    public void write(File file) throws IOException {
+        byte[] payload = encodePayload();
+        CRC32 crc = new CRC32();
+        crc.update(payload);
+
+        File tmp = new File(file.getPath() + ".tmp");
+        FileOutputStream fos = new FileOutputStream(tmp);
+        try {
+            DataOutputStream out = new DataOutputStream(fos);
+            out.writeInt(MAGIC);
+            out.writeInt(FORMAT_VERSION);
+            out.writeInt(payload.length);
+            out.writeLong(crc.getValue());
+            out.write(payload);
+            out.flush();
+            fos.getFD().sync();
+        } finally {
+            fos.close();
+        }
+        if (!tmp.renameTo(file)) {
+            tmp.delete();
+            throw new IOException("Could not rename " + tmp + " to " + file);
+        }
+    }
+
+    /**
+     * Memory maps and decodes a snapshot file.
+     *
+     * @throws IOException if the file can't be read, has another format version or fails the
+     *                     checksum.
+     */
+    public static CatalogSnapshot read(File file) throws IOException {
+        RandomAccessFile raf = new RandomAccessFile(file, "r");
+        try {
+            FileChannel channel = raf.getChannel();
+            long size = channel.size();
+            if (size < HEADER_SIZE) {
+                throw new IOException("Snapshot too short: " + size);
+            }
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            if (buffer.getInt() != MAGIC) {
+                throw new IOException("Not a catalog snapshot: " + file);
+            }
+            int formatVersion = buffer.getInt();
+            if (formatVersion != FORMAT_VERSION) {
+                throw new IOException("Unsupported snapshot format " + formatVersion);
+            }
+            int length = buffer.getInt();
+            long checksum = buffer.getLong();
+            if (length < 0 || length != size - HEADER_SIZE) {
+                throw new IOException("Snapshot length mismatch: " + length);
+            }
+            if (checksum(buffer, length) != checksum) {
+                throw new IOException("Snapshot checksum mismatch");
+            }
+            return decodePayload(buffer);
+        } catch (RuntimeException e) {
+            // BufferUnderflowException and friends, the checksum passed but the data is bad.
+            throw new IOException("Corrupt snapshot: " + e);
+        } finally {
+            raf.close();
+        }
+    }
+
+    private byte[] encodePayload() throws IOException {
+        Map<String, Integer> indexes = new HashMap<>();
+        ByteArrayOutputStream strings = new ByteArrayOutputStream();
+        DataOutputStream stringsOut = new DataOutputStream(strings);
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(body);
+
+        out.writeInt(index(version, indexes, stringsOut));
+        out.writeInt(index(adjective, indexes, stringsOut));
+        out.writeInt(jsonLength);
+        out.writeInt(jsonHash);
+        out.writeInt(catalog.size());
+        for (int i = 0; i < catalog.size(); i++) {
+            out.writeInt(index(catalog.getName(i), indexes, stringsOut));
+            out.writeInt(catalog.getImageCount(i));
+        }
+        out.writeInt(catalog.getTotalImageCount());
+        for (int i = 0; i < catalog.size(); i++) {
+            for (int j = 0, n = catalog.getImageCount(i); j < n; j++) {
+                out.writeInt(index(catalog.getImage(i, j), indexes, stringsOut));
+            }
+        }
+
+        ByteArrayOutputStream payload = new ByteArrayOutputStream(strings.size() + body.size() + 4);
+        new DataOutputStream(payload).writeInt(indexes.size());
+        strings.writeTo(payload);
+        body.writeTo(payload);
+        return payload.toByteArray();
+    }
+
+    private static int index(String s, Map<String, Integer> indexes, DataOutputStream strings)
+            throws IOException {
+        Integer index = indexes.get(s);
+        if (index == null) {
+            index = indexes.size();
+            indexes.put(s, index);
+            byte[] bytes = s.getBytes(UTF_8);
+            strings.writeInt(bytes.length);
+            strings.write(bytes);
+        }
+        return index;
+    }
+
+    private static long checksum(ByteBuffer buffer, int length) {
+        CRC32 crc = new CRC32();
+        byte[] chunk = new byte[Math.min(length, 8192)];
+        ByteBuffer payload = buffer.duplicate();
+        int remaining = length;
+        while (remaining > 0) {
+            int n = Math.min(remaining, chunk.length);
+            payload.get(chunk, 0, n);
+            crc.update(chunk, 0, n);
+            remaining -= n;
+        }
+        return crc.getValue();
+    }
+
+    private static CatalogSnapshot decodePayload(ByteBuffer buffer) {
+        String[] strings = new String[buffer.getInt()];
+        byte[] scratch = new byte[64];
+        for (int i = 0; i < strings.length; i++) {
+            int length = buffer.getInt();
+            if (length > scratch.length) {
+                scratch = new byte[Math.max(length, scratch.length * 2)];
+            }
+            buffer.get(scratch, 0, length);
+            strings[i] = new String(scratch, 0, length, UTF_8);
+        }
+
+        String version = strings[buffer.getInt()];
+        String adjective = strings[buffer.getInt()];
+        int jsonLength = buffer.getInt();
+        int jsonHash = buffer.getInt();
+
+        String[] names = new String[buffer.getInt()];
+        int[] imageOffsets = new int[names.length + 1];
+        for (int i = 0; i < names.length; i++) {
+            names[i] = strings[buffer.getInt()];
+            imageOffsets[i + 1] = imageOffsets[i] + buffer.getInt();
+        }
+        String[] images = new String[buffer.getInt()];
+        if (images.length != imageOffsets[names.length]) {
+            throw new IllegalStateException("Image count mismatch");
+        }
+        for (int i = 0; i < images.length; i++) {
+            images[i] = strings[buffer.getInt()];
+        }
+        return new CatalogSnapshot(version, adjective, jsonLength, jsonHash,
+                new CategoryCatalog(names, imageOffsets, images));
+    }
+}
@@ -0,0 +1,86 @@
+/*
+ * Copyright 2026 Basit Parkar.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ *  @date 10/17/26 11:20 AM
+ *  @modified 10/17/26 11:20 AM
+ */
+
+package me.iz.mobility.googletagmanagerdemo;
+
+import java.util.Arrays;
+
+/**
+ * Immutable list of animal categories and the image file names of each category.
+ * <p/>
+ * The image names of all categories are kept in one flat array; category {@code i} owns the
+ * entries {@code [imageOffsets[i], imageOffsets[i + 1])}.
+ */
+public final class CategoryCatalog {
+
+    public static final CategoryCatalog EMPTY =
+            new CategoryCatalog(new String[0], new int[]{0}, new String[0]);
+
+    private final String[] names;
+    private final int[] imageOffsets;
+    private final String[] images;
+
+    CategoryCatalog(String[] names, int[] imageOffsets, String[] images) {
+        this.names = names;
+        this.imageOffsets = imageOffsets;
+        this.images = images;
+    }
+
+    public int size() {
+        return names.length;
+    }
+
+    public String getName(int category) {
+        return names[category];
+    }
+
+    public int getImageCount(int category) {
+        return imageOffsets[category + 1] - imageOffsets[category];
+    }
+
+    public String getImage(int category, int image) {
+        if (image < 0 || image >= getImageCount(category)) {
+            throw new IndexOutOfBoundsException("image " + image + " of category " + category);
+        }
+        return images[imageOffsets[category] + image];
+    }
+
+    /**
+     * @return a copy of the image file names of the category.
+     */
+    public String[] getImages(int category) {
+        return Arrays.copyOfRange(images, imageOffsets[category], imageOffsets[category + 1]);
+    }
+
+    /**
+     * @return the index of the first category with the given name, or -1.
+     */
+    public int indexOf(String name) {
+        for (int i = 0; i < names.length; i++) {
+            if (names[i].equals(name)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    int getTotalImageCount() {
+        return images.length;
+    }
+}
@@ -21,16 +21,15 @@ package me.iz.mobility.googletagmanagerdemo;
 
 import android.app.Activity;
 import android.content.Intent;
-import android.graphics.drawable.Drawable;
 import android.os.Bundle;
+import android.support.v7.widget.LinearLayoutManager;
+import android.support.v7.widget.RecyclerView;
 import android.text.Html;
+import android.util.DisplayMetrics;
 import android.view.View;
 import android.widget.Button;
-import android.widget.LinearLayout;
 import android.widget.TextView;
 
-import com.google.android.gms.tagmanager.TagManager;
-
 /**
  * An {@link Activity} that displays a list of image files for one category; clicking on one opens
  * an {@link ImageViewActivity} to display the actual image.
@@ -43,11 +42,24 @@ public class CategoryViewActivity extends Activity {
     static final String CATEGORY_NAME_KEY = "category_name";
     // The key of the image file name array to be passed in.
     static final String IMAGE_FILES_KEY = "image_files";
+    // How many of the images on screen are decoded before the user picks one.
+    private static final int PREFETCH_VISIBLE_IMAGES = 4;
     private String adjective;
     private String categoryName;
+    private ImageIndexer imageIndexer;
+    // The index the rows are bound from, follows the indexer on the UI thread.
+    private ImageIndex imageIndex;
+    private String[] fileNames;
+    private ImagePrefetcher imagePrefetcher;
+    private RecyclerView fileList;
+    private ButtonListAdapter adapter;
+    // The size ImageViewActivity decodes images at.
+    private int targetWidth;
+    private int targetHeight;
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
+        Utils.onScreenCreated(this, "CategoryViewScreen");
         super.onCreate(savedInstanceState);
         setContentView(R.layout.activity_category_view);
 
@@ -57,10 +69,113 @@ public class CategoryViewActivity extends Activity {
             return;
         }
 
-        adjective = ContainerHolderSingleton.getContainerHolder().getContainer().
-                getString(MainActivity.ADJECTIVE_KEY);
+        ContainerValues values = ((GTMDemo) getApplication()).getContainerValues();
+        if (values.getVersion() != null) {
+            adjective = values.getString(MainActivity.ADJECTIVE_KEY);
+        } else {
+            // Opened from the catalog snapshot before the container finished loading.
+            CatalogSnapshot snapshot = ((GTMDemo) getApplication()).getCatalogRepository().getCached();
+            adjective = snapshot != null ? snapshot.adjective : "";
+        }
         categoryName = extras.getString(CATEGORY_NAME_KEY);
+        imageIndexer = ((GTMDemo) getApplication()).getImageIndexer();
+        // Before reading the index, so no change is missed in between.
+        imageIndexer.addListener(indexListener);
+        imageIndex = imageIndexer.getIndex();
+        imagePrefetcher = ((GTMDemo) getApplication()).getImagePrefetcher();
+        DisplayMetrics metrics = getResources().getDisplayMetrics();
+        targetWidth = metrics.widthPixels;
+        targetHeight = metrics.heightPixels;
+
+        updateTitles();
+
+        // Only the rows on screen have a button, which is reused as the list scrolls.
+        fileNames = extras.getStringArray(IMAGE_FILES_KEY);
+        adapter = new ButtonListAdapter() {
+            @Override
+            protected void bind(Button button, int position) {
+                bindImageViewButton(button, fileNames[position]);
+            }
+
+            @Override
+            protected void onRowClicked(int position) {
+                startImageViewActivity(fileNames[position]);
+            }
+
+            @Override
+            protected void onRowTouched(int position) {
+                // Most touches end in a click, get a head start on the decode.
+                imagePrefetcher.prefetch(fileNames[position], targetWidth, targetHeight);
+            }
+        };
+        adapter.setRows(fileNames, new int[fileNames.length]);
+        fileList = (RecyclerView) findViewById(R.id.image_file_list);
+        fileList.setLayoutManager(new LinearLayoutManager(this));
+        fileList.setAdapter(adapter);
+
+        // Follow the category through later container versions.
+        ((GTMDemo) getApplication()).getCatalogRepository().addChangeListener(catalogListener);
 
+        // Put the category_name into the data layer for future use.
+        Utils.getDataLayer(this).push(CATEGORY_NAME_KEY, categoryName);
+    }
+
+    @Override
+    protected void onDestroy() {
+        super.onDestroy();
+        ((GTMDemo) getApplication()).getCatalogRepository().removeChangeListener(catalogListener);
+        if (imageIndexer != null) {
+            imageIndexer.removeListener(indexListener);
+        }
+    }
+
+    private final ImageIndexer.Listener indexListener = new ImageIndexer.Listener() {
+        @Override
+        public void onIndexChanged(ImageIndex index) {
+            showIndex(index);
+        }
+    };
+
+    private void showIndex(ImageIndex index) {
+        ImageIndex previous = imageIndex;
+        imageIndex = index;
+        // Only the rows that were bound without a size need to be bound again.
+        for (int i = 0; i < fileNames.length; i++) {
+            if (previous.find(fileNames[i]) < 0 && index.find(fileNames[i]) >= 0) {
+                adapter.notifyItemChanged(i);
+            }
+        }
+    }
+
+    private final CatalogRepository.ChangeListener catalogListener =
+            new CatalogRepository.ChangeListener() {
+                @Override
+                public void onCatalogChanged(CatalogChange change) {
+                    showChange(change);
+                }
+            };
+
+    private void showChange(CatalogChange change) {
+        if (change.isAdjectiveChanged() && !change.current.adjective.equals(adjective)) {
+            adjective = change.current.adjective;
+            updateTitles();
+            // The back button of an open image keeps the old name until it is opened again.
+        }
+        if (!change.isCategoryChanged(categoryName)) {
+            return;
+        }
+        CategoryCatalog catalog = change.current.catalog;
+        int category = catalog.indexOf(categoryName);
+        String[] newFileNames = category >= 0 ? catalog.getImages(category) : new String[0];
+        // The images are bound from fileNames, so it changes together with the rows.
+        fileNames = newFileNames;
+        CatalogChange.Rows rows = change.getImageRows(categoryName);
+        if (rows == null || !adapter.applyRows(rows)) {
+            adapter.setRows(newFileNames, new int[newFileNames.length]);
+        }
+    }
+
+    private void updateTitles() {
         // Set the text for the back to MainActivity button.
         Button backButton = (Button) findViewById(R.id.back_to_main);
         backButton.setText(" << " + getDisplayName(getResources().getString(R.string.animals)));
@@ -68,57 +183,63 @@ public class CategoryViewActivity extends Activity {
         // Set the text of the title.
         String title = getDisplayName(categoryName) + " " + getResources().getString(R.string.images);
         ((TextView) findViewById(R.id.category_view_title)).setText(title);
-
-        // Dynamically insert a button for each image file.
-        String[] fileNames = extras.getStringArray(IMAGE_FILES_KEY);
-        LinearLayout layout = (LinearLayout) findViewById(R.id.image_files_linear_layout);
-        for (final String fileName : fileNames) {
-            Button button = createImageViewButton(fileName);
-            layout.addView(button);
-        }
-
-        // Put the category_name into the data layer for future use.
-        TagManager.getInstance(this).getDataLayer().push(CATEGORY_NAME_KEY, categoryName);
     }
 
     @Override
     protected void onStart() {
         super.onStart();
         Utils.pushOpenScreenEvent(this, "CategoryViewScreen");
+        if (fileList != null) {
+            // After the list has been laid out, so the visible rows are known.
+            fileList.post(prefetchVisibleImages);
+        }
     }
 
     @Override
     protected void onStop() {
         super.onStop();
         Utils.pushCloseScreenEvent(this, "CategoryViewScreen");
+        if (fileList != null) {
+            fileList.removeCallbacks(prefetchVisibleImages);
+            imagePrefetcher.cancelAll();
+        }
     }
 
+    private final Runnable prefetchVisibleImages = new Runnable() {
+        @Override
+        public void run() {
+            LinearLayoutManager layoutManager = (LinearLayoutManager) fileList.getLayoutManager();
+            int first = Math.max(0, layoutManager.findFirstVisibleItemPosition());
+            int last = Math.min(layoutManager.findLastVisibleItemPosition(),
+                    first + PREFETCH_VISIBLE_IMAGES - 1);
+            // The list may not have been laid out again since the images changed.
+            last = Math.min(last, fileNames.length - 1);
+            for (int i = first; i <= last; i++) {
+                imagePrefetcher.prefetch(fileNames[i], targetWidth, targetHeight);
+            }
+        }
+    };
+
     public void backToMainButtonClicked(@SuppressWarnings("unused") View view) {
         // Back to previous activity.
         finish();
     }
 
-    private Button createImageViewButton(final String fileName) {
-        Button button = new Button(this);
+    private void bindImageViewButton(Button button, String fileName) {
         // Set the text of the button, the first line is the image file name, the second one
         // is to show size of the image.
         String firstLineHtmlText = fileName;
-        int imageId = getResources().getIdentifier(fileName, "drawable", getPackageName());
-        Drawable drawable = getResources().getDrawable(imageId);
-        String secondLineHtmlText = "<small><font color='grey'>"
-                + drawable.getMinimumWidth() + "x" + drawable.getMinimumHeight() + "</font></small>";
+        // The size comes from the image index, the image itself is only decoded when opened.
+        // Images that aren't indexed yet get a placeholder until the indexer has measured them.
+        int entry = imageIndex.find(fileName);
+        String size = entry >= 0
+                ? imageIndex.getWidth(entry) + "x" + imageIndex.getHeight(entry) : "...";
+        String secondLineHtmlText = "<small><font color='grey'>" + size + "</font></small>";
         button.setText(Html.fromHtml(firstLineHtmlText + "<br/>" + secondLineHtmlText));
-        button.setOnClickListener(new View.OnClickListener() {
-            @Override
-            public void onClick(View arg0) {
-                startImageViewActivity(fileName);
-            }
-        });
-
-        return button;
     }
 
     private void startImageViewActivity(String fileName) {
+        imagePrefetcher.onImageOpened(fileName, targetWidth, targetHeight);
         Intent intent = new Intent(CategoryViewActivity.this, ImageViewActivity.class);
         // Passes the image file name and the back button name into the ImageViewActivity.
         intent.putExtra(ImageViewActivity.IMAGE_NAME_KEY, fileName);
@@ -0,0 +1,255 @@
+/*
+ * Copyright 2026 Basit Parkar.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ *  @date 10/18/26 8:20 AM
+ *  @modified 10/18/26 8:20 AM
+ */
+
+package me.iz.mobility.googletagmanagerdemo;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+
+/**
+ * The Tag Manager containers of the app, keyed by container id.
+ * <p/>
+ * {@link #loadAll()} asks the {@link Loader} for every container at once, each with its own
+ * timeout and default resource, and a screen waits with {@link #whenReady} for only the
+ * containers it needs. A container that failed to load is ready too, {@link #get} just returns
+ * null for it.
+ *
+ * @param <H> the container holder, left open so the registry can be tested off the device.
+ */
+public final class ContainerRegistry<H> {
+
+    public interface Loader<H> {
+        /**
+         * Starts loading a container and calls back exactly once, on any thread, with the holder
+         * or with null if it failed or didn't load within the timeout of the spec.
+         */
+        void load(Spec spec, LoadCallback<H> callback);
+    }
+
+    public interface LoadCallback<H> {
+        void onLoaded(H holder);
+    }
+
+    public interface Listener<H> {
+        /**
+         * Called on the callback executor once all the containers the listener waits for are
+         * ready.
+         */
+        void onContainersReady(ContainerRegistry<H> registry);
+    }
+
+    /**
+     * How to load one container.
+     */
+    public static final class Spec {
+        public final String containerId;
+        // The container bundled with the app, for a first start without network.
+        public final int defaultResourceId;
+        public final long timeoutMillis;
+
+        Spec(String containerId, int defaultResourceId, long timeoutMillis) {
+            this.containerId = containerId;
+            this.defaultResourceId = defaultResourceId;
+            this.timeoutMillis = timeoutMillis;
+        }
+    }
+
+    public static final class Builder<H> {
+        private final Map<String, Spec> specs = new LinkedHashMap<>();
+
+        public Builder<H> add(String containerId, int defaultResourceId, long timeoutMillis) {
+            if (specs.containsKey(containerId)) {
+                throw new IllegalArgumentException("Duplicate container: " + containerId);
+            }
+            specs.put(containerId, new Spec(containerId, defaultResourceId, timeoutMillis));
+            return this;
+        }
+
+        public ContainerRegistry<H> build(Loader<H> loader, Executor callbackExecutor) {
+            return new ContainerRegistry<>(specs, loader, callbackExecutor);
+        }
+    }
+
+    private static final class Entry<H> {
+        final Spec spec;
+        boolean ready;
+        H holder;
+
+        Entry(Spec spec) {
+            this.spec = spec;
+        }
+    }
+
+    private static final class Waiter<H> {
+        final Listener<H> listener;
+        int remaining;
+
+        Waiter(Listener<H> listener, int remaining) {
+            this.listener = listener;
+            this.remaining = remaining;
+        }
+    }
+
+    private final Map<String, Entry<H>> entries = new LinkedHashMap<>();
+    private final Loader<H> loader;
+    private final Executor callbackExecutor;
+    // Guarded by this, the waiters of each container that isn't ready yet, and all waiters that
+    // haven't been called yet.
+    private final Map<String, List<Waiter<H>>> waiters = new LinkedHashMap<>();
+    private final List<Waiter<H>> pending = new ArrayList<>();
+    private boolean loading;
+
+    private ContainerRegistry(Map<String, Spec> specs, Loader<H> loader,
+                              Executor callbackExecutor) {
+        for (Spec spec : specs.values()) {
+            entries.put(spec.containerId, new Entry<H>(spec));
+        }
+        this.loader = loader;
+        this.callbackExecutor = callbackExecutor;
+    }
+
+    /**
+     * Starts loading every container, only the first call does anything.
+     */
+    public void loadAll() {
+        synchronized (this) {
+            if (loading) {
+                return;
+            }
+            loading = true;
+        }
+        for (final Entry<H> entry : entries.values()) {
+            loader.load(entry.spec, new LoadCallback<H>() {
+                @Override
+                public void onLoaded(H holder) {
+                    onReady(entry, holder);
+                }
+            });
+        }
+    }
+
+    /**
+     * Calls the listener once all the given containers are ready, right away if they are.
+     */
+    public void whenReady(Listener<H> listener, String... containerIds) {
+        Waiter<H> waiter = new Waiter<>(listener, 0);
+        synchronized (this) {
+            pending.add(waiter);
+            for (String containerId : containerIds) {
+                Entry<H> entry = entry(containerId);
+                if (!entry.ready) {
+                    List<Waiter<H>> list = waiters.get(containerId);
+                    if (list == null) {
+                        list = new ArrayList<>();
+                        waiters.put(containerId, list);
+                    }
+                    list.add(waiter);
+                    waiter.remaining++;
+                }
+            }
+            if (waiter.remaining > 0) {
+                return;
+            }
+        }
+        deliver(waiter);
+    }
+
+    /**
+     * Stops waiting, for a screen that goes away before its containers are ready.
+     */
+    public synchronized void removeListener(Listener<H> listener) {
+        for (int i = pending.size() - 1; i >= 0; i--) {
+            if (pending.get(i).listener == listener) {
+                pending.remove(i);
+            }
+        }
+        for (List<Waiter<H>> list : waiters.values()) {
+            for (int i = list.size() - 1; i >= 0; i--) {
+                if (list.get(i).listener == listener) {
+                    list.remove(i);
+                }
+            }
+        }
+    }
+
+    /**
+     * @return the holder of the container, or null if it failed or isn't ready yet.
+     */
+    public synchronized H get(String containerId) {
+        return entry(containerId).holder;
+    }
+
+    public synchronized boolean isReady(String containerId) {
+        return entry(containerId).ready;
+    }
+
+    public List<String> getContainerIds() {
+        return Collections.unmodifiableList(new ArrayList<>(entries.keySet()));
+    }
+
+    private void onReady(Entry<H> entry, H holder) {
+        List<Waiter<H>> done = new ArrayList<>();
+        synchronized (this) {
+            if (entry.ready) {
+                // The loader called back twice.
+                return;
+            }
+            entry.ready = true;
+            entry.holder = holder;
+            List<Waiter<H>> list = waiters.remove(entry.spec.containerId);
+            if (list != null) {
+                for (Waiter<H> waiter : list) {
+                    if (--waiter.remaining == 0) {
+                        done.add(waiter);
+                    }
+                }
+            }
+        }
+        for (Waiter<H> waiter : done) {
+            deliver(waiter);
+        }
+    }
+
+    private void deliver(final Waiter<H> waiter) {
+        callbackExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                synchronized (ContainerRegistry.this) {
+                    if (!pending.remove(waiter)) {
+                        // Removed after its containers were ready.
+                        return;
+                    }
+                }
+                waiter.listener.onContainersReady(ContainerRegistry.this);
+            }
+        });
+    }
+
+    private Entry<H> entry(String containerId) {
+        Entry<H> entry = entries.get(containerId);
+        if (entry == null) {
+            throw new IllegalArgumentException("Unknown container: " + containerId);
+        }
+        return entry;
+    }
+}
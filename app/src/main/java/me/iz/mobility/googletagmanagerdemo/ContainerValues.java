@@ -0,0 +1,187 @@
+/*
+ * Copyright 2026 Basit Parkar.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ *  @date 10/18/26 8:45 AM
+ *  @modified 10/18/26 8:45 AM
+ */
+
+package me.iz.mobility.googletagmanagerdemo;
+
+import com.google.android.gms.tagmanager.Container;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Read-through cache of the values of one container, for one container version at a time.
+ * <p/>
+ * Every value is asked from the container, which evaluates its rules, only the first time it is
+ * read after the container version changed. {@link #update} swaps in an empty cache for the new
+ * version with one volatile write, so a reader sees either all old or all new values and a
+ * settled value costs a volatile read and a map lookup.
+ * <p/>
+ * Before the first {@link #update} strings and parsed values read as null, longs as 0 and
+ * booleans as false.
+ */
+public final class ContainerValues {
+
+    /**
+     * Where the values come from, {@link #of(Container)} for a real container.
+     */
+    public interface Source {
+        String getString(String key);
+
+        long getLong(String key);
+
+        boolean getBoolean(String key);
+    }
+
+    /**
+     * Turns a string value into the object it describes, called at most once per key and
+     * container version unless it throws.
+     */
+    public interface Parser<T> {
+        T parse(String value);
+    }
+
+    // Stands in for a null string, the maps don't take null values.
+    private static final Object NULL = new Object();
+
+    private static final class Parsed {
+        final Parser<?> parser;
+        final Object value;
+
+        Parsed(Parser<?> parser, Object value) {
+            this.parser = parser;
+            this.value = value;
+        }
+    }
+
+    private static final class Version {
+        final String version;
+        final Source source;
+        final ConcurrentHashMap<String, Object> strings = new ConcurrentHashMap<>();
+        final ConcurrentHashMap<String, Long> longs = new ConcurrentHashMap<>();
+        final ConcurrentHashMap<String, Boolean> booleans = new ConcurrentHashMap<>();
+        final ConcurrentHashMap<String, Parsed> parsed = new ConcurrentHashMap<>();
+
+        Version(String version, Source source) {
+            this.version = version;
+            this.source = source;
+        }
+    }
+
+    private volatile Version current;
+
+    public static Source of(final Container container) {
+        return new Source() {
+            @Override
+            public String getString(String key) {
+                return container.getString(key);
+            }
+
+            @Override
+            public long getLong(String key) {
+                return container.getLong(key);
+            }
+
+            @Override
+            public boolean getBoolean(String key) {
+                return container.getBoolean(key);
+            }
+        };
+    }
+
+    /**
+     * Drops the cached values unless the version is the one already cached.
+     */
+    public void update(String version, Source source) {
+        Version old = current;
+        if (old != null && old.version.equals(version)) {
+            return;
+        }
+        current = new Version(version, source);
+    }
+
+    /**
+     * @return the container version the values come from, or null before the first update.
+     */
+    public String getVersion() {
+        Version version = current;
+        return version != null ? version.version : null;
+    }
+
+    public String getString(String key) {
+        Version version = current;
+        return version != null ? getString(version, key) : null;
+    }
+
+    private static String getString(Version version, String key) {
+        Object value = version.strings.get(key);
+        if (value == null) {
+            value = version.source.getString(key);
+            if (value == null) {
+                value = NULL;
+            }
+            version.strings.put(key, value);
+        }
+        return value != NULL ? (String) value : null;
+    }
+
+    public long getLong(String key) {
+        Version version = current;
+        if (version == null) {
+            return 0;
+        }
+        Long value = version.longs.get(key);
+        if (value == null) {
+            value = version.source.getLong(key);
+            version.longs.put(key, value);
+        }
+        return value;
+    }
+
+    public boolean getBoolean(String key) {
+        Version version = current;
+        if (version == null) {
+            return false;
+        }
+        Boolean value = version.booleans.get(key);
+        if (value == null) {
+            value = version.source.getBoolean(key);
+            version.booleans.put(key, value);
+        }
+        return value;
+    }
+
+    /**
+     * @return the string value of the key parsed by the parser, or null if there is no string
+     * value. A key read with a different parser than last time is parsed again.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T get(String key, Parser<T> parser) {
+        Version version = current;
+        if (version == null) {
+            return null;
+        }
+        Parsed value = version.parsed.get(key);
+        if (value == null || value.parser != parser) {
+            // From the same version, even if a newer one was swapped in meanwhile.
+            String string = getString(version, key);
+            value = new Parsed(parser, string != null ? parser.parse(string) : null);
+            version.parsed.put(key, value);
+        }
+        return (T) value.value;
+    }
+}
@@ -0,0 +1,93 @@
+/*
+ * Copyright 2026 Basit Parkar.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ *  @date 10/18/26 3:22 AM
+ *  @modified 10/18/26 3:22 AM
+ */
+
+package me.iz.mobility.googletagmanagerdemo;
+
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The function call macros used by the container: "increment" counts its calls and "mod" returns
+ * {@code key1 % key2}.
+ */
+final class CustomMacros {
+
+    private CustomMacros() {
+    }
+
+    static MacroRegistry newRegistry() {
+        return new MacroRegistry.Builder()
+                .add("increment", new Increment())
+                .add("mod", new Mod())
+                .build();
+    }
+
+    /**
+     * Each call gets its own number, so the count is one atomic rather than striped.
+     */
+    static final class Increment implements MacroRegistry.Macro {
+        private final AtomicInteger calls = new AtomicInteger();
+
+        @Override
+        public Object evaluate(Map<String, Object> parameters) {
+            return calls.incrementAndGet();
+        }
+    }
+
+    /**
+     * {@code key2} is a constant of the container but arrives as a string. It is parsed once and
+     * kept with the boxed results for it, so a call with a non-negative {@code key1} and a small
+     * {@code key2} allocates nothing.
+     */
+    static final class Mod implements MacroRegistry.Macro {
+        private static final int MAX_BOXED_RESULTS = 1024;
+
+        private static final class Modulus {
+            final String text;
+            final int value;
+            final Long[] results;
+
+            Modulus(String text) {
+                this.text = text;
+                this.value = Integer.parseInt(text);
+                int count = value > 0 && value <= MAX_BOXED_RESULTS ? value : 0;
+                this.results = new Long[count];
+                for (int i = 0; i < count; i++) {
+                    results[i] = (long) i;
+                }
+            }
+        }
+
+        private volatile Modulus modulus;
+
+        @Override
+        public Object evaluate(Map<String, Object> parameters) {
+            String text = (String) parameters.get("key2");
+            Modulus m = modulus;
+            if (m == null || !m.text.equals(text)) {
+                modulus = m = new Modulus(text);
+            }
+            long result = (Long) parameters.get("key1") % m.value;
+            if (result >= 0 && result < m.results.length) {
+                return m.results[(int) result];
+            }
+            return result;
+        }
+    }
+}
@@ -0,0 +1,51 @@
+/*
+ * Copyright 2026 Basit Parkar.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ *  @date 10/18/26 4:46 AM
+ *  @modified 10/18/26 4:46 AM
+ */
+
+package me.iz.mobility.googletagmanagerdemo;
+
+import android.util.Log;
+
+import java.util.Map;
+
+/**
+ * The function call tags used by the container.
+ */
+final class CustomTags {
+
+    static final String CUSTOM_TAG = "custom_tag";
+
+    private static final int WORKERS = 2;
+    private static final int CAPACITY = 64;
+    private static final long CUSTOM_TAG_TIMEOUT_MILLIS = 5000;
+
+    private CustomTags() {
+    }
+
+    static TagExecutor newExecutor() {
+        return new TagExecutor(WORKERS, CAPACITY, TagExecutor.Overflow.DROP_OLDEST)
+                .register(CUSTOM_TAG, new TagExecutor.Tag() {
+                    @Override
+                    public void execute(Map<String, Object> parameters) {
+                        // The code for firing this custom tag.
+                        Log.i("CuteAnimals", "Custom function call tag :" + CUSTOM_TAG
+                                + " is fired.");
+                    }
+                }, 1, CUSTOM_TAG_TIMEOUT_MILLIS);
+    }
+}
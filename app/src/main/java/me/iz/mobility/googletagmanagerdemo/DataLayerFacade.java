@@ -0,0 +1,115 @@
+/*
+ * Copyright 2026 Basit Parkar.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ *  @date 10/17/26 11:42 PM
+ *  @modified 10/17/26 11:42 PM
+ */
+
+package me.iz.mobility.googletagmanagerdemo;
+
+import android.content.Context;
+
+import com.google.android.gms.tagmanager.DataLayer;
+import com.google.android.gms.tagmanager.TagManager;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+
+/**
+ * The app's way to push to the Tag Manager {@link DataLayer}. Pushes are applied in order on a
+ * background thread through a {@link DataLayerQueue}, and the payloads of screen events are
+ * built once per screen and event and then reused.
+ */
+public class DataLayerFacade {
+
+    static final String OPEN_SCREEN_EVENT = "openScreen";
+    static final String CLOSE_SCREEN_EVENT = "closeScreen";
+    private static final String SCREEN_NAME_KEY = "screenName";
+
+    private final DataLayerQueue queue;
+    // Immutable payloads by event and screen name.
+    private final ConcurrentMap<String, Map<String, Object>> openScreenPayloads = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, Map<String, Object>> closeScreenPayloads = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, Map<String, Object>> eventPayloads = new ConcurrentHashMap<>();
+
+    public DataLayerFacade(final Context context, Executor executor) {
+        this.queue = new DataLayerQueue(executor, new DataLayerQueue.Target() {
+            // Only used on the executor, one push at a time.
+            private DataLayer dataLayer;
+
+            @Override
+            public void push(Map<String, Object> payload) {
+                if (dataLayer == null) {
+                    dataLayer = TagManager.getInstance(context).getDataLayer();
+                }
+                dataLayer.push(payload);
+            }
+        });
+    }
+
+    /**
+     * Push an "openScreen" event with the given screen name. Tags that match that event will fire.
+     */
+    public void pushOpenScreenEvent(String screenName) {
+        queue.push(screenPayload(openScreenPayloads, OPEN_SCREEN_EVENT, screenName));
+    }
+
+    /**
+     * Push a "closeScreen" event with the given screen name. Tags that match that event will fire.
+     */
+    public void pushCloseScreenEvent(String screenName) {
+        queue.push(screenPayload(closeScreenPayloads, CLOSE_SCREEN_EVENT, screenName));
+    }
+
+    /**
+     * Push an event without further data. Tags that match that event will fire.
+     */
+    public void pushEvent(String event) {
+        Map<String, Object> payload = eventPayloads.get(event);
+        if (payload == null) {
+            payload = freeze(DataLayer.EVENT_KEY, event);
+            eventPayloads.putIfAbsent(event, payload);
+        }
+        queue.push(payload);
+    }
+
+    /**
+     * Put a value into the data layer for future use.
+     */
+    public void push(String key, Object value) {
+        queue.push(freeze(key, value));
+    }
+
+    public DataLayerQueue getQueue() {
+        return queue;
+    }
+
+    private static Map<String, Object> screenPayload(ConcurrentMap<String, Map<String, Object>> payloads,
+                                                     String event, String screenName) {
+        Map<String, Object> payload = payloads.get(screenName);
+        if (payload == null) {
+            payload = freeze(DataLayer.EVENT_KEY, event, SCREEN_NAME_KEY, screenName);
+            payloads.putIfAbsent(screenName, payload);
+        }
+        return payload;
+    }
+
+    private static Map<String, Object> freeze(Object... keysAndValues) {
+        return Collections.unmodifiableMap(DataLayer.mapOf(keysAndValues));
+    }
+}
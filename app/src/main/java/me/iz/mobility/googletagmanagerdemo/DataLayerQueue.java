@@ -0,0 +1,115 @@
+/*
+ * Copyright 2026 Basit Parkar.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ *  @date 10/17/26 11:20 PM
+ *  @modified 10/17/26 11:20 PM
+ */
+
+package me.iz.mobility.googletagmanagerdemo;
+
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Moves data layer pushes off the calling thread while keeping their order. Pushes made in a
+ * burst, such as the close event of one screen and the open event of the next, are applied by
+ * one task on the executor instead of one task each.
+ * <p/>
+ * Only one drain runs at a time, so the target sees the payloads in the order they were pushed
+ * even if the executor has more than one thread.
+ */
+public class DataLayerQueue {
+
+    public interface Target {
+        /**
+         * Called on the executor, one payload at a time.
+         */
+        void push(Map<String, Object> payload);
+    }
+
+    private final Executor executor;
+    private final Target target;
+    private final Queue<Map<String, Object>> queue = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean scheduled = new AtomicBoolean();
+
+    private volatile long pushed;
+    private volatile long batches;
+    private volatile long failed;
+
+    private final Runnable drain = new Runnable() {
+        @Override
+        public void run() {
+            do {
+                batches++;
+                Map<String, Object> payload;
+                while ((payload = queue.poll()) != null) {
+                    try {
+                        target.push(payload);
+                        pushed++;
+                    } catch (RuntimeException e) {
+                        // One bad push must not hold up the ones after it.
+                        failed++;
+                    }
+                }
+                scheduled.set(false);
+                // A push that came in after the last poll but saw the drain still scheduled is
+                // picked up here.
+            } while (!queue.isEmpty() && scheduled.compareAndSet(false, true));
+        }
+    };
+
+    /**
+     * @param executor runs the pushes off the calling thread.
+     * @param target   receives the payloads.
+     */
+    public DataLayerQueue(Executor executor, Target target) {
+        this.executor = executor;
+        this.target = target;
+    }
+
+    /**
+     * Queues the payload. It must not be changed afterwards.
+     */
+    public void push(Map<String, Object> payload) {
+        queue.offer(payload);
+        if (scheduled.compareAndSet(false, true)) {
+            executor.execute(drain);
+        }
+    }
+
+    /**
+     * @return the number of payloads handed to the target.
+     */
+    public long getPushedCount() {
+        return pushed;
+    }
+
+    /**
+     * @return the number of times the queue was drained, each drain applies a burst of pushes.
+     */
+    public long getBatchCount() {
+        return batches;
+    }
+
+    /**
+     * @return the number of payloads the target threw on.
+     */
+    public long getFailedCount() {
+        return failed;
+    }
+}
@@ -0,0 +1,45 @@
+/*
+ * Copyright 2026 Basit Parkar.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ *  @date 10/17/26 10:11 PM
+ *  @modified 10/17/26 10:11 PM
+ */
+
+package me.iz.mobility.googletagmanagerdemo;
+
+/**
+ * The ids of the drawables of the app by name. The table is built the first time it is used,
+ * from the fields of {@code R.drawable}.
+ */
+final class Drawables {
+
+    private Drawables() {
+    }
+
+    private static final class Holder {
+        static final ResourceTable TABLE = ResourceTable.of(R.drawable.class);
+    }
+
+    /**
+     * @return the id of the drawable, or 0 if there is none.
+     */
+    static int getId(String name) {
+        return Holder.TABLE.getId(name);
+    }
+
+    static ResourceTable getTable() {
+        return Holder.TABLE;
+    }
+}
@@ -0,0 +1,363 @@
+/*
+ * Copyright 2026 Basit Parkar.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ *  @date 10/18/26 10:20 AM
+ *  @modified 10/18/26 10:20 AM
+ */
+
+package me.iz.mobility.googletagmanagerdemo;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * An enhanced ecommerce action, such as a purchase, with its products and product impressions.
+ * The line items are kept in parallel arrays, so a cart of thousands of them is a handful of
+ * objects until it is sent.
+ * <p/>
+ * {@link #toHits} packs it into as few event hits as the Measurement Protocol allows: each hit
+ * takes up to {@value #MAX_ITEMS_PER_HIT} products and impressions per list, and stays below
+ * {@value #MAX_HIT_BYTES} bytes encoded. Every hit carries the action and transaction id, only
+ * the first one carries the revenue, tax and shipping, so they are counted once.
+ * <p/>
+ * Amounts are in cents. Not thread safe, build it on one thread and send it with
+ * {@link GTMAnalytics#send(EcommerceTransaction)}.
+ */
+public final class EcommerceTransaction {
+
+    public static final String DETAIL = "detail";
+    public static final String ADD = "add";
+    public static final String REMOVE = "remove";
+    public static final String CHECKOUT = "checkout";
+    public static final String PURCHASE = "purchase";
+    public static final String REFUND = "refund";
+
+    // The category of the events the transaction is sent with.
+    static final String CATEGORY = "ecommerce";
+    static final int MAX_ITEMS_PER_HIT = 200;
+    // Below the 8k of a hit, leaving room for what the tracker or sink adds to it.
+    static final int MAX_HIT_BYTES = 8192 - 512;
+    private static final int INITIAL_CAPACITY = 16;
+
+    public final String id;
+    private final String action;
+    private String affiliation;
+    private long revenueCents;
+    private long taxCents;
+    private long shippingCents;
+    private boolean hasTotals;
+    // The size of a hit without line items, after the first.
+    private final int emptyHitBytes;
+
+    private int productCount;
+    private String[] productIds = new String[INITIAL_CAPACITY];
+    private String[] productNames = new String[INITIAL_CAPACITY];
+    private long[] productPriceCents = new long[INITIAL_CAPACITY];
+    private int[] productQuantities = new int[INITIAL_CAPACITY];
+
+    private int impressionCount;
+    private String[] impressionIds = new String[INITIAL_CAPACITY];
+    // Index into listNames.
+    private int[] impressionLists = new int[INITIAL_CAPACITY];
+    private final List<String> listNames = new ArrayList<>();
+    private final Map<String, Integer> listIndexes = new HashMap<>();
+
+    /**
+     * @param action one of the constants of this class, eg. {@link #PURCHASE}.
+     */
+    public EcommerceTransaction(String id, String action) {
+        if (id == null || action == null) {
+            throw new IllegalArgumentException("A transaction needs an id and an action");
+        }
+        this.id = id;
+        this.action = action;
+        this.emptyHitBytes = new HitBuilder(this, false).bytes;
+    }
+
+    public EcommerceTransaction setAffiliation(String affiliation) {
+        this.affiliation = affiliation;
+        return this;
+    }
+
+    public EcommerceTransaction setTotals(long revenueCents, long taxCents, long shippingCents) {
+        this.revenueCents = revenueCents;
+        this.taxCents = taxCents;
+        this.shippingCents = shippingCents;
+        this.hasTotals = true;
+        return this;
+    }
+
+    /**
+     * @param name optional.
+     * @throws IllegalArgumentException if the product has no id, or doesn't fit in a hit of its
+     *                                  own because of the length of its id or name.
+     */
+    public EcommerceTransaction addProduct(String id, String name, long priceCents, int quantity) {
+        if (id == null) {
+            throw new IllegalArgumentException("A product needs an id");
+        }
+        if (emptyHitBytes + productBytes("&pr1", id, name, formatCents(priceCents),
+                Integer.toString(quantity)) > MAX_HIT_BYTES) {
+            throw new IllegalArgumentException("Product " + id + " doesn't fit in a hit");
+        }
+        if (productCount == productIds.length) {
+            int capacity = productCount * 2;
+            productIds = Arrays.copyOf(productIds, capacity);
+            productNames = Arrays.copyOf(productNames, capacity);
+            productPriceCents = Arrays.copyOf(productPriceCents, capacity);
+            productQuantities = Arrays.copyOf(productQuantities, capacity);
+        }
+        productIds[productCount] = id;
+        productNames[productCount] = name;
+        productPriceCents[productCount] = priceCents;
+        productQuantities[productCount] = quantity;
+        productCount++;
+        return this;
+    }
+
+    /**
+     * Records that a product was shown in a list, eg. search results.
+     *
+     * @throws IllegalArgumentException if the list name or product id is missing, or they don't
+     *                                  fit in a hit of their own.
+     */
+    public EcommerceTransaction addImpression(String listName, String productId) {
+        if (listName == null || productId == null) {
+            throw new IllegalArgumentException("An impression needs a list name and a product id");
+        }
+        if (emptyHitBytes + encodedLength("&il1nm", listName)
+                + encodedLength("&il1pi1id", productId) > MAX_HIT_BYTES) {
+            throw new IllegalArgumentException(
+                    "Impression of " + productId + " in " + listName + " doesn't fit in a hit");
+        }
+        Integer list = listIndexes.get(listName);
+        if (list == null) {
+            list = listNames.size();
+            listNames.add(listName);
+            listIndexes.put(listName, list);
+        }
+        if (impressionCount == impressionIds.length) {
+            int capacity = impressionCount * 2;
+            impressionIds = Arrays.copyOf(impressionIds, capacity);
+            impressionLists = Arrays.copyOf(impressionLists, capacity);
+        }
+        impressionIds[impressionCount] = productId;
+        impressionLists[impressionCount] = list;
+        impressionCount++;
+        return this;
+    }
+
+    public int getProductCount() {
+        return productCount;
+    }
+
+    public int getImpressionCount() {
+        return impressionCount;
+    }
+
+    /**
+     * @param trackers the trackers the hits go to, see {@link GTMAnalytics#trackers}.
+     * @return the hits of the transaction, at least one.
+     */
+    public List<Hit> toHits(int trackers) {
+        List<Hit> hits = new ArrayList<>();
+        HitBuilder hit = new HitBuilder(this, true);
+        for (int i = 0; i < productCount; i++) {
+            if (!hit.addProduct(i)) {
+                hits.add(hit.build(trackers));
+                hit = new HitBuilder(this, false);
+                if (!hit.addProduct(i)) {
+                    // Checked when it was added.
+                    throw new IllegalStateException("Product " + productIds[i] + " doesn't fit");
+                }
+            }
+        }
+        for (int i = 0; i < impressionCount; i++) {
+            if (!hit.addImpression(i)) {
+                hits.add(hit.build(trackers));
+                hit = new HitBuilder(this, false);
+                if (!hit.addImpression(i)) {
+                    // Checked when it was added.
+                    throw new IllegalStateException(
+                            "Impression of " + impressionIds[i] + " doesn't fit");
+                }
+            }
+        }
+        hits.add(hit.build(trackers));
+        return hits;
+    }
+
+    /**
+     * The parameters of one hit and their encoded size.
+     */
+    private static final class HitBuilder {
+        final EcommerceTransaction transaction;
+        final Map<String, String> parameters;
+        int bytes;
+        int products;
+        // Lists of the transaction to their index in this hit, and their impressions so far.
+        final int[] lists;
+        final int[] listImpressions;
+        int listCount;
+
+        HitBuilder(EcommerceTransaction transaction, boolean first) {
+            this.transaction = transaction;
+            this.lists = new int[transaction.listNames.size()];
+            this.listImpressions = new int[lists.length];
+            parameters = new HashMap<>(HitMaps.build(
+                    Hit.event(CATEGORY, transaction.action, transaction.id)));
+            for (Map.Entry<String, String> parameter : parameters.entrySet()) {
+                bytes += encodedLength(parameter.getKey(), parameter.getValue());
+            }
+            put("&pa", transaction.action);
+            put("&ti", transaction.id);
+            if (first) {
+                if (transaction.affiliation != null) {
+                    put("&ta", transaction.affiliation);
+                }
+                if (transaction.hasTotals) {
+                    put("&tr", formatCents(transaction.revenueCents));
+                    put("&tt", formatCents(transaction.taxCents));
+                    put("&ts", formatCents(transaction.shippingCents));
+                }
+            }
+        }
+
+        /**
+         * @return false, adding nothing, if the product doesn't fit anymore.
+         */
+        boolean addProduct(int i) {
+            EcommerceTransaction t = transaction;
+            String prefix = "&pr" + (products + 1);
+            String price = formatCents(t.productPriceCents[i]);
+            String quantity = Integer.toString(t.productQuantities[i]);
+            int size = productBytes(prefix, t.productIds[i], t.productNames[i], price, quantity);
+            if (products == MAX_ITEMS_PER_HIT || bytes + size > MAX_HIT_BYTES) {
+                return false;
+            }
+            products++;
+            put(prefix + "id", t.productIds[i]);
+            put(prefix + "pr", price);
+            put(prefix + "qt", quantity);
+            if (t.productNames[i] != null) {
+                put(prefix + "nm", t.productNames[i]);
+            }
+            return true;
+        }
+
+        /**
+         * @return false, adding nothing, if the impression doesn't fit anymore.
+         */
+        boolean addImpression(int i) {
+            EcommerceTransaction t = transaction;
+            int list = t.impressionLists[i];
+            int index = -1;
+            for (int j = 0; j < listCount; j++) {
+                if (lists[j] == list) {
+                    index = j;
+                    break;
+                }
+            }
+            String listPrefix = "&il" + ((index >= 0 ? index : listCount) + 1);
+            String key = listPrefix + "pi" + ((index >= 0 ? listImpressions[index] : 0) + 1)
+                    + "id";
+            int size = encodedLength(key, t.impressionIds[i]);
+            if (index < 0) {
+                size += encodedLength(listPrefix + "nm", t.listNames.get(list));
+            }
+            if ((index >= 0 ? listImpressions[index] : listCount) == MAX_ITEMS_PER_HIT
+                    || bytes + size > MAX_HIT_BYTES) {
+                return false;
+            }
+            if (index < 0) {
+                index = listCount++;
+                lists[index] = list;
+                put(listPrefix + "nm", t.listNames.get(list));
+            }
+            listImpressions[index]++;
+            put(key, t.impressionIds[i]);
+            return true;
+        }
+
+        void put(String key, String value) {
+            parameters.put(key, value);
+            bytes += encodedLength(key, value);
+        }
+
+        Hit build(int trackers) {
+            return Hit.event(CATEGORY, transaction.action, transaction.id,
+                    Collections.unmodifiableMap(parameters), trackers);
+        }
+    }
+
+    private static int productBytes(String prefix, String id, String name, String price,
+                                    String quantity) {
+        int size = encodedLength(prefix + "id", id)
+                + encodedLength(prefix + "pr", price)
+                + encodedLength(prefix + "qt", quantity);
+        if (name != null) {
+            size += encodedLength(prefix + "nm", name);
+        }
+        return size;
+    }
+
+    /**
+     * @return the size of {@code &name=value} once URL encoded, the ampersand the tracker's names
+     * start with included.
+     */
+    static int encodedLength(String name, String value) {
+        return encodedLength(name) + 1 + encodedLength(value);
+    }
+
+    private static int encodedLength(String s) {
+        int length = 0;
+        for (int i = 0, n = s.length(); i < n; i++) {
+            char c = s.charAt(i);
+            if ((c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9')
+                    || c == '.' || c == '-' || c == '*' || c == '_' || c == ' ' || c == '&') {
+                length++;
+            } else if (c < 0x80) {
+                length += 3;
+            } else if (c < 0x800) {
+                length += 6;
+            } else if (Character.isHighSurrogate(c)) {
+                // The pair is four bytes of UTF-8.
+                length += 12;
+                i++;
+            } else {
+                length += 9;
+            }
+        }
+        return length;
+    }
+
+    static String formatCents(long cents) {
+        StringBuilder out = new StringBuilder();
+        if (cents < 0) {
+            out.append('-');
+            cents = -cents;
+        }
+        long fraction = cents % 100;
+        out.append(cents / 100).append('.');
+        if (fraction < 10) {
+            out.append('0');
+        }
+        return out.append(fraction).toString();
+    }
+}
@@ -0,0 +1,50 @@
+/*
+ * Copyright 2026 Basit Parkar.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ *  @date 10/18/26 7:20 AM
+ *  @modified 10/18/26 7:20 AM
+ */
+
+package me.iz.mobility.googletagmanagerdemo;
+
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * An event that is sent over and over, with its strings resolved and its hit parameters built
+ * once. Sending it only creates the {@link Hit}; every hit shares the template's map.
+ *
+ * @see GTMAnalytics#template(int, int, int)
+ */
+public final class EventTemplate {
+
+    final String category;
+    final String action;
+    final String label;
+    final Map<String, String> parameters;
+
+    public EventTemplate(String category, String action, String label) {
+        this.category = category;
+        this.action = action;
+        this.label = label;
+        this.parameters = Collections.unmodifiableMap(
+                HitMaps.build(Hit.event(category, action, label)));
+    }
+
+    @Override
+    public String toString() {
+        return "EventTemplate{" + category + "/" + action + "/" + label + "}";
+    }
+}
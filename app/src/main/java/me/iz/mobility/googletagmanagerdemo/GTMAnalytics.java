@@ -19,50 +19,133 @@
 
 package me.iz.mobility.googletagmanagerdemo;
 
-import android.app.Activity;
+import android.content.Context;
 import android.util.Log;
 
-import com.google.android.gms.analytics.HitBuilders;
-import com.google.android.gms.analytics.Tracker;
+import java.util.List;
 
 /**
+ * Screen and event tracking. Hits are only enqueued here, the {@link HitDispatcher} sends them
+ * to the tracker from its own thread.
+ * <p/>
+ * There is one instance for the whole app, see {@link #get(Context)}. It holds no activity and
+ * sending an event only allocates its {@link Hit}: resource strings are resolved once and the
+ * dispatcher thread reuses one parameter map for every hit.
+ *
  * @author basitparkar
  */
 public class GTMAnalytics {
 
+    private static final int ECOMMERCE_TRACKER = trackers(GTMDemo.TrackerName.ECOMMERCE_TRACKER);
+
     private final String TAG = getClass().getSimpleName();
 
-    private Activity mActivity;
+    private final GTMDemo application;
+    private final HitDispatcher dispatcher;
+    // Strings of the resource ids events were sent with. Copied on write, events use few ids.
+    private volatile Strings strings = Strings.EMPTY;
+
+    /**
+     * Sends the hits to the given dispatcher. The app has one of these, load tests make their
+     * own.
+     */
+    GTMAnalytics(GTMDemo application, HitDispatcher dispatcher) {
+        this.application = application;
+        this.dispatcher = dispatcher;
+    }
 
-    public GTMAnalytics(Activity mActivity) {
-        this.mActivity = mActivity;
+    public static GTMAnalytics get(Context context) {
+        return ((GTMDemo) context.getApplicationContext()).getAnalytics();
     }
 
     public void sendEvent(int categoryId, int actionId, int labelId) {
 
-        Tracker t = ((GTMDemo) mActivity.getApplication()).getTracker(
-                GTMDemo.TrackerName.APP_TRACKER);
+        String category = getString(categoryId);
+        String action = getString(actionId);
+        if (!application.getHitThrottle().admit(category, action)) {
+            return;
+        }
+        // Queue an Event.
+        dispatcher.dispatch(Hit.event(category, action, getString(labelId)));
+    }
+
+
+    /**
+     * Resolves the strings of an event and builds its hit parameters, so it can be sent again
+     * and again with {@link #send(EventTemplate)} for just the hit. Keep the template around,
+     * eg. in a field of the activity.
+     */
+    public EventTemplate template(int categoryId, int actionId, int labelId) {
+        return new EventTemplate(getString(categoryId), getString(actionId), getString(labelId));
+    }
 
-        // Build and send an Event.
-        t.send(new HitBuilders.EventBuilder()
-                .setCategory(mActivity.getString(categoryId))
-                .setAction(mActivity.getString(actionId))
-                .setLabel(mActivity.getString(labelId))
-                .build());
+    public void send(EventTemplate template) {
+        send(template, Hit.APP_TRACKER);
     }
 
+    /**
+     * @param trackers a set of {@link #trackers}.
+     */
+    public void send(EventTemplate template, int trackers) {
+
+        if (!application.getHitThrottle().admit(template.category, template.action)) {
+            return;
+        }
+        // Queue an Event.
+        dispatcher.dispatch(Hit.event(template, trackers));
+    }
+
+    /**
+     * Sends the transaction to the ecommerce tracker, in as few hits as it fits in. Transactions
+     * aren't sampled or rate limited.
+     */
+    public void send(EcommerceTransaction transaction) {
+        send(transaction, ECOMMERCE_TRACKER);
+    }
+
+    /**
+     * @param trackers a set of {@link #trackers}.
+     */
+    public void send(EcommerceTransaction transaction, int trackers) {
+        List<Hit> hits = transaction.toHits(trackers);
+        for (int i = 0, n = hits.size(); i < n; i++) {
+            if (!dispatcher.dispatch(hits.get(i))) {
+                Log.w(TAG, "Hit queue full, transaction " + transaction.id + " is incomplete");
+            }
+        }
+    }
 
     public void sendEvent(String category, String action, String label) {
+        sendEvent(category, action, label, Hit.APP_TRACKER);
+    }
 
-        Log.d(TAG, "Sending event " + action);
-        Tracker t = ((GTMDemo) mActivity.getApplication()).getTracker(
-                GTMDemo.TrackerName.APP_TRACKER);
-        // Build and send an Event.
-        t.send(new HitBuilders.EventBuilder()
-                .setCategory(category)
-                .setAction(action)
-                .setLabel(label)
-                .build());
+    /**
+     * @return the set of trackers for the fan-out methods, eg.
+     * {@code trackers(APP_TRACKER, GLOBAL_TRACKER)} for an event that is also rolled up.
+     * Compute it once and keep it.
+     */
+    public static int trackers(GTMDemo.TrackerName... names) {
+        int trackers = 0;
+        for (GTMDemo.TrackerName name : names) {
+            trackers |= 1 << name.ordinal();
+        }
+        return trackers;
+    }
+
+    /**
+     * Sends one event to every tracker of the set. The hit is built once, each tracker only adds
+     * its own tracking id and settings.
+     *
+     * @param trackers a set of {@link #trackers}.
+     */
+    public void sendEvent(String category, String action, String label, int trackers) {
+
+        // Sampled out and rate limited events stop here, before anything is built for them.
+        if (!application.getHitThrottle().admit(category, action)) {
+            return;
+        }
+        // Queue an Event.
+        dispatcher.dispatch(Hit.event(category, action, label, trackers));
     }
 
     public void setScreenName(String title) {
@@ -70,11 +153,73 @@ public class GTMAnalytics {
         if (null == title || title.isEmpty())
             return;
 
-        Tracker t = ((GTMDemo) mActivity.getApplication()).getTracker(
-                GTMDemo.TrackerName.APP_TRACKER);
-        t.setScreenName(title);
-        Log.i(TAG, "setScreenName: "+title);
-        // Send a screen view.
-        t.send(new HitBuilders.ScreenViewBuilder().build());
+        if (!application.getHitThrottle().admit(HitThrottle.SCREEN_VIEW, title)) {
+            return;
+        }
+        if (Log.isLoggable(TAG, Log.DEBUG)) {
+            Log.d(TAG, "setScreenName: " + title);
+        }
+        // Queue a screen view.
+        dispatcher.dispatch(Hit.screenView(title));
+    }
+
+    /**
+     * Forgets the resolved strings, the locale may have changed.
+     */
+    void onConfigurationChanged() {
+        synchronized (this) {
+            strings = Strings.EMPTY;
+        }
+    }
+
+    private String getString(int id) {
+        String string = strings.get(id);
+        if (string == null) {
+            string = resolve(id);
+        }
+        return string;
+    }
+
+    private synchronized String resolve(int id) {
+        Strings current = strings;
+        String string = current.get(id);
+        if (string == null) {
+            string = application.getString(id);
+            strings = current.with(id, string);
+        }
+        return string;
+    }
+
+    private static final class Strings {
+
+        static final Strings EMPTY = new Strings(new int[0], new String[0]);
+
+        private final int[] ids;
+        private final String[] values;
+
+        private Strings(int[] ids, String[] values) {
+            this.ids = ids;
+            this.values = values;
+        }
+
+        String get(int id) {
+            for (int i = 0; i < ids.length; i++) {
+                if (ids[i] == id) {
+                    return values[i];
+                }
+            }
+            return null;
+        }
+
+        Strings with(int id, String value) {
+            int n = ids.length;
+            int[] newIds = new int[n + 1];
+            String[] newValues = new String[n + 1];
+            System.arraycopy(ids, 0, newIds, 0, n);
+            System.arraycopy(values, 0, newValues, 0, n);
+            newIds[n] = id;
+            newValues[n] = value;
+            return new Strings(newIds, newValues);
+        }
     }
 }
@@ -19,12 +19,36 @@
 
 package me.iz.mobility.googletagmanagerdemo;
 
+import android.app.Activity;
+import android.app.ActivityManager;
 import android.app.Application;
+import android.content.Context;
+import android.content.res.Configuration;
+import android.os.Bundle;
+import android.util.Log;
+import android.view.View;
+import android.view.ViewTreeObserver;
 
 import com.google.android.gms.analytics.GoogleAnalytics;
 import com.google.android.gms.analytics.Tracker;
+import com.google.android.gms.common.api.ResultCallback;
+import com.google.android.gms.tagmanager.ContainerHolder;
+import com.google.android.gms.tagmanager.TagManager;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 
-import java.util.HashMap;
 
 /**
  * @author ibasit
@@ -33,30 +57,478 @@ public class GTMDemo extends Application {
 
     private final String TAG = getClass().getSimpleName();
 
-    public static GoogleAnalytics analytics;
-    public static Tracker tracker;
+    // Hits are held for at most this long before the dispatcher hands them to the tracker.
+    private static final long HIT_FLUSH_INTERVAL_MILLIS = 5000;
+    private static final int HIT_QUEUE_CAPACITY = 1024;
+    private static final int HIT_BATCH_SIZE = 32;
+    private static final String HIT_LOG_DIR = "hits";
+    private static final long HIT_LOG_SEGMENT_BYTES = 64 * 1024;
+    private static final long HIT_LOG_SEGMENT_AGE_MILLIS = 15 * 60 * 1000;
+    private static final long HIT_LOG_MAX_BYTES = 1024 * 1024;
+    private static final int HIT_LOG_SHIP_BATCH_SIZE = 256;
+    // The container with the animal catalog, the bundled one is used until a saved or network
+    // container loads.
+    static final String CATALOG_CONTAINER_ID = "GTM-TVNB99";
+    private static final long CATALOG_CONTAINER_TIMEOUT_MILLIS = 2000;
+    private static final String CATALOG_SNAPSHOT_FILE = "catalog.snapshot";
+    private static final String IMAGE_INDEX_FILE = "image.index";
+    private static final String SCREEN_TIMINGS_FILE = "screen_timings.txt";
+    private static final String IMAGE_CACHE_DIR = "images";
+    private static final long IMAGE_DISK_CACHE_BYTES = 20 * 1024 * 1024;
+    private static final int IMAGE_DECODE_THREADS = 2;
+    private static final int STARTUP_THREADS = 2;
+
+    // Start up tasks, see initStartupPipeline().
+    static final String TASK_ANALYTICS = "analytics";
+    static final String TASK_APP_TRACKER = "appTracker";
+    static final String TASK_TAG_MANAGER = "tagManager";
+    static final String TASK_EXCEPTION_REPORTING = "exceptionReporting";
+    static final String TASK_ADVERTISING_ID = "advertisingIdCollection";
+    static final String TASK_IMAGE_CACHE_CLEANUP = "imageCacheCleanup";
+    static final String TASK_HIT_LOG_REPLAY = "hitLogReplay";
+    static final String TASK_DRAWABLE_TABLE = "drawableTable";
+    // Phases recorded from outside the pipeline.
+    static final String PHASE_FIRST_FRAME = "firstFrame";
+    static final String PHASE_CONTAINER_LOAD = "containerLoad";
+
+    // Set by the start up tasks, off the UI thread.
+    public static volatile GoogleAnalytics analytics;
+    public static volatile Tracker tracker;
+
+    private StartupPipeline startupPipeline;
+    private HitLog hitLog;
+    private HitDispatcher hitDispatcher;
+    private GTMAnalytics gtmAnalytics;
+    private ContainerRegistry<ContainerHolder> containerRegistry;
+    // The values of the catalog container.
+    private final ContainerValues containerValues = new ContainerValues();
+    private CatalogRepository catalogRepository;
+    private ImageIndexer imageIndexer;
+    private ImageLoader imageLoader;
+    private ImagePrefetcher imagePrefetcher;
+    private DataLayerFacade dataLayer;
+    private MacroRegistry macroRegistry;
+    private TagExecutor tagExecutor;
+    private volatile HitThrottle hitThrottle = HitThrottle.NONE;
+    private final ScreenTimings screenTimings = new ScreenTimings();
+    // Small file reads and writes that can wait.
+    private final ExecutorService ioExecutor = Executors.newSingleThreadExecutor();
+    private File imageCacheDir;
 
     @Override
     public void onCreate() {
         super.onCreate();
 
-        initGoogleAnalytics();
+        initStartupPipeline();
+
+        dataLayer = new DataLayerFacade(this, Executors.newSingleThreadExecutor());
+        macroRegistry = CustomMacros.newRegistry();
+        tagExecutor = CustomTags.newExecutor();
+        tagExecutor.start();
+
+        hitLog = new HitLog(new File(getFilesDir(), HIT_LOG_DIR),
+                new TrackerHitSink(this), new Runnable() {
+                    @Override
+                    public void run() {
+                        // A whole segment was just handed to GA, send it in one go.
+                        GoogleAnalytics ga = analytics;
+                        if (ga != null) {
+                            ga.dispatchLocalHits();
+                        }
+                    }
+                }, HIT_LOG_SEGMENT_BYTES, HIT_LOG_SEGMENT_AGE_MILLIS, HIT_LOG_MAX_BYTES,
+                HIT_LOG_SHIP_BATCH_SIZE);
+        hitDispatcher = new HitDispatcher(hitLog,
+                HIT_QUEUE_CAPACITY, HIT_BATCH_SIZE, HIT_FLUSH_INTERVAL_MILLIS);
+        hitDispatcher.start();
+        gtmAnalytics = new GTMAnalytics(this, hitDispatcher);
+
+        // Further containers are added here, they all load at the same time.
+        containerRegistry = new ContainerRegistry.Builder<ContainerHolder>()
+                .add(CATALOG_CONTAINER_ID, R.raw.gtm_tvnb99, CATALOG_CONTAINER_TIMEOUT_MILLIS)
+                .build(new TagManagerLoader(this), new MainThreadExecutor());
+
+        catalogRepository = new CatalogRepository(Executors.newSingleThreadExecutor(),
+                new MainThreadExecutor(), new File(getFilesDir(), CATALOG_SNAPSHOT_FILE));
+
+        imageIndexer = new ImageIndexer(this, ioExecutor, new MainThreadExecutor(),
+                new File(getFilesDir(), IMAGE_INDEX_FILE));
+        imageIndexer.load();
+
+        // Scaled images are only good for the build whose drawables they came from.
+        imageCacheDir = new File(new File(getCacheDir(), IMAGE_CACHE_DIR),
+                Long.toHexString(ImageIndexer.buildStamp(this)));
+        int memoryClass = ((ActivityManager) getSystemService(ACTIVITY_SERVICE)).getMemoryClass();
+        imageLoader = new ImageLoader(this, Executors.newFixedThreadPool(IMAGE_DECODE_THREADS),
+                newPrefetchExecutor(), new MainThreadExecutor(), memoryClass * 1024 * 1024 / 8,
+                imageCacheDir, IMAGE_DISK_CACHE_BYTES);
+        imagePrefetcher = new ImagePrefetcher(imageLoader);
+    }
+
+    /**
+     * One low priority thread that takes the newest prefetch first, the image the user just
+     * touched is more likely to be opened than the ones asked for before.
+     */
+    private static ThreadPoolExecutor newPrefetchExecutor() {
+        return new ThreadPoolExecutor(1, 1, 0, TimeUnit.SECONDS,
+                new LinkedBlockingDeque<Runnable>() {
+                    @Override
+                    public boolean offer(Runnable runnable) {
+                        return offerFirst(runnable);
+                    }
+                },
+                new ThreadFactory() {
+                    @Override
+                    public Thread newThread(Runnable runnable) {
+                        Thread thread = new Thread(runnable, "ImagePrefetch");
+                        thread.setPriority(Thread.MIN_PRIORITY);
+                        thread.setDaemon(true);
+                        return thread;
+                    }
+                });
+    }
+
+    /**
+     * Google Analytics and Tag Manager are initialized concurrently on a small pool. Exception
+     * reporting and advertising id collection aren't needed for the first screen and wait until
+     * its first frame has been drawn.
+     */
+    private void initStartupPipeline() {
+        ThreadPoolExecutor pool = new ThreadPoolExecutor(STARTUP_THREADS, STARTUP_THREADS,
+                1, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>());
+        pool.allowCoreThreadTimeOut(true);
+
+        startupPipeline = new StartupPipeline(pool)
+                .task(TASK_ANALYTICS, new Runnable() {
+                    @Override
+                    public void run() {
+                        initGoogleAnalytics();
+                    }
+                })
+                .task(TASK_APP_TRACKER, new Runnable() {
+                    @Override
+                    public void run() {
+                        tracker = getTracker(TrackerName.APP_TRACKER);
+                        tracker.enableAutoActivityTracking(true);
+                    }
+                }, TASK_ANALYTICS)
+                .task(TASK_DRAWABLE_TABLE, new Runnable() {
+                    @Override
+                    public void run() {
+                        // Reads R.drawable before the first image is looked up.
+                        Drawables.getTable();
+                    }
+                })
+                .task(TASK_TAG_MANAGER, new Runnable() {
+                    @Override
+                    public void run() {
+                        try {
+                            // Creates the TagManager and its data layer off the UI thread.
+                            TagManager tagManager = TagManager.getInstance(GTMDemo.this);
+                            // Modify the log level of the logger to print out not only
+                            // warning and error messages, but also verbose, debug, info messages.
+                            tagManager.setVerboseLoggingEnabled(true);
+                        } finally {
+                            // The loader has to run on the UI thread, which only gets to this
+                            // after onCreate() has set up the registry.
+                            new MainThreadExecutor().execute(new Runnable() {
+                                @Override
+                                public void run() {
+                                    containerRegistry.loadAll();
+                                }
+                            });
+                        }
+                    }
+                })
+                .deferredTask(TASK_EXCEPTION_REPORTING, new Runnable() {
+                    @Override
+                    public void run() {
+                        tracker.enableExceptionReporting(true);
+                    }
+                }, TASK_APP_TRACKER)
+                .deferredTask(TASK_ADVERTISING_ID, new Runnable() {
+                    @Override
+                    public void run() {
+                        tracker.enableAdvertisingIdCollection(true);
+                    }
+                }, TASK_APP_TRACKER)
+                .deferredTask(TASK_HIT_LOG_REPLAY, new Runnable() {
+                    @Override
+                    public void run() {
+                        // Sends the hits an earlier process logged but didn't get to ship.
+                        hitLog.ship();
+                    }
+                }, TASK_ANALYTICS)
+                .deferredTask(TASK_IMAGE_CACHE_CLEANUP, new Runnable() {
+                    @Override
+                    public void run() {
+                        deleteStaleImageCaches();
+                    }
+                });
+        startupPipeline.start();
+
+        registerActivityLifecycleCallbacks(new FirstFrameCallbacks());
+    }
+
+    public StartupPipeline getStartupPipeline() {
+        return startupPipeline;
+    }
+
+    /**
+     * Called once the first activity has drawn its first frame.
+     */
+    private void onFirstFrame() {
+        startupPipeline.recordSinceStart(PHASE_FIRST_FRAME);
+        startupPipeline.startDeferred();
+        Log.i(TAG, "Start up timings: " + startupPipeline.getTimings());
+    }
+
+    /**
+     * @return true if a catalog snapshot from an earlier run can be shown while the container
+     * is still loading.
+     */
+    public boolean hasCatalogSnapshot() {
+        return new File(getFilesDir(), CATALOG_SNAPSHOT_FILE).exists();
+    }
+
+    private void deleteStaleImageCaches() {
+        File[] caches = imageCacheDir.getParentFile().listFiles();
+        if (caches == null) {
+            return;
+        }
+        for (File cache : caches) {
+            if (!cache.equals(imageCacheDir)) {
+                File[] files = cache.listFiles();
+                if (files != null) {
+                    for (File file : files) {
+                        file.delete();
+                    }
+                }
+                cache.delete();
+            }
+        }
+    }
+
+    @Override
+    public void onTrimMemory(int level) {
+        super.onTrimMemory(level);
+        // The UI is hidden or memory is getting tight, don't sit on pending hits.
+        if (level >= TRIM_MEMORY_UI_HIDDEN) {
+            // Little is logged while the app is in the background, ship what there is.
+            hitLog.requestShip();
+            ioExecutor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    hitLog.ship();
+                }
+            });
+        }
+        hitDispatcher.flush();
+        imageLoader.trimMemory(level);
+        if (level >= TRIM_MEMORY_UI_HIDDEN) {
+            Log.i(TAG, "Hit log: " + hitLog);
+            Log.i(TAG, "Image prefetch: " + imagePrefetcher);
+            Log.i(TAG, "Tags: " + tagExecutor);
+            dumpScreenTimings();
+        }
+    }
+
+    /**
+     * Logs the screen timing histograms and writes them to a file in the files directory.
+     */
+    public void dumpScreenTimings() {
+        ioExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                StringWriter log = new StringWriter();
+                File file = new File(getFilesDir(), SCREEN_TIMINGS_FILE);
+                try {
+                    screenTimings.dump(log);
+                    Writer out = new OutputStreamWriter(new FileOutputStream(file), "UTF-8");
+                    try {
+                        out.write(log.toString());
+                    } finally {
+                        out.close();
+                    }
+                } catch (IOException e) {
+                    Log.w(TAG, "Could not write " + file, e);
+                }
+                Log.i(TAG, "Screen timings:\n" + log);
+            }
+        });
+    }
+
+    @Override
+    public void onConfigurationChanged(Configuration newConfig) {
+        super.onConfigurationChanged(newConfig);
+        gtmAnalytics.onConfigurationChanged();
+    }
+
+    public HitDispatcher getHitDispatcher() {
+        return hitDispatcher;
+    }
+
+    public GTMAnalytics getAnalytics() {
+        return gtmAnalytics;
+    }
+
+    public ScreenTimings getScreenTimings() {
+        return screenTimings;
+    }
+
+    public DataLayerFacade getDataLayer() {
+        return dataLayer;
+    }
+
+    public MacroRegistry getMacroRegistry() {
+        return macroRegistry;
+    }
+
+    public HitThrottle getHitThrottle() {
+        return hitThrottle;
+    }
+
+    /**
+     * Replaces the sampling and rate limits of events with the rules of a container value. The
+     * current rules are kept if the value can't be parsed.
+     */
+    public void updateHitThrottle(String rules) {
+        try {
+            HitThrottle throttle = HitThrottle.parse(rules);
+            Log.i(TAG, "Hit throttle replaced, old one: " + hitThrottle);
+            hitThrottle = throttle;
+        } catch (IllegalArgumentException e) {
+            Log.e(TAG, "Keeping the hit throttle, bad rules: " + e.getMessage());
+        }
+    }
+
+    public TagExecutor getTagExecutor() {
+        return tagExecutor;
+    }
+
+    public ImageIndexer getImageIndexer() {
+        return imageIndexer;
+    }
+
+    public ImageLoader getImageLoader() {
+        return imageLoader;
+    }
+
+    public ImagePrefetcher getImagePrefetcher() {
+        return imagePrefetcher;
+    }
+
+    public ContainerRegistry<ContainerHolder> getContainerRegistry() {
+        return containerRegistry;
+    }
+
+    public ContainerValues getContainerValues() {
+        return containerValues;
+    }
+
+    public CatalogRepository getCatalogRepository() {
+        return catalogRepository;
     }
 
 
     private void initGoogleAnalytics() {
 
-        analytics = GoogleAnalytics.getInstance(this);
+        GoogleAnalytics analytics = GoogleAnalytics.getInstance(this);
+        // Hits are held in the HitLog and dispatched when it ships a segment, this only
+        // catches what GA still has queued after that.
         analytics.setLocalDispatchPeriod(1800);
         if (BuildConfig.DEBUG)
             analytics.setDryRun(false);
         else
             analytics.setDryRun(false);
+        GTMDemo.analytics = analytics;
+    }
+
+    /**
+     * Loads containers with the TagManager, must be called on the UI thread.
+     */
+    private static class TagManagerLoader implements ContainerRegistry.Loader<ContainerHolder> {
+        private final Context context;
 
-        tracker = getTracker(TrackerName.APP_TRACKER);
-        tracker.enableExceptionReporting(true);
-        tracker.enableAdvertisingIdCollection(true);
-        tracker.enableAutoActivityTracking(true);
+        TagManagerLoader(Context context) {
+            this.context = context;
+        }
+
+        @Override
+        public void load(final ContainerRegistry.Spec spec,
+                         final ContainerRegistry.LoadCallback<ContainerHolder> callback) {
+            // The result callback is called as soon as one of the following happens:
+            //     1. a saved container is loaded
+            //     2. if there is no saved container, a network container is loaded
+            //     3. the timeout of the spec occurs
+            TagManager.getInstance(context)
+                    .loadContainerPreferNonDefault(spec.containerId, spec.defaultResourceId)
+                    .setResultCallback(new ResultCallback<ContainerHolder>() {
+                        @Override
+                        public void onResult(ContainerHolder containerHolder) {
+                            if (!containerHolder.getStatus().isSuccess()) {
+                                Log.e("CuteAnimals", "failure loading container " + spec.containerId);
+                                callback.onLoaded(null);
+                                return;
+                            }
+                            callback.onLoaded(containerHolder);
+                        }
+                    }, spec.timeoutMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Waits for the first activity to draw, then tells the pipeline. Unregisters itself after.
+     */
+    private class FirstFrameCallbacks implements ActivityLifecycleCallbacks {
+
+        @Override
+        public void onActivityResumed(Activity activity) {
+            final View decorView = activity.getWindow().getDecorView();
+            decorView.getViewTreeObserver().addOnPreDrawListener(
+                    new ViewTreeObserver.OnPreDrawListener() {
+                        @Override
+                        public boolean onPreDraw() {
+                            decorView.getViewTreeObserver().removeOnPreDrawListener(this);
+                            // Runs right before the frame is drawn, post to get past it.
+                            decorView.post(new Runnable() {
+                                @Override
+                                public void run() {
+                                    if (startupPipeline.isDeferredStarted()) {
+                                        return;
+                                    }
+                                    unregisterActivityLifecycleCallbacks(FirstFrameCallbacks.this);
+                                    onFirstFrame();
+                                }
+                            });
+                            return true;
+                        }
+                    });
+        }
+
+        @Override
+        public void onActivityCreated(Activity activity, Bundle savedInstanceState) {
+        }
+
+        @Override
+        public void onActivityStarted(Activity activity) {
+        }
+
+        @Override
+        public void onActivityPaused(Activity activity) {
+        }
+
+        @Override
+        public void onActivityStopped(Activity activity) {
+        }
+
+        @Override
+        public void onActivitySaveInstanceState(Activity activity, Bundle outState) {
+        }
+
+        @Override
+        public void onActivityDestroyed(Activity activity) {
+        }
     }
 
     /**
@@ -65,6 +537,8 @@ public class GTMDemo extends Application {
      * A single tracker is usually enough for most purposes. In case you do need multiple trackers,
      * storing them all in Application object helps ensure that they are created only once per
      * application instance.
+     * <p/>
+     * The ordinals are the tracker bits of a {@link Hit}, see {@link GTMAnalytics#trackers}.
      */
     public enum TrackerName {
         APP_TRACKER, // Tracker used only in this app.
@@ -72,16 +546,25 @@ public class GTMDemo extends Application {
         ECOMMERCE_TRACKER, // Tracker used by all ecommerce transactions from a company.
     }
 
-    HashMap<TrackerName, Tracker> mTrackers = new HashMap<>();
-
-    public synchronized Tracker getTracker(TrackerName trackerId) {
-        if (!mTrackers.containsKey(trackerId)) {
-
-            Tracker t = (trackerId == TrackerName.APP_TRACKER) ? analytics.newTracker(getString(R.string.ga_app_tracker_id))
-                    : (trackerId == TrackerName.GLOBAL_TRACKER) ? analytics.newTracker(R.xml.app_global_tracker)
-                    : analytics.newTracker(R.xml.ecommerce_tracker);
-            mTrackers.put(trackerId, t);
+    private final TrackerRegistry<TrackerName, Tracker> mTrackers = new TrackerRegistry<>(
+            TrackerName.class, new TrackerRegistry.Factory<TrackerName, Tracker>() {
+                @Override
+                public Tracker create(TrackerName trackerId) {
+                    return (trackerId == TrackerName.APP_TRACKER) ? analytics.newTracker(getString(R.string.ga_app_tracker_id))
+                            : (trackerId == TrackerName.GLOBAL_TRACKER) ? analytics.newTracker(R.xml.app_global_tracker)
+                            : analytics.newTracker(R.xml.ecommerce_tracker);
+                }
+            });
 
+    /**
+     * Blocks until GoogleAnalytics has been initialized.
+     *
+     * @return the tracker, or null if GoogleAnalytics couldn't be initialized.
+     */
+    public Tracker getTracker(TrackerName trackerId) {
+        // Trackers can only be created once GoogleAnalytics has been initialized.
+        if (!startupPipeline.await(TASK_ANALYTICS)) {
+            return null;
         }
         return mTrackers.get(trackerId);
     }
@@ -0,0 +1,111 @@
+/*
+ * Copyright 2026 Basit Parkar.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ *  @date 10/17/26 9:05 AM
+ *  @modified 10/17/26 9:05 AM
+ */
+
+package me.iz.mobility.googletagmanagerdemo;
+
+import java.util.Map;
+
+/**
+ * A single analytics hit waiting to be handed to a {@link HitSink}.
+ * <p/>
+ * Hits only carry the raw values; the actual hit parameter map is built by the sink on the
+ * dispatcher thread, so creating a hit on the UI thread is just one small allocation. Hits of an
+ * {@link EventTemplate} carry its map, which was built once for all of them.
+ *
+ * @author basitparkar
+ */
+public final class Hit {
+
+    public enum Type {
+        EVENT,
+        SCREEN_VIEW,
+    }
+
+    public final Type type;
+    public final String category;
+    public final String action;
+    public final String label;
+    public final String screenName;
+    // The prebuilt, unmodifiable parameters of a templated event, null for other hits.
+    public final Map<String, String> parameters;
+    // System.nanoTime() at creation, used to measure end-to-end dispatch latency.
+    public final long createdNanos;
+    // The trackers the hit goes to, bit i for the GTMDemo.TrackerName of ordinal i.
+    public final int trackers;
+
+    /**
+     * The tracker set of a hit that only goes to the app tracker.
+     */
+    public static final int APP_TRACKER = 1;
+
+    private Hit(Type type, String category, String action, String label, String screenName,
+                Map<String, String> parameters, int trackers) {
+        if (trackers == 0) {
+            throw new IllegalArgumentException("A hit needs at least one tracker");
+        }
+        this.type = type;
+        this.category = category;
+        this.action = action;
+        this.label = label;
+        this.screenName = screenName;
+        this.parameters = parameters;
+        this.createdNanos = System.nanoTime();
+        this.trackers = trackers;
+    }
+
+    public static Hit event(String category, String action, String label) {
+        return event(category, action, label, APP_TRACKER);
+    }
+
+    public static Hit event(String category, String action, String label, int trackers) {
+        return new Hit(Type.EVENT, category, action, label, null, null, trackers);
+    }
+
+    /**
+     * @param parameters the unmodifiable, prebuilt parameters of the hit.
+     */
+    static Hit event(String category, String action, String label, Map<String, String> parameters,
+                     int trackers) {
+        return new Hit(Type.EVENT, category, action, label, null, parameters, trackers);
+    }
+
+    public static Hit event(EventTemplate template) {
+        return event(template, APP_TRACKER);
+    }
+
+    public static Hit event(EventTemplate template, int trackers) {
+        return new Hit(Type.EVENT, template.category, template.action, template.label, null,
+                template.parameters, trackers);
+    }
+
+    public static Hit screenView(String screenName) {
+        return screenView(screenName, APP_TRACKER);
+    }
+
+    public static Hit screenView(String screenName, int trackers) {
+        return new Hit(Type.SCREEN_VIEW, null, null, null, screenName, null, trackers);
+    }
+
+    @Override
+    public String toString() {
+        return type == Type.EVENT
+                ? "Hit{event " + category + "/" + action + "/" + label + "}"
+                : "Hit{screenView " + screenName + "}";
+    }
+}
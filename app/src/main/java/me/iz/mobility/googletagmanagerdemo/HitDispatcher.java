@@ -0,0 +1,193 @@
+/*
+ * Copyright 2026 Basit Parkar.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ *  @date 10/17/26 9:20 AM
+ *  @modified 10/17/26 9:20 AM
+ */
+
+package me.iz.mobility.googletagmanagerdemo;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Moves hits off the calling thread. {@link #dispatch(Hit)} only enqueues into a bounded
+ * lock-free {@link HitQueue}; a single background thread drains the queue and hands the hits
+ * to the {@link HitSink} in batches, flushing whenever a batch is full or the oldest pending
+ * hit has waited for the flush interval.
+ *
+ * @author basitparkar
+ */
+public class HitDispatcher {
+
+    private final HitSink sink;
+    private final HitQueue<Hit> queue;
+    private final int batchSize;
+    private final long flushIntervalNanos;
+
+    private final AtomicLong dropped = new AtomicLong();
+    private volatile long sent;
+    private volatile long failedBatches;
+
+    private volatile Thread consumer;
+    private final AtomicBoolean parked = new AtomicBoolean();
+    private volatile boolean flushRequested;
+    private volatile boolean running;
+
+    /**
+     * @param sink                receives the batches, on the dispatcher thread.
+     * @param capacity            maximum number of pending hits; further hits are dropped.
+     * @param batchSize           maximum number of hits per batch.
+     * @param flushIntervalMillis how long a hit may wait for its batch to fill up.
+     */
+    public HitDispatcher(HitSink sink, int capacity, int batchSize, long flushIntervalMillis) {
+        if (batchSize < 1 || batchSize > capacity) {
+            throw new IllegalArgumentException("batchSize must be in [1, capacity]: " + batchSize);
+        }
+        this.sink = sink;
+        this.queue = new HitQueue<>(capacity);
+        this.batchSize = batchSize;
+        this.flushIntervalNanos = TimeUnit.MILLISECONDS.toNanos(flushIntervalMillis);
+    }
+
+    public synchronized void start() {
+        if (running) {
+            return;
+        }
+        running = true;
+        Thread t = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                consume();
+            }
+        }, "HitDispatcher");
+        t.setDaemon(true);
+        t.setPriority(Thread.MIN_PRIORITY);
+        consumer = t;
+        t.start();
+    }
+
+    /**
+     * Stops the dispatcher thread after handing every pending hit to the sink.
+     */
+    public synchronized void shutdown() throws InterruptedException {
+        Thread t = consumer;
+        if (!running || t == null) {
+            return;
+        }
+        running = false;
+        LockSupport.unpark(t);
+        t.join();
+        consumer = null;
+    }
+
+    /**
+     * Enqueues a hit. Safe to call from any thread, never blocks.
+     *
+     * @return false if the queue was full and the hit was dropped.
+     */
+    public boolean dispatch(Hit hit) {
+        if (!queue.offer(hit)) {
+            dropped.incrementAndGet();
+            return false;
+        }
+        // Only the producer that flips the flag pays for the wake-up.
+        if (parked.get() && queue.size() >= batchSize && parked.compareAndSet(true, false)) {
+            LockSupport.unpark(consumer);
+        }
+        return true;
+    }
+
+    /**
+     * Asks the dispatcher thread to send whatever is pending without waiting for the batch to
+     * fill up, eg. when the app goes to the background.
+     */
+    public void flush() {
+        flushRequested = true;
+        Thread t = consumer;
+        if (t != null) {
+            LockSupport.unpark(t);
+        }
+    }
+
+    public int getQueueDepth() {
+        return queue.size();
+    }
+
+    public long getSentCount() {
+        return sent;
+    }
+
+    public long getDroppedCount() {
+        return dropped.get();
+    }
+
+    public long getFailedBatchCount() {
+        return failedBatches;
+    }
+
+    private void consume() {
+        List<Hit> batch = new ArrayList<>(batchSize);
+        long deadline = 0;
+        while (running) {
+            boolean wasEmpty = batch.isEmpty();
+            if (queue.drainTo(batch, batchSize - batch.size()) > 0 && wasEmpty) {
+                deadline = System.nanoTime() + flushIntervalNanos;
+            }
+            if (batch.size() >= batchSize
+                    || (!batch.isEmpty() && (flushRequested || System.nanoTime() - deadline >= 0))) {
+                flushRequested = false;
+                send(batch);
+                continue;
+            }
+            flushRequested = false;
+
+            parked.set(true);
+            // Re-check after publishing the parked flag so a producer that filled the batch
+            // in between is not missed.
+            if (queue.size() < batchSize - batch.size() && !flushRequested && running) {
+                if (batch.isEmpty()) {
+                    LockSupport.parkNanos(this, flushIntervalNanos);
+                } else {
+                    LockSupport.parkNanos(this, deadline - System.nanoTime());
+                }
+            }
+            parked.set(false);
+        }
+
+        // Drain everything that is left before exiting.
+        do {
+            queue.drainTo(batch, batchSize - batch.size());
+            if (!batch.isEmpty()) {
+                send(batch);
+            }
+        } while (queue.size() > 0);
+    }
+
+    private void send(List<Hit> batch) {
+        try {
+            sink.send(batch);
+            sent += batch.size();
+        } catch (RuntimeException e) {
+            failedBatches++;
+        } finally {
+            batch.clear();
+        }
+    }
+}
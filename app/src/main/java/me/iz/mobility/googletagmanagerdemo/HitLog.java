@@ -0,0 +1,515 @@
+/*
+ * Copyright 2026 Basit Parkar.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ *  @date 10/18/26 5:20 AM
+ *  @modified 10/18/26 5:20 AM
+ */
+
+package me.iz.mobility.googletagmanagerdemo;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+
+/**
+ * Durable, append-only log of hits in front of another {@link HitSink}. Each batch from the
+ * {@link HitDispatcher} is appended to the active segment file and synced once, so the cost of
+ * the sync is shared by the whole batch. Once the active segment is big or old enough it is
+ * sealed, and sealed segments are streamed to the next sink in large batches and deleted, so the
+ * radio is woken up once per segment rather than once per hit.
+ * <p/>
+ * Each record is its length, a CRC32 and the encoded hit. Segments left behind by an earlier
+ * process are replayed in order on first use, up to the first torn or corrupt record. A segment
+ * is only deleted after all of its hits were handed on, so a crash while shipping may send some
+ * hits twice but loses none that were synced.
+ */
+public class HitLog implements HitSink {
+
+    static final int MAGIC = 0x47544D48;
+    static final int FORMAT_VERSION = 1;
+    static final String SUFFIX = ".log";
+    private static final int HEADER_BYTES = 8;
+    private static final int MAX_RECORD_BYTES = 64 * 1024;
+    // The first byte of a record: the hit type in the low bits, its trackers above them.
+    private static final int TYPE_MASK = 0x3;
+    // Type of an event record followed by its prebuilt parameters, eg. of an ecommerce hit.
+    private static final int PARAMETERS_EVENT = 2;
+    private static final int TRACKER_SHIFT = 2;
+
+    private static final class Segment {
+        final long sequence;
+        final File file;
+        long bytes;
+        // Records already handed on by an attempt that failed halfway.
+        int shippedRecords;
+
+        Segment(long sequence, File file, long bytes) {
+            this.sequence = sequence;
+            this.file = file;
+            this.bytes = bytes;
+        }
+    }
+
+    /**
+     * Gives the checksum access to the encoded record without copying it.
+     */
+    private static final class RecordBuffer extends ByteArrayOutputStream {
+        RecordBuffer() {
+            super(256);
+        }
+
+        byte[] bytes() {
+            return buf;
+        }
+    }
+
+    private final File dir;
+    private final HitSink next;
+    private final Runnable onShipped;
+    private final long maxSegmentBytes;
+    private final long maxSegmentAgeNanos;
+    private final long maxLogBytes;
+    private final int shipBatchSize;
+
+    // All guarded by this.
+    private boolean opened;
+    private final ArrayDeque<Segment> sealed = new ArrayDeque<>();
+    private long nextSequence;
+    private Segment active;
+    private FileOutputStream activeFile;
+    private DataOutputStream activeOut;
+    private long activeOpenedNanos;
+    private final RecordBuffer record = new RecordBuffer();
+    private final DataOutputStream recordOut = new DataOutputStream(record);
+    private final CRC32 crc = new CRC32();
+
+    private volatile boolean shipRequested;
+    private volatile long appended;
+    private volatile long shipped;
+    private volatile long syncs;
+    private volatile long writeFailures;
+    private volatile long shipFailures;
+    private volatile long corruptSegments;
+    private volatile long droppedSegments;
+
+    /**
+     * @param dir                 directory of the segment files, only used by this log.
+     * @param next                receives the hits of sealed segments, on the thread that
+     *                            appended the batch that sealed them or called {@link #ship()}.
+     * @param onShipped           run after one or more segments were handed on, eg. to dispatch
+     *                            them right away. May be null.
+     * @param maxSegmentBytes     size at which the active segment is sealed.
+     * @param maxSegmentAgeMillis age at which the active segment is sealed.
+     * @param maxLogBytes         size of the sealed segments beyond which the oldest are deleted
+     *                            unsent, should the next sink keep failing.
+     * @param shipBatchSize       number of hits handed on at a time.
+     */
+    public HitLog(File dir, HitSink next, Runnable onShipped, long maxSegmentBytes,
+                  long maxSegmentAgeMillis, long maxLogBytes, int shipBatchSize) {
+        this.dir = dir;
+        this.next = next;
+        this.onShipped = onShipped;
+        this.maxSegmentBytes = maxSegmentBytes;
+        this.maxSegmentAgeNanos = TimeUnit.MILLISECONDS.toNanos(maxSegmentAgeMillis);
+        this.maxLogBytes = maxLogBytes;
+        this.shipBatchSize = shipBatchSize;
+    }
+
+    /**
+     * Appends the batch and syncs it to disk, then ships the sealed segments if this sealed the
+     * active one. If the log can't be written the batch goes straight to the next sink.
+     */
+    @Override
+    public synchronized void send(List<Hit> batch) {
+        open();
+        try {
+            append(batch);
+        } catch (IOException e) {
+            // Ship what was synced before, and this batch without the log. Records of it that
+            // made it into the segment anyway are sent twice.
+            writeFailures++;
+            seal();
+            shipSealed();
+            next.send(batch);
+            return;
+        }
+        if (shipRequested || active.bytes >= maxSegmentBytes
+                || System.nanoTime() - activeOpenedNanos >= maxSegmentAgeNanos) {
+            shipRequested = false;
+            seal();
+            shipSealed();
+        }
+    }
+
+    /**
+     * Seals the active segment and hands every sealed segment to the next sink, including the
+     * ones replayed from an earlier process. Safe to call from any thread.
+     */
+    public synchronized void ship() {
+        open();
+        seal();
+        shipSealed();
+    }
+
+    /**
+     * Makes the next {@link #send} ship everything, including the batch it appends. Unlike
+     * {@link #ship()} this doesn't wait for the log and can be called on the UI thread.
+     */
+    public void requestShip() {
+        shipRequested = true;
+    }
+
+    private void append(List<Hit> batch) throws IOException {
+        if (active == null) {
+            long sequence = nextSequence++;
+            File file = new File(dir, fileName(sequence));
+            activeFile = new FileOutputStream(file);
+            activeOut = new DataOutputStream(new BufferedOutputStream(activeFile, 8192));
+            active = new Segment(sequence, file, HEADER_BYTES);
+            activeOpenedNanos = System.nanoTime();
+            activeOut.writeInt(MAGIC);
+            activeOut.writeInt(FORMAT_VERSION);
+        }
+        long bytes = 0;
+        for (int i = 0, n = batch.size(); i < n; i++) {
+            record.reset();
+            encode(batch.get(i), recordOut);
+            crc.reset();
+            crc.update(record.bytes(), 0, record.size());
+            activeOut.writeInt(record.size());
+            activeOut.writeInt((int) crc.getValue());
+            record.writeTo(activeOut);
+            bytes += 8 + record.size();
+        }
+        activeOut.flush();
+        activeFile.getFD().sync();
+        syncs++;
+        active.bytes += bytes;
+        appended += batch.size();
+    }
+
+    private void seal() {
+        if (active == null) {
+            return;
+        }
+        Segment segment = active;
+        closeActive();
+        sealed.addLast(segment);
+        long total = 0;
+        for (Segment s : sealed) {
+            total += s.bytes;
+        }
+        while (total > maxLogBytes && sealed.size() > 1) {
+            Segment oldest = sealed.removeFirst();
+            total -= oldest.bytes;
+            oldest.file.delete();
+            droppedSegments++;
+        }
+    }
+
+    private void closeActive() {
+        if (active == null) {
+            return;
+        }
+        try {
+            activeOut.close();
+        } catch (IOException e) {
+            // Everything in it was synced already.
+        }
+        active = null;
+        activeFile = null;
+        activeOut = null;
+    }
+
+    private void shipSealed() {
+        boolean any = false;
+        List<Hit> batch = new ArrayList<>(shipBatchSize);
+        while (!sealed.isEmpty()) {
+            Segment segment = sealed.peekFirst();
+            try {
+                if (!replay(segment, batch)) {
+                    corruptSegments++;
+                }
+            } catch (IOException e) {
+                // Unreadable, nothing more can be gotten out of it.
+                corruptSegments++;
+            } catch (RuntimeException e) {
+                // Try again with the next batch or ship().
+                shipFailures++;
+                break;
+            }
+            sealed.removeFirst();
+            segment.file.delete();
+            any = true;
+        }
+        if (any && onShipped != null) {
+            onShipped.run();
+        }
+    }
+
+    /**
+     * Hands the records of the segment that weren't handed on before to the next sink.
+     *
+     * @return false if the segment ended in a torn or corrupt record.
+     */
+    private boolean replay(Segment segment, List<Hit> batch) throws IOException {
+        DataInputStream in = new DataInputStream(
+                new BufferedInputStream(new FileInputStream(segment.file), 8192));
+        try {
+            if (in.readInt() != MAGIC || in.readInt() != FORMAT_VERSION) {
+                return false;
+            }
+            boolean intact = true;
+            int index = 0;
+            byte[] buffer = new byte[256];
+            while (true) {
+                int length;
+                try {
+                    length = in.readInt();
+                } catch (EOFException e) {
+                    break;
+                }
+                if (length < 1 || length > MAX_RECORD_BYTES) {
+                    intact = false;
+                    break;
+                }
+                if (buffer.length < length) {
+                    buffer = new byte[Math.max(length, buffer.length * 2)];
+                }
+                Hit hit;
+                try {
+                    int checksum = in.readInt();
+                    in.readFully(buffer, 0, length);
+                    crc.reset();
+                    crc.update(buffer, 0, length);
+                    if ((int) crc.getValue() != checksum) {
+                        intact = false;
+                        break;
+                    }
+                    hit = decode(new DataInputStream(
+                            new ByteArrayInputStream(buffer, 0, length)));
+                } catch (EOFException e) {
+                    // The process died halfway through writing this record.
+                    intact = false;
+                    break;
+                }
+                if (hit == null) {
+                    intact = false;
+                    break;
+                }
+                if (index++ < segment.shippedRecords) {
+                    continue;
+                }
+                batch.add(hit);
+                if (batch.size() == shipBatchSize) {
+                    handOn(segment, batch);
+                }
+            }
+            if (!batch.isEmpty()) {
+                handOn(segment, batch);
+            }
+            return intact;
+        } finally {
+            batch.clear();
+            in.close();
+        }
+    }
+
+    private void handOn(Segment segment, List<Hit> batch) {
+        next.send(batch);
+        segment.shippedRecords += batch.size();
+        shipped += batch.size();
+        batch.clear();
+    }
+
+    /**
+     * Picks up the segments of an earlier process, they are shipped by the next seal.
+     */
+    private void open() {
+        if (opened) {
+            return;
+        }
+        opened = true;
+        dir.mkdirs();
+        File[] files = dir.listFiles();
+        if (files == null) {
+            return;
+        }
+        List<Segment> found = new ArrayList<>();
+        for (File file : files) {
+            long sequence = sequenceOf(file.getName());
+            if (sequence >= 0) {
+                found.add(new Segment(sequence, file, file.length()));
+            }
+        }
+        Segment[] ordered = found.toArray(new Segment[found.size()]);
+        Arrays.sort(ordered, new Comparator<Segment>() {
+            @Override
+            public int compare(Segment a, Segment b) {
+                return a.sequence < b.sequence ? -1 : a.sequence == b.sequence ? 0 : 1;
+            }
+        });
+        for (Segment segment : ordered) {
+            sealed.addLast(segment);
+            nextSequence = segment.sequence + 1;
+        }
+    }
+
+    static String fileName(long sequence) {
+        String hex = Long.toHexString(sequence);
+        return "0000000000000000".substring(hex.length()) + hex + SUFFIX;
+    }
+
+    static long sequenceOf(String fileName) {
+        if (fileName.length() != 16 + SUFFIX.length() || !fileName.endsWith(SUFFIX)) {
+            return -1;
+        }
+        try {
+            return Long.parseLong(fileName.substring(0, 16), 16);
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    static void encode(Hit hit, DataOutputStream out) throws IOException {
+        // The trackers go in the bits above the type, records written before there were
+        // trackers have none there and went to the app tracker.
+        boolean parameters = hit.parameters != null;
+        int type = parameters ? PARAMETERS_EVENT : hit.type.ordinal();
+        out.writeByte(type | hit.trackers << TRACKER_SHIFT);
+        if (hit.type == Hit.Type.EVENT) {
+            writeString(hit.category, out);
+            writeString(hit.action, out);
+            writeString(hit.label, out);
+            if (parameters) {
+                out.writeShort(hit.parameters.size());
+                for (Map.Entry<String, String> parameter : hit.parameters.entrySet()) {
+                    writeString(parameter.getKey(), out);
+                    writeString(parameter.getValue(), out);
+                }
+            }
+        } else {
+            writeString(hit.screenName, out);
+        }
+    }
+
+    /**
+     * @return the hit, or null if the record is of an unknown type.
+     */
+    static Hit decode(DataInputStream in) throws IOException {
+        int header = in.readUnsignedByte();
+        int type = header & TYPE_MASK;
+        int trackers = header >>> TRACKER_SHIFT;
+        if (trackers == 0) {
+            trackers = Hit.APP_TRACKER;
+        }
+        if (type == Hit.Type.EVENT.ordinal()) {
+            return Hit.event(readString(in), readString(in), readString(in), trackers);
+        } else if (type == Hit.Type.SCREEN_VIEW.ordinal()) {
+            return Hit.screenView(readString(in), trackers);
+        } else if (type == PARAMETERS_EVENT) {
+            String category = readString(in);
+            String action = readString(in);
+            String label = readString(in);
+            int count = in.readUnsignedShort();
+            Map<String, String> parameters = new HashMap<>(count * 2);
+            for (int i = 0; i < count; i++) {
+                parameters.put(readString(in), readString(in));
+            }
+            return Hit.event(category, action, label, Collections.unmodifiableMap(parameters),
+                    trackers);
+        }
+        return null;
+    }
+
+    private static void writeString(String s, DataOutputStream out) throws IOException {
+        out.writeBoolean(s != null);
+        if (s != null) {
+            out.writeUTF(s);
+        }
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+
+    public synchronized int getSegmentCount() {
+        return sealed.size() + (active != null ? 1 : 0);
+    }
+
+    public synchronized long getLogBytes() {
+        long total = active != null ? active.bytes : 0;
+        for (Segment s : sealed) {
+            total += s.bytes;
+        }
+        return total;
+    }
+
+    public long getAppendedCount() {
+        return appended;
+    }
+
+    public long getShippedCount() {
+        return shipped;
+    }
+
+    /**
+     * @return the number of syncs, each one commits a whole batch.
+     */
+    public long getSyncCount() {
+        return syncs;
+    }
+
+    public long getWriteFailureCount() {
+        return writeFailures;
+    }
+
+    public long getShipFailureCount() {
+        return shipFailures;
+    }
+
+    public long getCorruptSegmentCount() {
+        return corruptSegments;
+    }
+
+    public long getDroppedSegmentCount() {
+        return droppedSegments;
+    }
+
+    @Override
+    public String toString() {
+        return "HitLog{appended=" + appended + ", shipped=" + shipped + ", syncs=" + syncs
+                + ", writeFailures=" + writeFailures + ", shipFailures=" + shipFailures
+                + ", corrupt=" + corruptSegments + ", dropped=" + droppedSegments + '}';
+    }
+}
@@ -0,0 +1,89 @@
+/*
+ * Copyright 2026 Basit Parkar.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ *  @date 10/18/26 1:41 AM
+ *  @modified 10/18/26 1:41 AM
+ */
+
+package me.iz.mobility.googletagmanagerdemo;
+
+import com.google.android.gms.analytics.HitBuilders;
+
+import java.util.Map;
+
+/**
+ * Turns {@link Hit}s into the parameter maps a {@code Tracker} sends.
+ */
+final class HitMaps {
+
+    // The parameter names and hit types HitBuilders uses.
+    private static final String HIT_TYPE = "&t";
+    private static final String CATEGORY = "&ec";
+    private static final String ACTION = "&ea";
+    private static final String LABEL = "&el";
+    private static final String EVENT = "event";
+    private static final String SCREEN_VIEW = "screenview";
+
+    private HitMaps() {
+    }
+
+    /**
+     * @return the parameters of the hit. A screen view doesn't carry its screen name, the tracker
+     * has to be set to it first. The map of a templated event is shared and can't be changed.
+     */
+    static Map<String, String> build(Hit hit) {
+        if (hit.parameters != null) {
+            return hit.parameters;
+        }
+        switch (hit.type) {
+            case EVENT:
+                return new HitBuilders.EventBuilder()
+                        .setCategory(hit.category)
+                        .setAction(hit.action)
+                        .setLabel(hit.label)
+                        .build();
+            case SCREEN_VIEW:
+                return new HitBuilders.ScreenViewBuilder().build();
+            default:
+                throw new IllegalArgumentException("Unknown hit type: " + hit.type);
+        }
+    }
+
+    /**
+     * Like {@link #build(Hit)}, but fills the given map instead of building a new one, so a sink
+     * that is done with the map of a hit before it takes the next one can reuse it.
+     *
+     * @return the map, or the shared map of a templated event.
+     */
+    static Map<String, String> build(Hit hit, Map<String, String> reuse) {
+        if (hit.parameters != null) {
+            return hit.parameters;
+        }
+        reuse.clear();
+        switch (hit.type) {
+            case EVENT:
+                reuse.put(HIT_TYPE, EVENT);
+                reuse.put(CATEGORY, hit.category);
+                reuse.put(ACTION, hit.action);
+                reuse.put(LABEL, hit.label);
+                return reuse;
+            case SCREEN_VIEW:
+                reuse.put(HIT_TYPE, SCREEN_VIEW);
+                return reuse;
+            default:
+                throw new IllegalArgumentException("Unknown hit type: " + hit.type);
+        }
+    }
+}
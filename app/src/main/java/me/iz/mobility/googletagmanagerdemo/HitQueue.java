@@ -0,0 +1,124 @@
+/*
+ * Copyright 2026 Basit Parkar.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ *  @date 10/17/26 9:12 AM
+ *  @modified 10/17/26 9:12 AM
+ */
+
+package me.iz.mobility.googletagmanagerdemo;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Bounded, lock-free multi-producer / single-consumer queue.
+ * <p/>
+ * Based on Dmitry Vyukov's bounded MPMC queue: every slot carries a sequence number, producers
+ * claim a slot with a single CAS on the tail and publish it by bumping the slot sequence. Only
+ * the dispatcher thread is allowed to call {@link #poll()} and {@link #drainTo(List, int)}.
+ */
+final class HitQueue<E> {
+
+    private final int mask;
+    private final Object[] buffer;
+    private final AtomicLongArray sequences;
+    private final AtomicLong tail = new AtomicLong();
+    private final AtomicLong head = new AtomicLong();
+
+    HitQueue(int capacity) {
+        if (capacity < 2) {
+            throw new IllegalArgumentException("capacity must be at least 2: " + capacity);
+        }
+        int size = Integer.highestOneBit(capacity - 1) << 1;
+        mask = size - 1;
+        buffer = new Object[size];
+        sequences = new AtomicLongArray(size);
+        for (int i = 0; i < size; i++) {
+            sequences.set(i, i);
+        }
+    }
+
+    /**
+     * Adds the element if there is room. Safe to call from any thread.
+     *
+     * @return false if the queue is full.
+     */
+    boolean offer(E e) {
+        if (e == null) {
+            throw new NullPointerException();
+        }
+        long pos;
+        int index;
+        while (true) {
+            pos = tail.get();
+            index = (int) pos & mask;
+            long diff = sequences.get(index) - pos;
+            if (diff == 0) {
+                if (tail.compareAndSet(pos, pos + 1)) {
+                    break;
+                }
+            } else if (diff < 0) {
+                return false;
+            }
+        }
+        buffer[index] = e;
+        sequences.lazySet(index, pos + 1);
+        return true;
+    }
+
+    /**
+     * Removes the head element. Consumer thread only.
+     *
+     * @return the element or null if the queue is empty.
+     */
+    @SuppressWarnings("unchecked")
+    E poll() {
+        long pos = head.get();
+        int index = (int) pos & mask;
+        if (sequences.get(index) != pos + 1) {
+            return null;
+        }
+        E e = (E) buffer[index];
+        buffer[index] = null;
+        sequences.lazySet(index, pos + mask + 1);
+        head.lazySet(pos + 1);
+        return e;
+    }
+
+    /**
+     * Moves up to {@code max} elements into {@code out}. Consumer thread only.
+     *
+     * @return the number of elements moved.
+     */
+    int drainTo(List<? super E> out, int max) {
+        int n = 0;
+        E e;
+        while (n < max && (e = poll()) != null) {
+            out.add(e);
+            n++;
+        }
+        return n;
+    }
+
+    int size() {
+        long size = tail.get() - head.get();
+        return size < 0 ? 0 : (int) Math.min(size, capacity());
+    }
+
+    int capacity() {
+        return mask + 1;
+    }
+}
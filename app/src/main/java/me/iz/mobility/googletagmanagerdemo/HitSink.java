@@ -0,0 +1,35 @@
+/*
+ * Copyright 2026 Basit Parkar.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ *  @date 10/17/26 9:07 AM
+ *  @modified 10/17/26 9:07 AM
+ */
+
+package me.iz.mobility.googletagmanagerdemo;
+
+import java.util.List;
+
+/**
+ * Destination for batches of hits drained by the {@link HitDispatcher}.
+ * <p/>
+ * Implementations aren't always called from the dispatcher thread: the {@link HitLog} also ships
+ * from the I/O executor and the startup pool. It hands on one batch at a time, but
+ * implementations that keep state between batches still have to be thread safe. The batch list
+ * is reused by the caller and must not be retained.
+ */
+public interface HitSink {
+
+    void send(List<Hit> batch);
+}
@@ -0,0 +1,277 @@
+/*
+ * Copyright 2026 Basit Parkar.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ *  @date 10/18/26 6:05 AM
+ *  @modified 10/18/26 6:05 AM
+ */
+
+package me.iz.mobility.googletagmanagerdemo;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Decides whether an event is sent at all, before anything is built for it. Rules sample a share
+ * of the events of a category, or of one action in it, and limit their rate with a token bucket.
+ * Checking an event is two hash lookups and a few atomic operations, no locks and no allocation.
+ * <p/>
+ * Rules are read from a container value so they can be tuned without a release, one rule per
+ * line or separated by {@code ;}:
+ * <pre>
+ * Category sample=0.1
+ * Category/Clicked rate=2 burst=10
+ * * rate=20
+ * </pre>
+ * The selector is a category, a category and action separated by {@code /}, or {@code *} for
+ * all other events. Screen views count as events of the category {@value #SCREEN_VIEW} with the
+ * screen name as action. {@code sample} is the share of events kept, {@code rate} the number kept per
+ * second on average and {@code burst} how many may be kept at once after a quiet spell. The
+ * most specific rule for an event is the only one applied.
+ */
+public final class HitThrottle {
+
+    public static final String SCREEN_VIEW = "screenview";
+
+    public static final HitThrottle NONE = new HitThrottle(null, new String[0], new Category[0]);
+
+    /**
+     * Sampling and rate limit of one selector. Both are lock free: the sample decision hashes a
+     * counter, the rate limit is a token bucket kept as the time at which it will be full again
+     * (the generic cell rate algorithm), updated with one compare and set.
+     */
+    static final class Rule {
+        static final int ADMITTED = 0;
+        static final int SAMPLED_OUT = 1;
+        static final int RATE_LIMITED = 2;
+
+        private static final long NO_LIMIT = -1;
+        private static final long EMPTY = Long.MIN_VALUE;
+
+        private final long sampleThreshold;
+        private final long intervalNanos;
+        private final long toleranceNanos;
+        private final AtomicLong sequence = new AtomicLong();
+        private final AtomicLong full = new AtomicLong(EMPTY);
+
+        Rule(double sample, double perSecond, int burst) {
+            if (!(sample >= 0 && sample <= 1) || !(perSecond > 0) || burst < 1) {
+                throw new IllegalArgumentException("Need 0 <= sample <= 1, rate > 0, burst >= 1");
+            }
+            this.sampleThreshold = (long) (sample * (1L << 32));
+            if (Double.isInfinite(perSecond)) {
+                this.intervalNanos = NO_LIMIT;
+                this.toleranceNanos = 0;
+            } else {
+                this.intervalNanos = Math.max(1, (long) (TimeUnit.SECONDS.toNanos(1) / perSecond));
+                this.toleranceNanos = intervalNanos * (burst - 1);
+            }
+        }
+
+        int check(long nowNanos) {
+            if (sampleThreshold < 1L << 32
+                    && (mix(sequence.getAndIncrement()) & 0xFFFFFFFFL) >= sampleThreshold) {
+                return SAMPLED_OUT;
+            }
+            if (intervalNanos == NO_LIMIT) {
+                return ADMITTED;
+            }
+            while (true) {
+                long current = full.get();
+                long start = current != EMPTY && current - nowNanos > 0 ? current : nowNanos;
+                if (start - nowNanos > toleranceNanos) {
+                    return RATE_LIMITED;
+                }
+                if (full.compareAndSet(current, start + intervalNanos)) {
+                    return ADMITTED;
+                }
+            }
+        }
+
+        private static long mix(long z) {
+            // SplitMix64 finalizer, spreads consecutive counters over the whole range.
+            z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+            z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+            return z ^ (z >>> 31);
+        }
+    }
+
+    /**
+     * The rules of one category: its own and the ones of its actions.
+     */
+    private static final class Category {
+        final Rule rule;
+        final NameTable actions;
+        final Rule[] actionRules;
+
+        Category(Rule rule, String[] actions, Rule[] actionRules) {
+            this.rule = rule;
+            int[] indexes = new int[actions.length];
+            for (int i = 0; i < indexes.length; i++) {
+                indexes[i] = i;
+            }
+            this.actions = new NameTable(actions, indexes);
+            this.actionRules = actionRules;
+        }
+    }
+
+    private final Rule defaultRule;
+    private final NameTable categories;
+    private final Category[] categoryRules;
+
+    private final AtomicLong admitted = new AtomicLong();
+    private final AtomicLong sampledOut = new AtomicLong();
+    private final AtomicLong rateLimited = new AtomicLong();
+
+    private HitThrottle(Rule defaultRule, String[] categoryNames, Category[] categoryRules) {
+        this.defaultRule = defaultRule;
+        int[] indexes = new int[categoryNames.length];
+        for (int i = 0; i < indexes.length; i++) {
+            indexes[i] = i;
+        }
+        this.categories = new NameTable(categoryNames, indexes);
+        this.categoryRules = categoryRules;
+    }
+
+    /**
+     * @return true if the event should be sent.
+     */
+    public boolean admit(String category, String action) {
+        return admit(category, action, System.nanoTime());
+    }
+
+    boolean admit(String category, String action, long nowNanos) {
+        Rule rule = ruleFor(category, action);
+        int result = rule == null ? Rule.ADMITTED : rule.check(nowNanos);
+        if (result == Rule.ADMITTED) {
+            admitted.incrementAndGet();
+            return true;
+        }
+        (result == Rule.SAMPLED_OUT ? sampledOut : rateLimited).incrementAndGet();
+        return false;
+    }
+
+    private Rule ruleFor(String category, String action) {
+        int index = category == null ? -1 : categories.get(category, -1);
+        if (index < 0) {
+            return defaultRule;
+        }
+        Category rules = categoryRules[index];
+        int actionIndex = action == null ? -1 : rules.actions.get(action, -1);
+        if (actionIndex >= 0) {
+            return rules.actionRules[actionIndex];
+        }
+        return rules.rule != null ? rules.rule : defaultRule;
+    }
+
+    public long getAdmittedCount() {
+        return admitted.get();
+    }
+
+    public long getSampledOutCount() {
+        return sampledOut.get();
+    }
+
+    public long getRateLimitedCount() {
+        return rateLimited.get();
+    }
+
+    @Override
+    public String toString() {
+        return "HitThrottle{admitted=" + admitted + ", sampledOut=" + sampledOut
+                + ", rateLimited=" + rateLimited + '}';
+    }
+
+    /**
+     * @return the throttle of the rules, {@link #NONE} for an empty string.
+     * @throws IllegalArgumentException if a rule can't be parsed.
+     */
+    public static HitThrottle parse(String rules) {
+        if (rules == null || rules.trim().isEmpty()) {
+            return NONE;
+        }
+        Rule defaultRule = null;
+        // Category name to its rule, at key null, and the rules of its actions.
+        Map<String, Map<String, Rule>> byCategory = new LinkedHashMap<>();
+        for (String line : rules.split("[;\n]")) {
+            line = line.trim();
+            if (line.isEmpty()) {
+                continue;
+            }
+            String[] parts = line.split("\\s+");
+            Rule rule = parseRule(parts, line);
+            String selector = parts[0];
+            if (selector.equals("*")) {
+                defaultRule = rule;
+                continue;
+            }
+            int slash = selector.indexOf('/');
+            String category = slash < 0 ? selector : selector.substring(0, slash);
+            String action = slash < 0 ? null : selector.substring(slash + 1);
+            Map<String, Rule> actions = byCategory.get(category);
+            if (actions == null) {
+                actions = new LinkedHashMap<>();
+                byCategory.put(category, actions);
+            }
+            actions.put(action, rule);
+        }
+
+        String[] names = byCategory.keySet().toArray(new String[byCategory.size()]);
+        Category[] categoryRules = new Category[names.length];
+        for (int i = 0; i < names.length; i++) {
+            Map<String, Rule> actions = byCategory.get(names[i]);
+            Rule categoryRule = actions.remove(null);
+            List<String> actionNames = new ArrayList<>(actions.keySet());
+            Rule[] actionRules = new Rule[actionNames.size()];
+            for (int j = 0; j < actionRules.length; j++) {
+                actionRules[j] = actions.get(actionNames.get(j));
+            }
+            categoryRules[i] = new Category(categoryRule,
+                    actionNames.toArray(new String[actionNames.size()]), actionRules);
+        }
+        return new HitThrottle(defaultRule, names, categoryRules);
+    }
+
+    private static Rule parseRule(String[] parts, String line) {
+        double sample = 1;
+        double perSecond = Double.POSITIVE_INFINITY;
+        int burst = -1;
+        try {
+            for (int i = 1; i < parts.length; i++) {
+                String part = parts[i];
+                if (part.startsWith("sample=")) {
+                    sample = Double.parseDouble(part.substring("sample=".length()));
+                } else if (part.startsWith("rate=")) {
+                    perSecond = Double.parseDouble(part.substring("rate=".length()));
+                } else if (part.startsWith("burst=")) {
+                    burst = Integer.parseInt(part.substring("burst=".length()));
+                } else {
+                    throw new IllegalArgumentException("Unknown setting '" + part + "'");
+                }
+            }
+            if (burst < 0) {
+                // By default a second's worth of events may come at once.
+                burst = Double.isInfinite(perSecond) ? 1 : Math.max(1, (int) Math.ceil(perSecond));
+            }
+            return new Rule(sample, perSecond, burst);
+        } catch (IllegalArgumentException e) {
+            // Including the NumberFormatExceptions.
+            throw new IllegalArgumentException(e.getMessage() + " in: " + line);
+        }
+    }
+}
@@ -0,0 +1,196 @@
+/*
+ * Copyright 2026 Basit Parkar.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ *  @date 10/17/26 4:20 PM
+ *  @modified 10/17/26 4:20 PM
+ */
+
+package me.iz.mobility.googletagmanagerdemo;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Immutable index from image file name to drawable resource id and pixel size, so screens can
+ * show image sizes without decoding the images.
+ * <p/>
+ * Resource ids are only valid for one build of the app, so a persisted index carries a stamp of
+ * the build it was made by and is rejected by any other.
+ */
+public final class ImageIndex {
+
+    static final int MAGIC = 0x47544D49;
+    static final int FORMAT_VERSION = 1;
+
+    public static final ImageIndex EMPTY =
+            new ImageIndex(0, new String[0], new int[0], new int[0], new int[0]);
+
+    private final long stamp;
+    private final String[] names;
+    private final int[] resourceIds;
+    private final int[] widths;
+    private final int[] heights;
+    private final NameTable table;
+
+    private ImageIndex(long stamp, String[] names, int[] resourceIds, int[] widths, int[] heights) {
+        this.stamp = stamp;
+        this.names = names;
+        this.resourceIds = resourceIds;
+        this.widths = widths;
+        this.heights = heights;
+        int[] entries = new int[names.length];
+        for (int i = 0; i < entries.length; i++) {
+            entries[i] = i;
+        }
+        this.table = new NameTable(names, entries);
+    }
+
+    /**
+     * @return the entry of the image, or -1 if it hasn't been indexed.
+     */
+    public int find(String name) {
+        return table.get(name, -1);
+    }
+
+    public int size() {
+        return names.length;
+    }
+
+    public String getName(int entry) {
+        return names[entry];
+    }
+
+    /**
+     * @return the drawable id, or 0 if there is no drawable with this name.
+     */
+    public int getResourceId(int entry) {
+        return resourceIds[entry];
+    }
+
+    public int getWidth(int entry) {
+        return widths[entry];
+    }
+
+    public int getHeight(int entry) {
+        return heights[entry];
+    }
+
+    public long getStamp() {
+        return stamp;
+    }
+
+    public void write(File file) throws IOException {
+        File tmp = new File(file.getPath() + ".tmp");
+        FileOutputStream fos = new FileOutputStream(tmp);
+        try {
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(fos));
+            out.writeInt(MAGIC);
+            out.writeInt(FORMAT_VERSION);
+            out.writeLong(stamp);
+            out.writeInt(names.length);
+            for (int i = 0; i < names.length; i++) {
+                out.writeUTF(names[i]);
+                out.writeInt(resourceIds[i]);
+                out.writeInt(widths[i]);
+                out.writeInt(heights[i]);
+            }
+            out.flush();
+            fos.getFD().sync();
+        } finally {
+            fos.close();
+        }
+        if (!tmp.renameTo(file)) {
+            tmp.delete();
+            throw new IOException("Could not rename " + tmp + " to " + file);
+        }
+    }
+
+    /**
+     * @param stamp the stamp of the running build.
+     * @return the index, or null if it was written by another build.
+     * @throws IOException if the file can't be read or is not an index.
+     */
+    public static ImageIndex read(File file, long stamp) throws IOException {
+        DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)));
+        try {
+            if (in.readInt() != MAGIC || in.readInt() != FORMAT_VERSION) {
+                throw new IOException("Not an image index: " + file);
+            }
+            if (in.readLong() != stamp) {
+                return null;
+            }
+            Builder builder = new Builder(EMPTY, stamp);
+            for (int i = in.readInt(); i > 0; i--) {
+                builder.add(in.readUTF(), in.readInt(), in.readInt(), in.readInt());
+            }
+            return builder.build();
+        } finally {
+            in.close();
+        }
+    }
+
+    /**
+     * Makes a new index out of an existing one plus more entries.
+     */
+    public static final class Builder {
+        private final long stamp;
+        private String[] names;
+        private int[] resourceIds;
+        private int[] widths;
+        private int[] heights;
+        private int size;
+
+        public Builder(ImageIndex base, long stamp) {
+            // Entries of another build are worthless.
+            int keep = base.stamp == stamp ? base.names.length : 0;
+            int capacity = Math.max(16, keep * 2);
+            this.stamp = stamp;
+            this.names = Arrays.copyOf(base.names, capacity);
+            this.resourceIds = Arrays.copyOf(base.resourceIds, capacity);
+            this.widths = Arrays.copyOf(base.widths, capacity);
+            this.heights = Arrays.copyOf(base.heights, capacity);
+            this.size = keep;
+        }
+
+        public Builder add(String name, int resourceId, int width, int height) {
+            if (size == names.length) {
+                int capacity = size * 2;
+                names = Arrays.copyOf(names, capacity);
+                resourceIds = Arrays.copyOf(resourceIds, capacity);
+                widths = Arrays.copyOf(widths, capacity);
+                heights = Arrays.copyOf(heights, capacity);
+            }
+            names[size] = name;
+            resourceIds[size] = resourceId;
+            widths[size] = width;
+            heights[size] = height;
+            size++;
+            return this;
+        }
+
+        public ImageIndex build() {
+            return new ImageIndex(stamp, Arrays.copyOf(names, size),
+                    Arrays.copyOf(resourceIds, size), Arrays.copyOf(widths, size),
+                    Arrays.copyOf(heights, size));
+        }
+    }
+}
@@ -0,0 +1,208 @@
+/*
+ * Copyright 2026 Basit Parkar.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ *  @date 10/17/26 4:48 PM
+ *  @modified 10/17/26 4:48 PM
+ */
+
+package me.iz.mobility.googletagmanagerdemo;
+
+import android.content.Context;
+import android.content.pm.PackageInfo;
+import android.content.pm.PackageManager;
+import android.content.res.Resources;
+import android.graphics.BitmapFactory;
+import android.util.Log;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+/**
+ * Keeps the {@link ImageIndex} of the catalog images up to date. Images are measured in the
+ * background by decoding only their bounds, and the index is saved so the next start of the same
+ * build doesn't measure them again. Screens that show images which aren't indexed yet register a
+ * {@link Listener} to hear when they are.
+ */
+public class ImageIndexer {
+
+    private static final String TAG = ImageIndexer.class.getSimpleName();
+
+    public interface Listener {
+        /**
+         * Called on the callback executor every time images were added to the index.
+         */
+        void onIndexChanged(ImageIndex index);
+    }
+
+    private final Resources resources;
+    private final Executor executor;
+    private final Executor callbackExecutor;
+    private final File indexFile;
+    private final long stamp;
+
+    private volatile ImageIndex index = ImageIndex.EMPTY;
+    // Guarded by this.
+    private final List<Listener> listeners = new ArrayList<>();
+
+    /**
+     * @param executor         runs the file I/O and the measuring. Must run tasks one at a time.
+     * @param callbackExecutor delivers the index changes, usually on the UI thread.
+     */
+    public ImageIndexer(Context context, Executor executor, Executor callbackExecutor,
+                        File indexFile) {
+        this.resources = context.getResources();
+        this.executor = executor;
+        this.callbackExecutor = callbackExecutor;
+        this.indexFile = indexFile;
+        this.stamp = buildStamp(context);
+    }
+
+    /**
+     * Only hears about the changes after it was added, read {@link #getIndex()} afterwards for the
+     * current index. Must be removed with {@link #removeListener}.
+     */
+    public synchronized void addListener(Listener listener) {
+        listeners.add(listener);
+    }
+
+    public synchronized void removeListener(Listener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * Reads the saved index, if it was made by this build.
+     */
+    public void load() {
+        executor.execute(new Runnable() {
+            @Override
+            public void run() {
+                if (!indexFile.exists()) {
+                    return;
+                }
+                try {
+                    ImageIndex saved = ImageIndex.read(indexFile, stamp);
+                    if (saved != null) {
+                        publish(saved);
+                    }
+                } catch (IOException e) {
+                    Log.w(TAG, "Discarding unreadable image index", e);
+                    indexFile.delete();
+                }
+            }
+        });
+    }
+
+    /**
+     * Measures the images of the catalog that aren't in the index yet.
+     */
+    public void index(final CategoryCatalog catalog) {
+        executor.execute(new Runnable() {
+            @Override
+            public void run() {
+                ImageIndex current = index;
+                ImageIndex.Builder builder = null;
+                int[] size = new int[2];
+                for (int i = 0; i < catalog.size(); i++) {
+                    for (int j = 0; j < catalog.getImageCount(i); j++) {
+                        String name = catalog.getImage(i, j);
+                        if (current.find(name) >= 0) {
+                            continue;
+                        }
+                        if (builder == null) {
+                            builder = new ImageIndex.Builder(current, stamp);
+                        }
+                        int resourceId = measure(name, size);
+                        builder.add(name, resourceId, size[0], size[1]);
+                    }
+                }
+                if (builder == null) {
+                    return;
+                }
+                current = builder.build();
+                publish(current);
+                try {
+                    current.write(indexFile);
+                } catch (IOException e) {
+                    Log.w(TAG, "Could not save the image index", e);
+                }
+            }
+        });
+    }
+
+    public ImageIndex getIndex() {
+        return index;
+    }
+
+    /**
+     * Runs on the executor.
+     */
+    private void publish(final ImageIndex changed) {
+        index = changed;
+        final List<Listener> current;
+        synchronized (this) {
+            current = new ArrayList<>(listeners);
+        }
+        for (final Listener listener : current) {
+            callbackExecutor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    synchronized (ImageIndexer.this) {
+                        if (!listeners.contains(listener)) {
+                            // Removed after the index changed.
+                            return;
+                        }
+                    }
+                    listener.onIndexChanged(changed);
+                }
+            });
+        }
+    }
+
+    /**
+     * Reads the size of the drawable from its header only, for images that aren't indexed yet.
+     *
+     * @param size receives the width and height, 0 if there is no such drawable.
+     * @return the drawable id, or 0 if there is none.
+     */
+    public int measure(String name, int[] size) {
+        int resourceId = Drawables.getId(name);
+        size[0] = 0;
+        size[1] = 0;
+        if (resourceId != 0) {
+            BitmapFactory.Options options = new BitmapFactory.Options();
+            options.inJustDecodeBounds = true;
+            BitmapFactory.decodeResource(resources, resourceId, options);
+            size[0] = Math.max(0, options.outWidth);
+            size[1] = Math.max(0, options.outHeight);
+        }
+        return resourceId;
+    }
+
+    /**
+     * @return a value that changes with every build and install of the app.
+     */
+    static long buildStamp(Context context) {
+        try {
+            PackageInfo info = context.getPackageManager().getPackageInfo(context.getPackageName(), 0);
+            return ((long) info.versionCode << 32) ^ info.lastUpdateTime;
+        } catch (PackageManager.NameNotFoundException e) {
+            // Can't happen for our own package, never trust a saved index if it does.
+            return System.nanoTime();
+        }
+    }
+}
@@ -0,0 +1,501 @@
+/*
+ * Copyright 2026 Basit Parkar.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ *  @date 10/17/26 7:40 PM
+ *  @modified 10/17/26 7:40 PM
+ */
+
+package me.iz.mobility.googletagmanagerdemo;
+
+import android.content.ComponentCallbacks2;
+import android.content.Context;
+import android.content.res.Resources;
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.util.Log;
+import android.util.LruCache;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Loads drawable images decoded at the size they are shown at, off the UI thread.
+ * <p/>
+ * Decoded bitmaps are kept in a memory cache bounded by bytes. Bitmaps evicted from it go to a
+ * {@link BitmapPool} and are decoded into again, unless they are still shown, see
+ * {@link #release(Bitmap)}. Optionally, images that had to be scaled down are also written to a
+ * disk cache, so the next decode of the same size reads the small variant.
+ */
+public class ImageLoader {
+
+    private static final String TAG = ImageLoader.class.getSimpleName();
+
+    public interface Callback {
+        /**
+         * @param bitmap must be given back with {@link #release(Bitmap)} once it is not shown.
+         */
+        void onImageLoaded(String name, Bitmap bitmap);
+
+        void onImageFailed(String name, Exception e);
+    }
+
+    private final Resources resources;
+    private final Executor decodeExecutor;
+    private final Executor prefetchExecutor;
+    private final Executor callbackExecutor;
+    private final File diskCacheDir;
+    private final long maxDiskCacheBytes;
+    private final BitmapPool pool;
+    private final LruCache<String, Bitmap> memoryCache;
+
+    // Guarded by this. How many callers show each bitmap, and which shown bitmaps have been
+    // evicted and go to the pool once released.
+    private final Map<Bitmap, Integer> shown = new IdentityHashMap<>();
+    private final Map<Bitmap, Boolean> evictedWhileShown = new IdentityHashMap<>();
+    // Guarded by this. The decodes that haven't finished, by key.
+    private final Map<String, Decode> inFlight = new HashMap<>();
+
+    /**
+     * @param decodeExecutor    decodes images, off the UI thread.
+     * @param prefetchExecutor  decodes images that may be needed soon, at a lower priority.
+     * @param callbackExecutor  delivers the images, usually on the UI thread.
+     * @param maxMemoryBytes    the size of the memory cache, the pool gets a quarter on top.
+     * @param diskCacheDir      where scaled down images are kept, or null for no disk cache.
+     * @param maxDiskCacheBytes the size of the disk cache.
+     */
+    public ImageLoader(Context context, Executor decodeExecutor, Executor prefetchExecutor,
+                       Executor callbackExecutor, int maxMemoryBytes, File diskCacheDir,
+                       long maxDiskCacheBytes) {
+        this.resources = context.getResources();
+        this.decodeExecutor = decodeExecutor;
+        this.prefetchExecutor = prefetchExecutor;
+        this.callbackExecutor = callbackExecutor;
+        this.diskCacheDir = diskCacheDir;
+        this.maxDiskCacheBytes = maxDiskCacheBytes;
+        this.pool = new BitmapPool(maxMemoryBytes / 4);
+        this.memoryCache = new LruCache<String, Bitmap>(maxMemoryBytes) {
+            @Override
+            protected int sizeOf(String key, Bitmap bitmap) {
+                return bitmap.getByteCount();
+            }
+
+            @Override
+            protected void entryRemoved(boolean evicted, String key, Bitmap oldValue, Bitmap newValue) {
+                recycle(oldValue);
+            }
+        };
+    }
+
+    /**
+     * Loads the drawable with the given name, decoded at about the target size. If the same
+     * image is being decoded at that size already, for a prefetch say, the load waits for that
+     * decode instead of starting another one.
+     *
+     * @return the pending load, which can be cancelled. Null if the image was in the memory
+     * cache, the callback has been called already then.
+     */
+    public Request load(String name, int targetWidth, int targetHeight, Callback callback) {
+        return load(name, targetWidth, targetHeight, callback, decodeExecutor);
+    }
+
+    /**
+     * Like {@link #load}, but decodes on the prefetch executor.
+     */
+    public Request prefetch(String name, int targetWidth, int targetHeight, Callback callback) {
+        return load(name, targetWidth, targetHeight, callback, prefetchExecutor);
+    }
+
+    private Request load(String name, int targetWidth, int targetHeight, Callback callback,
+                         Executor executor) {
+        String key = key(name, targetWidth, targetHeight);
+        Bitmap bitmap = acquireCached(key);
+        if (bitmap != null) {
+            callback.onImageLoaded(name, bitmap);
+            return null;
+        }
+        Decode decode;
+        Request request;
+        boolean submit;
+        synchronized (this) {
+            decode = inFlight.get(key);
+            submit = decode == null;
+            if (decode == null) {
+                decode = new Decode(key, name, targetWidth, targetHeight);
+                inFlight.put(key, decode);
+            } else if (executor == decodeExecutor && !decode.onDecodeExecutor) {
+                // A load waiting for a prefetch puts it on the decode executor too, so it
+                // doesn't wait behind other prefetches. The first executor to get to it decodes.
+                submit = true;
+            }
+            if (executor == decodeExecutor) {
+                decode.onDecodeExecutor = true;
+            }
+            request = new Request(decode, callback);
+            decode.requests.add(request);
+        }
+        if (submit) {
+            executor.execute(decode);
+        }
+        return request;
+    }
+
+    /**
+     * @return true if the image is in the memory cache, so {@link #load} would deliver it
+     * right away.
+     */
+    public boolean isCached(String name, int targetWidth, int targetHeight) {
+        return memoryCache.get(key(name, targetWidth, targetHeight)) != null;
+    }
+
+    /**
+     * Gives back a bitmap delivered to a callback, it may be reused as soon as it is also out of
+     * the memory cache.
+     */
+    public synchronized void release(Bitmap bitmap) {
+        Integer count = shown.remove(bitmap);
+        if (count != null && count > 1) {
+            shown.put(bitmap, count - 1);
+        } else if (evictedWhileShown.remove(bitmap) != null) {
+            pool.put(bitmap);
+        }
+    }
+
+    /**
+     * Shrinks the memory cache as the system asks apps to give memory back.
+     *
+     * @see ComponentCallbacks2
+     */
+    public void trimMemory(int level) {
+        if (level >= ComponentCallbacks2.TRIM_MEMORY_MODERATE) {
+            memoryCache.evictAll();
+            pool.clear();
+        } else if (level >= ComponentCallbacks2.TRIM_MEMORY_BACKGROUND) {
+            memoryCache.trimToSize(memoryCache.maxSize() / 2);
+        }
+    }
+
+    /**
+     * Decodes the image on the calling thread, from the memory or disk cache if possible.
+     *
+     * @return the image, to be given back with {@link #release(Bitmap)}.
+     */
+    Bitmap decode(String name, int targetWidth, int targetHeight) throws IOException {
+        String key = key(name, targetWidth, targetHeight);
+        Bitmap bitmap = acquireCached(key);
+        if (bitmap != null) {
+            return bitmap;
+        }
+
+        File cached = diskCacheDir != null ? new File(diskCacheDir, key) : null;
+        if (cached != null && cached.exists()) {
+            bitmap = decodeFile(cached);
+            if (bitmap != null) {
+                // The modification time orders the disk cache by last use.
+                cached.setLastModified(System.currentTimeMillis());
+            }
+        }
+        if (bitmap == null) {
+            int resourceId = Drawables.getId(name);
+            if (resourceId == 0) {
+                throw new IOException("No drawable named " + name);
+            }
+            BitmapFactory.Options options = new BitmapFactory.Options();
+            options.inJustDecodeBounds = true;
+            options.inScaled = false;
+            BitmapFactory.decodeResource(resources, resourceId, options);
+            options.inJustDecodeBounds = false;
+            options.inSampleSize = SampleSize.calculate(options.outWidth, options.outHeight,
+                    targetWidth, targetHeight);
+            options.inMutable = true;
+            pool.reuseFor(options);
+            try {
+                bitmap = BitmapFactory.decodeResource(resources, resourceId, options);
+            } catch (IllegalArgumentException e) {
+                rejected(options, e);
+                bitmap = BitmapFactory.decodeResource(resources, resourceId, options);
+            }
+            if (bitmap == null) {
+                throw new IOException("Could not decode " + name);
+            }
+            if (cached != null && options.inSampleSize > 1) {
+                writeToDisk(bitmap, cached);
+            }
+        }
+        // Shown from before it is cached, so it can't be evicted into the pool and decoded into
+        // while it is handed to the callback.
+        acquire(bitmap);
+        memoryCache.put(key, bitmap);
+        return bitmap;
+    }
+
+    private Bitmap decodeFile(File file) {
+        BitmapFactory.Options options = new BitmapFactory.Options();
+        options.inJustDecodeBounds = true;
+        BitmapFactory.decodeFile(file.getPath(), options);
+        options.inJustDecodeBounds = false;
+        options.inSampleSize = 1;
+        options.inMutable = true;
+        pool.reuseFor(options);
+        try {
+            return BitmapFactory.decodeFile(file.getPath(), options);
+        } catch (IllegalArgumentException e) {
+            rejected(options, e);
+            return BitmapFactory.decodeFile(file.getPath(), options);
+        }
+    }
+
+    /**
+     * The decoder wouldn't decode into the pooled bitmap, older ones are picky about its size and
+     * config. Gives it back so the decode can be retried into a new bitmap.
+     */
+    private void rejected(BitmapFactory.Options options, IllegalArgumentException e) {
+        if (options.inBitmap == null) {
+            // Not about reuse.
+            throw e;
+        }
+        pool.put(options.inBitmap);
+        options.inBitmap = null;
+    }
+
+    private void writeToDisk(Bitmap bitmap, File file) {
+        File tmp = new File(file.getPath() + ".tmp");
+        try {
+            if (!diskCacheDir.isDirectory() && !diskCacheDir.mkdirs()) {
+                throw new IOException("Could not create " + diskCacheDir);
+            }
+            FileOutputStream out = new FileOutputStream(tmp);
+            try {
+                bitmap.compress(Bitmap.CompressFormat.PNG, 100, out);
+            } finally {
+                out.close();
+            }
+            if (!tmp.renameTo(file)) {
+                throw new IOException("Could not rename " + tmp + " to " + file);
+            }
+            trimDiskCache();
+        } catch (IOException e) {
+            Log.w(TAG, "Could not cache " + file.getName() + " on disk", e);
+            tmp.delete();
+        }
+    }
+
+    private void trimDiskCache() {
+        File[] files = diskCacheDir.listFiles();
+        if (files == null) {
+            return;
+        }
+        long bytes = 0;
+        for (File file : files) {
+            bytes += file.length();
+        }
+        while (bytes > maxDiskCacheBytes) {
+            File oldest = null;
+            for (File file : files) {
+                if (file != null && (oldest == null || file.lastModified() < oldest.lastModified())) {
+                    oldest = file;
+                }
+            }
+            if (oldest == null) {
+                return;
+            }
+            bytes -= oldest.length();
+            oldest.delete();
+            for (int i = 0; i < files.length; i++) {
+                if (files[i] == oldest) {
+                    files[i] = null;
+                }
+            }
+        }
+    }
+
+    /**
+     * @return the cached image, which then can't be evicted into the pool until released.
+     */
+    private synchronized Bitmap acquireCached(String key) {
+        Bitmap bitmap = memoryCache.get(key);
+        if (bitmap != null) {
+            acquire(bitmap);
+        }
+        return bitmap;
+    }
+
+    private synchronized void acquire(Bitmap bitmap) {
+        Integer count = shown.get(bitmap);
+        shown.put(bitmap, count == null ? 1 : count + 1);
+    }
+
+    private synchronized void recycle(Bitmap bitmap) {
+        if (shown.containsKey(bitmap)) {
+            evictedWhileShown.put(bitmap, Boolean.TRUE);
+        } else {
+            pool.put(bitmap);
+        }
+    }
+
+    private static String key(String name, int targetWidth, int targetHeight) {
+        return name + '_' + targetWidth + 'x' + targetHeight;
+    }
+
+    /**
+     * Decodes an image once for every request of the same key that comes in while it runs. May
+     * be submitted to both executors, only the first run decodes.
+     */
+    private class Decode implements Runnable {
+        final String key;
+        final String name;
+        final int targetWidth;
+        final int targetHeight;
+        // Guarded by ImageLoader.this.
+        final List<Request> requests = new ArrayList<>();
+        boolean onDecodeExecutor;
+        private final AtomicBoolean started = new AtomicBoolean();
+
+        Decode(String key, String name, int targetWidth, int targetHeight) {
+            this.key = key;
+            this.name = name;
+            this.targetWidth = targetWidth;
+            this.targetHeight = targetHeight;
+        }
+
+        @Override
+        public void run() {
+            if (!started.compareAndSet(false, true)) {
+                return;
+            }
+            synchronized (ImageLoader.this) {
+                if (requests.isEmpty()) {
+                    // Every request was cancelled before it started.
+                    inFlight.remove(key);
+                    return;
+                }
+            }
+            Bitmap bitmap = null;
+            Exception error = null;
+            try {
+                bitmap = decode(name, targetWidth, targetHeight);
+            } catch (IOException | RuntimeException e) {
+                error = e;
+            }
+            finish(bitmap, error);
+        }
+
+        private void finish(Bitmap bitmap, Exception error) {
+            List<Request> waiting;
+            synchronized (ImageLoader.this) {
+                inFlight.remove(key);
+                waiting = new ArrayList<>(requests);
+                requests.clear();
+                // The decode acquired the bitmap once, each further request shows it too.
+                for (int i = 1; bitmap != null && i < waiting.size(); i++) {
+                    acquire(bitmap);
+                }
+            }
+            if (bitmap != null && waiting.isEmpty()) {
+                // Cancelled while decoding, nobody is going to take the image.
+                release(bitmap);
+            }
+            for (int i = 0, n = waiting.size(); i < n; i++) {
+                waiting.get(i).complete(bitmap, error);
+            }
+        }
+    }
+
+    /**
+     * A pending load. Cancelling it makes sure the callback is not called. Loads of the same
+     * image and size share one decode, which stops only once all of them are cancelled.
+     */
+    public class Request {
+        private final Decode decode;
+        private final Callback callback;
+        // Guarded by ImageLoader.this.
+        private boolean cancelled;
+        private boolean delivered;
+        private Bitmap bitmap;
+        private Exception error;
+
+        Request(Decode decode, Callback callback) {
+            this.decode = decode;
+            this.callback = callback;
+        }
+
+        /**
+         * @return false if the callback was called already, or the request cancelled before.
+         */
+        public boolean cancel() {
+            Bitmap unused;
+            synchronized (ImageLoader.this) {
+                if (cancelled || delivered) {
+                    return false;
+                }
+                cancelled = true;
+                decode.requests.remove(this);
+                unused = bitmap;
+                bitmap = null;
+            }
+            if (unused != null) {
+                release(unused);
+            }
+            return true;
+        }
+
+        void complete(Bitmap bitmap, Exception error) {
+            boolean wanted;
+            synchronized (ImageLoader.this) {
+                wanted = !cancelled;
+                if (wanted) {
+                    this.bitmap = bitmap;
+                    this.error = error;
+                }
+            }
+            if (!wanted) {
+                if (bitmap != null) {
+                    release(bitmap);
+                }
+                return;
+            }
+            callbackExecutor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    deliver();
+                }
+            });
+        }
+
+        private void deliver() {
+            Bitmap result;
+            synchronized (ImageLoader.this) {
+                if (cancelled) {
+                    return;
+                }
+                delivered = true;
+                result = bitmap;
+                bitmap = null;
+            }
+            if (result != null) {
+                callback.onImageLoaded(decode.name, result);
+            } else {
+                callback.onImageFailed(decode.name, error);
+            }
+        }
+    }
+}
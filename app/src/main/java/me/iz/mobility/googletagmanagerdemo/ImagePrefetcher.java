@@ -0,0 +1,140 @@
+/*
+ * Copyright 2026 Basit Parkar.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ *  @date 10/17/26 9:12 PM
+ *  @modified 10/17/26 9:12 PM
+ */
+
+package me.iz.mobility.googletagmanagerdemo;
+
+import android.graphics.Bitmap;
+import android.util.Log;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Decodes images into the memory cache of the {@link ImageLoader} before they are opened, so
+ * {@link ImageViewActivity} can show them right away. Pending prefetches are cancelled when the
+ * screen that asked for them goes away.
+ * <p/>
+ * Counts how often an opened image was already decoded (a hit), still being prefetched (late)
+ * or not prefetched at all (a miss). Apart from the counters, only used on the UI thread.
+ */
+public class ImagePrefetcher {
+
+    private static final String TAG = ImagePrefetcher.class.getSimpleName();
+
+    private final ImageLoader loader;
+    private final Map<String, ImageLoader.Request> pending = new HashMap<>();
+
+    private volatile long prefetchCount;
+    private volatile long cancelledCount;
+    private volatile long hitCount;
+    private volatile long lateCount;
+    private volatile long missCount;
+
+    private final ImageLoader.Callback release = new ImageLoader.Callback() {
+        @Override
+        public void onImageLoaded(String name, Bitmap bitmap) {
+            pending.remove(name);
+            // Not shown, the memory cache keeps it.
+            loader.release(bitmap);
+        }
+
+        @Override
+        public void onImageFailed(String name, Exception e) {
+            pending.remove(name);
+            Log.w(TAG, "Could not prefetch " + name, e);
+        }
+    };
+
+    public ImagePrefetcher(ImageLoader loader) {
+        this.loader = loader;
+    }
+
+    /**
+     * Decodes the image at the target size, unless it is cached or on its way already.
+     */
+    public void prefetch(String name, int targetWidth, int targetHeight) {
+        if (pending.containsKey(name) || loader.isCached(name, targetWidth, targetHeight)) {
+            return;
+        }
+        ImageLoader.Request request = loader.prefetch(name, targetWidth, targetHeight, release);
+        if (request != null) {
+            pending.put(name, request);
+            prefetchCount++;
+        }
+    }
+
+    /**
+     * Records whether the image about to be opened was prefetched in time. Its prefetch, if still
+     * running, is not cancelled by {@link #cancelAll()} anymore; the load of the opened image
+     * waits for it instead of decoding the image again.
+     */
+    public void onImageOpened(String name, int targetWidth, int targetHeight) {
+        if (pending.remove(name) != null) {
+            lateCount++;
+        } else if (loader.isCached(name, targetWidth, targetHeight)) {
+            hitCount++;
+        } else {
+            missCount++;
+        }
+    }
+
+    /**
+     * Cancels the prefetches that haven't finished yet.
+     */
+    public void cancelAll() {
+        List<ImageLoader.Request> requests = new ArrayList<>(pending.values());
+        pending.clear();
+        for (ImageLoader.Request request : requests) {
+            if (request.cancel()) {
+                cancelledCount++;
+            }
+        }
+    }
+
+    public long getPrefetchCount() {
+        return prefetchCount;
+    }
+
+    public long getCancelledCount() {
+        return cancelledCount;
+    }
+
+    public long getHitCount() {
+        return hitCount;
+    }
+
+    /**
+     * @return how many opened images were still being prefetched.
+     */
+    public long getLateCount() {
+        return lateCount;
+    }
+
+    public long getMissCount() {
+        return missCount;
+    }
+
+    @Override
+    public String toString() {
+        return "ImagePrefetcher{prefetched=" + prefetchCount + ", cancelled=" + cancelledCount
+                + ", hits=" + hitCount + ", late=" + lateCount + ", misses=" + missCount + '}';
+    }
+}
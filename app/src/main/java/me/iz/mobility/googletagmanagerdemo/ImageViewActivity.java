@@ -20,14 +20,15 @@
 package me.iz.mobility.googletagmanagerdemo;
 
 import android.app.Activity;
+import android.graphics.Bitmap;
 import android.os.Bundle;
+import android.util.DisplayMetrics;
+import android.util.Log;
 import android.view.View;
 import android.widget.Button;
 import android.widget.ImageView;
 import android.widget.TextView;
 
-import com.google.android.gms.tagmanager.TagManager;
-
 /**
  * Activity to view an image.
  * <p>
@@ -40,9 +41,13 @@ public class ImageViewActivity extends Activity {
     // The key of the image file name to be passed in.
     static final String IMAGE_NAME_KEY = "image_name";
     private String imageName;
+    private ImageLoader imageLoader;
+    private ImageLoader.Request imageRequest;
+    private Bitmap image;
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
+        Utils.onScreenCreated(this, "ImageViewScreen");
         super.onCreate(savedInstanceState);
         setContentView(R.layout.activity_image_view);
 
@@ -68,14 +73,41 @@ public class ImageViewActivity extends Activity {
         TextView titleView = (TextView) findViewById(R.id.image_view_title);
         titleView.setText(imageName);
 
-        // Draw the image.
-        int imageId = getResources().getIdentifier(imageName, "drawable", getPackageName());
-        ImageView imageView = (ImageView) findViewById(R.id.animal_image);
-        imageView.setImageDrawable(getResources().getDrawable(imageId));
+        // Draw the image, decoded off the UI thread at no more than about the screen size.
+        final ImageView imageView = (ImageView) findViewById(R.id.animal_image);
         imageView.setContentDescription(imageName);
+        DisplayMetrics metrics = getResources().getDisplayMetrics();
+        imageLoader = ((GTMDemo) getApplication()).getImageLoader();
+        imageRequest = imageLoader.load(imageName, metrics.widthPixels, metrics.heightPixels,
+                new ImageLoader.Callback() {
+                    @Override
+                    public void onImageLoaded(String name, Bitmap bitmap) {
+                        imageRequest = null;
+                        image = bitmap;
+                        imageView.setImageBitmap(bitmap);
+                    }
+
+                    @Override
+                    public void onImageFailed(String name, Exception e) {
+                        imageRequest = null;
+                        Log.e(MainActivity.TAG, "Could not load image " + name, e);
+                    }
+                });
 
         // Put the image_name into the data layer for future use.
-        TagManager.getInstance(this).getDataLayer().push(IMAGE_NAME_KEY, imageName);
+        Utils.getDataLayer(this).push(IMAGE_NAME_KEY, imageName);
+    }
+
+    @Override
+    protected void onDestroy() {
+        super.onDestroy();
+        if (imageRequest != null) {
+            imageRequest.cancel();
+        }
+        if (image != null) {
+            ((ImageView) findViewById(R.id.animal_image)).setImageDrawable(null);
+            imageLoader.release(image);
+        }
     }
 
     @Override
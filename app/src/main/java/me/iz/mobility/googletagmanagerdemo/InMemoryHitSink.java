@@ -0,0 +1,67 @@
+/*
+ * Copyright 2026 Basit Parkar.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ *  @date 10/17/26 9:08 AM
+ *  @modified 10/17/26 9:08 AM
+ */
+
+package me.iz.mobility.googletagmanagerdemo;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link HitSink} that keeps every hit in memory. Stands in for the GA {@code Tracker} in JVM
+ * tests and benchmarks.
+ */
+public class InMemoryHitSink implements HitSink {
+
+    private final List<Hit> hits = new ArrayList<>();
+    private int batches;
+
+    @Override
+    public synchronized void send(List<Hit> batch) {
+        hits.addAll(batch);
+        batches++;
+        notifyAll();
+    }
+
+    public synchronized List<Hit> getHits() {
+        return new ArrayList<>(hits);
+    }
+
+    public synchronized int getBatchCount() {
+        return batches;
+    }
+
+    /**
+     * Blocks until at least {@code count} hits have been received or the timeout elapses.
+     *
+     * @return true if the hits arrived in time.
+     */
+    public synchronized boolean awaitHits(int count, long timeout, TimeUnit unit)
+            throws InterruptedException {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        while (hits.size() < count) {
+            long remaining = deadline - System.nanoTime();
+            if (remaining <= 0) {
+                return false;
+            }
+            TimeUnit.NANOSECONDS.timedWait(this, remaining);
+        }
+        return true;
+    }
+}
@@ -0,0 +1,141 @@
+/*
+ * Copyright 2026 Basit Parkar.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ *  @date 10/18/26 12:25 AM
+ *  @modified 10/18/26 12:25 AM
+ */
+
+package me.iz.mobility.googletagmanagerdemo;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Counts latencies in logarithmic buckets, so a few hundred counters cover microseconds to hours
+ * with about 6% error. Recording is lock free and doesn't allocate, it can be called from any
+ * thread, on the UI thread in particular.
+ * <p/>
+ * Each power of two is split into {@value #SUB_BUCKETS} equal buckets; values below that are
+ * counted exactly.
+ */
+public class LatencyHistogram {
+
+    private static final int SUB_BUCKET_BITS = 4;
+    static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    // Values of 2^36 us, about 19 hours, and above share the last bucket.
+    private static final int MAX_EXPONENT = 35;
+    static final int BUCKETS = (MAX_EXPONENT - SUB_BUCKET_BITS + 2) * SUB_BUCKETS;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final AtomicLong count = new AtomicLong();
+    private final AtomicLong sumMicros = new AtomicLong();
+    private final AtomicLong maxMicros = new AtomicLong();
+
+    /**
+     * Counts one latency.
+     */
+    public void record(long durationNanos) {
+        long micros = Math.max(0, durationNanos / 1000);
+        counts.incrementAndGet(bucketOf(micros));
+        count.incrementAndGet();
+        sumMicros.addAndGet(micros);
+        long max;
+        while (micros > (max = maxMicros.get()) && !maxMicros.compareAndSet(max, micros)) {
+            // Lost a race against another record, try again.
+        }
+    }
+
+    static int bucketOf(long micros) {
+        if (micros < SUB_BUCKETS) {
+            return (int) micros;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(micros);
+        if (exponent > MAX_EXPONENT) {
+            return BUCKETS - 1;
+        }
+        int shift = exponent - SUB_BUCKET_BITS;
+        int mantissa = (int) (micros >>> shift);
+        return (shift + 1) * SUB_BUCKETS + mantissa - SUB_BUCKETS;
+    }
+
+    /**
+     * @return the largest value, in microseconds, that is counted in the bucket.
+     */
+    static long upperBoundOf(int bucket) {
+        if (bucket < 2 * SUB_BUCKETS) {
+            return bucket;
+        }
+        int shift = bucket / SUB_BUCKETS - 1;
+        long mantissa = bucket % SUB_BUCKETS + SUB_BUCKETS;
+        return ((mantissa + 1) << shift) - 1;
+    }
+
+    public long getCount() {
+        return count.get();
+    }
+
+    /**
+     * @param percentile between 0 and 100.
+     * @return the latency below which the given percentage of the recorded ones fall, in the
+     * given unit, or 0 if nothing was recorded. Never more than the largest recorded latency.
+     */
+    public long getPercentile(double percentile, TimeUnit unit) {
+        long total = count.get();
+        if (total == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(percentile / 100 * total));
+        long seen = 0;
+        for (int bucket = 0; bucket < BUCKETS; bucket++) {
+            seen += counts.get(bucket);
+            if (seen >= rank) {
+                return unit.convert(Math.min(upperBoundOf(bucket), maxMicros.get()), TimeUnit.MICROSECONDS);
+            }
+        }
+        return unit.convert(maxMicros.get(), TimeUnit.MICROSECONDS);
+    }
+
+    public long getMax(TimeUnit unit) {
+        return unit.convert(maxMicros.get(), TimeUnit.MICROSECONDS);
+    }
+
+    public long getMean(TimeUnit unit) {
+        long total = count.get();
+        return total == 0 ? 0 : unit.convert(sumMicros.get() / total, TimeUnit.MICROSECONDS);
+    }
+
+    /**
+     * Appends the count and the p50, p95, p99 and max latencies in milliseconds.
+     */
+    public void appendSummary(StringBuilder out) {
+        out.append("n=").append(getCount());
+        appendMillis(out, " p50=", getPercentile(50, TimeUnit.MICROSECONDS));
+        appendMillis(out, " p95=", getPercentile(95, TimeUnit.MICROSECONDS));
+        appendMillis(out, " p99=", getPercentile(99, TimeUnit.MICROSECONDS));
+        appendMillis(out, " max=", getMax(TimeUnit.MICROSECONDS));
+    }
+
+    private static void appendMillis(StringBuilder out, String label, long micros) {
+        out.append(label).append(micros / 1000).append('.').append(micros / 100 % 10).append("ms");
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder out = new StringBuilder();
+        appendSummary(out);
+        return out.toString();
+    }
+}
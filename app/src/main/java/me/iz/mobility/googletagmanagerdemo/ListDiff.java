@@ -0,0 +1,178 @@
+/*
+ * Copyright 2026 Basit Parkar.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ *  @date 10/17/26 5:31 PM
+ *  @modified 10/17/26 5:31 PM
+ */
+
+package me.iz.mobility.googletagmanagerdemo;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The row operations that turn one keyed list into another, in the order a
+ * {@code RecyclerView.Adapter} expects its notifications: each position refers to the list
+ * as changed by the operations before it.
+ * <p/>
+ * Rows are matched by key, a row with the same key but different content is changed in place.
+ * The diff is meant for refreshes that touch a few rows; past a limit it gives up so the caller
+ * can rebind everything instead.
+ */
+final class ListDiff {
+
+    interface Target {
+        void onRemoved(int position);
+
+        void onInserted(int position);
+
+        void onMoved(int fromPosition, int toPosition);
+
+        void onChanged(int position);
+    }
+
+    private static final int REMOVE = 0;
+    private static final int INSERT = 1;
+    private static final int MOVE = 2;
+    private static final int CHANGE = 3;
+
+    // Three ints per operation: type, position, target position.
+    private int[] operations = new int[3 * 8];
+    private int size;
+
+    private ListDiff() {
+    }
+
+    /**
+     * @param oldKeys       the keys of the current rows, unique, see {@link #uniqueKeys}.
+     * @param oldContents   a hash of what each current row shows.
+     * @param newKeys       the keys of the new rows, unique.
+     * @param newContents   a hash of what each new row shows.
+     * @param maxOperations give up past this many operations.
+     * @return the diff, or null if it would take more than {@code maxOperations}.
+     */
+    static ListDiff compute(String[] oldKeys, int[] oldContents, String[] newKeys,
+                            int[] newContents, int maxOperations) {
+        ListDiff diff = new ListDiff();
+        Map<String, Integer> newIndex = indexOf(newKeys);
+        Map<String, Integer> oldIndex = indexOf(oldKeys);
+
+        // Removing from the end keeps the positions of the rows before valid.
+        for (int i = oldKeys.length - 1; i >= 0; i--) {
+            if (!newIndex.containsKey(oldKeys[i]) && !diff.add(REMOVE, i, 0, maxOperations)) {
+                return null;
+            }
+        }
+        List<String> current = new ArrayList<>(newKeys.length);
+        for (String key : oldKeys) {
+            if (newIndex.containsKey(key)) {
+                current.add(key);
+            }
+        }
+
+        for (int i = 0; i < newKeys.length; i++) {
+            String key = newKeys[i];
+            Integer old = oldIndex.get(key);
+            if (old == null) {
+                current.add(i, key);
+                if (!diff.add(INSERT, i, 0, maxOperations)) {
+                    return null;
+                }
+                continue;
+            }
+            if (!current.get(i).equals(key)) {
+                int from = current.indexOf(key);
+                current.remove(from);
+                current.add(i, key);
+                if (!diff.add(MOVE, from, i, maxOperations)) {
+                    return null;
+                }
+            }
+            if (oldContents[old] != newContents[i] && !diff.add(CHANGE, i, 0, maxOperations)) {
+                return null;
+            }
+        }
+        return diff;
+    }
+
+    /**
+     * Makes repeated keys unique by numbering the repeats, so lists with duplicate names
+     * can still be diffed.
+     */
+    static String[] uniqueKeys(String[] keys) {
+        Map<String, Integer> seen = new HashMap<>(keys.length * 2);
+        String[] unique = keys;
+        for (int i = 0; i < keys.length; i++) {
+            Integer count = seen.put(keys[i], 1);
+            if (count != null) {
+                seen.put(keys[i], count + 1);
+                if (unique == keys) {
+                    unique = keys.clone();
+                }
+                unique[i] = keys[i] + '\u0000' + count;
+            }
+        }
+        return unique;
+    }
+
+    private static Map<String, Integer> indexOf(String[] keys) {
+        Map<String, Integer> index = new HashMap<>(keys.length * 2);
+        for (int i = 0; i < keys.length; i++) {
+            index.put(keys[i], i);
+        }
+        return index;
+    }
+
+    private boolean add(int type, int position, int toPosition, int maxOperations) {
+        if (size == maxOperations) {
+            return false;
+        }
+        if (3 * size == operations.length) {
+            operations = Arrays.copyOf(operations, operations.length * 2);
+        }
+        operations[3 * size] = type;
+        operations[3 * size + 1] = position;
+        operations[3 * size + 2] = toPosition;
+        size++;
+        return true;
+    }
+
+    int size() {
+        return size;
+    }
+
+    void dispatch(Target target) {
+        for (int i = 0; i < 3 * size; i += 3) {
+            int position = operations[i + 1];
+            switch (operations[i]) {
+                case REMOVE:
+                    target.onRemoved(position);
+                    break;
+                case INSERT:
+                    target.onInserted(position);
+                    break;
+                case MOVE:
+                    target.onMoved(position, operations[i + 2]);
+                    break;
+                default:
+                    target.onChanged(position);
+                    break;
+            }
+        }
+    }
+}
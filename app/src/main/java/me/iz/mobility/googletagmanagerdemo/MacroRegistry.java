@@ -0,0 +1,96 @@
+/*
+ * Copyright 2026 Basit Parkar.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ *  @date 10/18/26 3:05 AM
+ *  @modified 10/18/26 3:05 AM
+ */
+
+package me.iz.mobility.googletagmanagerdemo;
+
+import com.google.android.gms.tagmanager.Container.FunctionCallMacroCallback;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Function call macros of the app behind one callback that can be registered for all of their
+ * names. A call is dispatched through a hash table of the names instead of comparing the name
+ * against each macro, and the registry itself keeps no mutable state, so the container may call
+ * it from any thread.
+ */
+public final class MacroRegistry implements FunctionCallMacroCallback {
+
+    public interface Macro {
+        /**
+         * Called on whichever thread the container evaluates the macro on, possibly on several
+         * at once.
+         */
+        Object evaluate(Map<String, Object> parameters);
+    }
+
+    private final String[] names;
+    private final Macro[] macros;
+    private final NameTable table;
+
+    private MacroRegistry(String[] names, Macro[] macros) {
+        this.names = names;
+        this.macros = macros;
+        int[] indexes = new int[names.length];
+        for (int i = 0; i < indexes.length; i++) {
+            indexes[i] = i;
+        }
+        this.table = new NameTable(names, indexes);
+    }
+
+    @Override
+    public Object getValue(String name, Map<String, Object> parameters) {
+        int index = table.get(name, -1);
+        if (index < 0) {
+            throw new IllegalArgumentException("Custom macro name: " + name + " is not supported.");
+        }
+        return macros[index].evaluate(parameters);
+    }
+
+    /**
+     * @return the names to register this callback for.
+     */
+    public String[] getNames() {
+        return names.clone();
+    }
+
+    public int size() {
+        return names.length;
+    }
+
+    public static final class Builder {
+        private final List<String> names = new ArrayList<>();
+        private final List<Macro> macros = new ArrayList<>();
+
+        public Builder add(String name, Macro macro) {
+            if (names.contains(name)) {
+                throw new IllegalArgumentException("Duplicate macro: " + name);
+            }
+            names.add(name);
+            macros.add(macro);
+            return this;
+        }
+
+        public MacroRegistry build() {
+            return new MacroRegistry(names.toArray(new String[names.size()]),
+                    macros.toArray(new Macro[macros.size()]));
+        }
+    }
+}
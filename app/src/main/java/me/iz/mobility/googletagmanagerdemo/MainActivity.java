@@ -23,23 +23,15 @@ import android.app.Activity;
 import android.content.Intent;
 import android.os.Bundle;
 import android.os.StrictMode;
+import android.support.v7.widget.LinearLayoutManager;
+import android.support.v7.widget.RecyclerView;
 import android.text.Html;
 import android.util.Log;
 import android.view.View;
 import android.widget.Button;
-import android.widget.LinearLayout;
 import android.widget.TextView;
 
-import com.google.android.gms.tagmanager.Container;
-import com.google.android.gms.tagmanager.TagManager;
-
-import org.json.JSONArray;
-import org.json.JSONObject;
-
-import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.List;
-import java.util.Map;
+import com.google.android.gms.tagmanager.ContainerHolder;
 
 /**
  * An {@link Activity} that displays a list of animal categories; clicking on one opens a
@@ -48,29 +40,70 @@ import java.util.Map;
 public class MainActivity extends Activity {
     static final String TAG = "GTMExample";
     static final String ADJECTIVE_KEY = "adjective";
-    private static final String CATEGORY_KEY = "category";
+    static final String CATEGORY_KEY = "category";
 
     // Set to false for release build.
     private static final Boolean DEVELOPER_BUILD = true;
-    private Container container;
     private String adjective;
-    // Key is the animal category name, and the value is a list of image file names.
-    private Map<String, List<String>> categoryImagesMap = new HashMap<String, List<String>>();
+    // The animal category names and the image file names of each category.
+    private CategoryCatalog catalog = CategoryCatalog.EMPTY;
+    private final ButtonListAdapter categoryAdapter = new ButtonListAdapter() {
+        @Override
+        protected void bind(Button button, int position) {
+            bindCategoryButton(button, position);
+        }
+
+        @Override
+        protected void onRowClicked(int position) {
+            startCategoryViewActivity(position);
+        }
+    };
+
+    // GTM doesn't support returning compound objects, so the container stores the category map
+    // as a JSON string, which the repository parses and compares with the last one on a
+    // background thread. The default one is at assets/tagmanager/GTM-XXXX.json:
+    //
+    // '[
+    //     {"name": "Bunny", "image_files": ["bunny_1", "bunny_2", "bunny_3"]},
+    //     {"name": "Tiger", "image_files": ["tiger_1", "tiger_2"]}
+    // }]'
+    private final CatalogRepository.ChangeListener catalogListener =
+            new CatalogRepository.ChangeListener() {
+                @Override
+                public void onCatalogChanged(CatalogChange change) {
+                    showChange(change);
+                }
+            };
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
+        Utils.onScreenCreated(this, "MainScreen");
         if (DEVELOPER_BUILD) {
             StrictMode.enableDefaults();
         }
         super.onCreate(savedInstanceState);
 
         setContentView(R.layout.activity_main);
+        RecyclerView categoryList = (RecyclerView) findViewById(R.id.category_list);
+        categoryList.setLayoutManager(new LinearLayoutManager(this));
+        categoryList.setAdapter(categoryAdapter);
+
+        CatalogRepository repository = ((GTMDemo) getApplication()).getCatalogRepository();
+        repository.addChangeListener(catalogListener);
+        // On a cold start the container may still be loading; show the catalog of the last run
+        // until it is ready.
+        if (((GTMDemo) getApplication()).getContainerRegistry()
+                .get(GTMDemo.CATALOG_CONTAINER_ID) == null) {
+            repository.publishSnapshot();
+        }
 
-        container = ContainerHolderSingleton.getContainerHolder().getContainer();
-        updateCategories();
+        GTMAnalytics.get(this).setScreenName("Main activity!!");
+    }
 
-        GTMAnalytics gtmAnalytics = new GTMAnalytics(this);
-        gtmAnalytics.setScreenName("Main activity!!");
+    @Override
+    protected void onDestroy() {
+        super.onDestroy();
+        ((GTMDemo) getApplication()).getCatalogRepository().removeChangeListener(catalogListener);
     }
 
     @Override
@@ -85,103 +118,73 @@ public class MainActivity extends Activity {
         Utils.pushCloseScreenEvent(this, "MainScreen");
     }
 
-    private void updateCategories() {
-        adjective = container.getString(ADJECTIVE_KEY);
-        // Update the title.
+    private void updateTitle() {
         TextView titleView = (TextView) findViewById(R.id.title);
         titleView.setText(getDisplayName(getResources().getString(R.string.animals)));
+    }
 
-        LinearLayout linearLayout = (LinearLayout) findViewById(R.id.category_linear_layout);
-        linearLayout.removeAllViews();
-
-        // Retrieve the animal categories information from GTM.
-        // The Json file to store the default categories information
-        // is at assets/tagmanager/GTM-XXXX.json.
-        String categoriesJsonString = container.getString(CATEGORY_KEY);
-        // A list to save all animal category names, such as bunny, cat and etc.
-        List<String> categoryNames = new ArrayList<String>();
-        categoryImagesMap.clear();
-
-        // No category information returned from container.
-        if (categoriesJsonString.isEmpty()) {
-            TextView message = new TextView(this);
-            message.setText("No animal category found.");
-            linearLayout.addView(message);
-            return;
+    private void showChange(CatalogChange change) {
+        if (change.isAdjectiveChanged()) {
+            adjective = change.current.adjective;
+            updateTitle();
+        }
+        CategoryCatalog catalog = change.current.catalog;
+        this.catalog = catalog;
+        TextView emptyMessage = (TextView) findViewById(R.id.empty_message);
+
+        // Only the rows whose category was added, removed, moved or now shows something else
+        // are rebound. The operations were worked out in the background, unless the screen
+        // doesn't show the previous catalog of the change.
+        CatalogChange.Rows rows = change.categories;
+        if (!categoryAdapter.applyRows(rows)) {
+            categoryAdapter.setRows(rows.newKeys, rows.newContents);
         }
 
-        try {
-            // GTM doesn't support returning compound objects, so we store the category map as a JSON
-            // string which we then parse.
-            //
-            // Here is a sample JSON string returned back from container:
-            //
-            // '[
-            //     {"name": "Bunny", "image_files": ["bunny_1", "bunny_2", "bunny_3"]},
-            //     {"name": "Tiger", "image_files": ["tiger_1", "tiger_2"]}
-            // }]'
-            JSONArray categories = new JSONArray(categoriesJsonString);
-            for (int i = 0; i < categories.length(); i++) {
-                JSONObject category = categories.getJSONObject(i);
-                String categoryName = category.getString("name");
-                JSONArray images = category.getJSONArray("image_files");
-                categoryNames.add(categoryName);
-                List<String> imageNames = new ArrayList<String>(images.length());
-                for (int j = 0; j < images.length(); j++) {
-                    imageNames.add(images.getString(j));
-                }
-                categoryImagesMap.put(categoryName, imageNames);
-            }
-        } catch (Exception e) {
-            Log.e(TAG, "Parsing the JSON string: [" + categoriesJsonString + "] throw an exception.", e);
+        if (catalog.size() == 0) {
+            emptyMessage.setText("No animal category found.");
+            emptyMessage.setVisibility(View.VISIBLE);
             return;
         }
+        emptyMessage.setVisibility(View.GONE);
 
-        // Dynamically insert a button for each category.
-        for (String categoryName : categoryNames) {
-            Button button = createButton(categoryName);
-            linearLayout.addView(button);
-        }
+        // Measure the images before the user gets to them.
+        ((GTMDemo) getApplication()).getImageIndexer().index(catalog);
     }
 
     public void refreshButtonClicked(@SuppressWarnings("unused") View view) {
         Log.i(TAG, "refreshButtonClicked");
-        ContainerHolderSingleton.getContainerHolder().refresh();
+        ContainerHolder containerHolder = ((GTMDemo) getApplication()).getContainerRegistry()
+                .get(GTMDemo.CATALOG_CONTAINER_ID);
+        if (containerHolder == null) {
+            // Still showing the snapshot, the container will update the screen once it loads.
+            return;
+        }
+        // The new container version reaches the screen through the catalog listener.
+        containerHolder.refresh();
 
         // Push the "refresh" event to trigger firing an analytics tag.
-        TagManager.getInstance(this).getDataLayer().push("event", "refresh");
+        Utils.getDataLayer(this).pushEvent("refresh");
         // Push the "custom tag" event to trigger firing a custom function call tag.
-        TagManager.getInstance(this).getDataLayer().push("event", "custom_tag");
-        updateCategories();
+        Utils.getDataLayer(this).pushEvent("custom_tag");
     }
 
-    private Button createButton(final String categoryName) {
-        Button button = new Button(this);
+    private void bindCategoryButton(Button button, int category) {
+        String categoryName = catalog.getName(category);
         // Set the text of the button, the first line is the category name, the second one
         // is to show the number of images for this category.
         String firstLineHtmlText = getDisplayName(categoryName) + " "
                 + getResources().getString(R.string.pictures);
         String secondLineHtmlText = "<small><font color='grey'>"
-                + categoryImagesMap.get(categoryName).size() + " "
+                + catalog.getImageCount(category) + " "
                 + getResources().getString(R.string.images) + "</font></small>";
         button.setText(Html.fromHtml(firstLineHtmlText + "<br/>" + secondLineHtmlText));
-
-        button.setOnClickListener(new View.OnClickListener() {
-            @Override
-            public void onClick(View arg0) {
-                startCategoryViewActivity(categoryName);
-            }
-        });
-
-        return button;
     }
 
-    private void startCategoryViewActivity(String categoryName) {
+    private void startCategoryViewActivity(int category) {
         Intent intent = new Intent(MainActivity.this, CategoryViewActivity.class);
         // Passes the category name and the image file name array into CategoryViewActivity.
-        intent.putExtra(CategoryViewActivity.CATEGORY_NAME_KEY, categoryName);
-        intent.putExtra(CategoryViewActivity.IMAGE_FILES_KEY,
-                categoryImagesMap.get(categoryName).toArray(new String[1]));
+        intent.putExtra(CategoryViewActivity.CATEGORY_NAME_KEY, catalog.getName(category));
+        intent.putExtra(CategoryViewActivity.IMAGE_FILES_KEY, catalog.getImages(category));
         startActivity(intent);
     }
 
@@ -1,5 +1,5 @@
 /*
- * Copyright 2016 Basit Parkar.
+ * Copyright 2026 Basit Parkar.
  *
  * Licensed under the Apache License, Version 2.0 (the "License"); you may not
  * use this file except in compliance with the License. You may obtain a copy of
@@ -13,28 +13,26 @@
  * License for the specific language governing permissions and limitations under
  * the License.
  *
- *  @date 4/4/16 9:49 PM
- *  @modified 4/4/16 9:49 PM
+ *  @date 10/17/26 11:58 AM
+ *  @modified 10/17/26 11:58 AM
  */
 
 package me.iz.mobility.googletagmanagerdemo;
 
-import com.google.android.gms.tagmanager.ContainerHolder;
+import android.os.Handler;
+import android.os.Looper;
 
-public class ContainerHolderSingleton {
-    private static ContainerHolder containerHolder;
+import java.util.concurrent.Executor;
 
-    /**
-     * Utility class; don't instantiate.
-     */
-    private ContainerHolderSingleton() {
-    }
+/**
+ * {@link Executor} that runs everything on the UI thread.
+ */
+class MainThreadExecutor implements Executor {
 
-    public static ContainerHolder getContainerHolder() {
-        return containerHolder;
-    }
+    private final Handler handler = new Handler(Looper.getMainLooper());
 
-    public static void setContainerHolder(ContainerHolder c) {
-        containerHolder = c;
+    @Override
+    public void execute(Runnable command) {
+        handler.post(command);
     }
 }
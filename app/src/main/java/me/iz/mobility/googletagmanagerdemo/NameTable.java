@@ -0,0 +1,82 @@
+/*
+ * Copyright 2026 Basit Parkar.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ *  @date 10/17/26 4:02 PM
+ *  @modified 10/17/26 4:02 PM
+ */
+
+package me.iz.mobility.googletagmanagerdemo;
+
+/**
+ * Immutable open addressing hash table from a name to an int, for lookups on hot paths that
+ * shouldn't box or allocate. Keys are compared by their cached hash code first, so a miss
+ * rarely has to look at the characters.
+ */
+final class NameTable {
+
+    private final String[] keys;
+    private final int[] hashes;
+    private final int[] values;
+    private final int mask;
+
+    /**
+     * @param names  the keys, the last one wins for duplicates.
+     * @param values the value of each key.
+     */
+    NameTable(String[] names, int[] values) {
+        // Keep the load factor at or below 0.5 so probe sequences stay short.
+        int capacity = Integer.highestOneBit(Math.max(2, names.length) * 2 - 1) << 1;
+        this.keys = new String[capacity];
+        this.hashes = new int[capacity];
+        this.values = new int[capacity];
+        this.mask = capacity - 1;
+        for (int i = 0; i < names.length; i++) {
+            put(names[i], values[i]);
+        }
+    }
+
+    private void put(String name, int value) {
+        int hash = name.hashCode();
+        int slot = spread(hash) & mask;
+        while (keys[slot] != null && !(hashes[slot] == hash && keys[slot].equals(name))) {
+            slot = (slot + 1) & mask;
+        }
+        keys[slot] = name;
+        hashes[slot] = hash;
+        values[slot] = value;
+    }
+
+    /**
+     * @return the value of the name, or {@code missing} if it is not in the table.
+     */
+    int get(String name, int missing) {
+        int hash = name.hashCode();
+        int slot = spread(hash) & mask;
+        String key;
+        while ((key = keys[slot]) != null) {
+            if (hashes[slot] == hash && (key == name || key.equals(name))) {
+                return values[slot];
+            }
+            slot = (slot + 1) & mask;
+        }
+        return missing;
+    }
+
+    private static int spread(int hash) {
+        // Mixes the high bits in, String hash codes of similar names differ mostly in low bits.
+        hash *= 0x9E3779B9;
+        return hash ^ (hash >>> 16);
+    }
+}
@@ -0,0 +1,76 @@
+/*
+ * Copyright 2026 Basit Parkar.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ *  @date 10/17/26 10:03 PM
+ *  @modified 10/17/26 10:03 PM
+ */
+
+package me.iz.mobility.googletagmanagerdemo;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Resource ids by name, read once from a generated resource class such as {@code R.drawable},
+ * so looking one up is a hash table probe instead of {@code Resources.getIdentifier}.
+ */
+public final class ResourceTable {
+
+    private final NameTable table;
+    private final int size;
+
+    ResourceTable(String[] names, int[] ids) {
+        this.table = new NameTable(names, ids);
+        this.size = names.length;
+    }
+
+    /**
+     * @param resourceClass a resource type class, its {@code static int} fields are the ids.
+     */
+    public static ResourceTable of(Class<?> resourceClass) {
+        List<String> names = new ArrayList<>();
+        List<Integer> ids = new ArrayList<>();
+        for (Field field : resourceClass.getFields()) {
+            if (!Modifier.isStatic(field.getModifiers()) || field.getType() != int.class) {
+                continue;
+            }
+            try {
+                ids.add(field.getInt(null));
+                names.add(field.getName());
+            } catch (IllegalAccessException e) {
+                // Public fields are always accessible.
+                throw new IllegalStateException(e);
+            }
+        }
+        int[] idArray = new int[ids.size()];
+        for (int i = 0; i < idArray.length; i++) {
+            idArray[i] = ids.get(i);
+        }
+        return new ResourceTable(names.toArray(new String[names.size()]), idArray);
+    }
+
+    /**
+     * @return the id of the resource, or 0 if there is none, like {@code getIdentifier}.
+     */
+    public int getId(String name) {
+        return table.get(name, 0);
+    }
+
+    public int size() {
+        return size;
+    }
+}
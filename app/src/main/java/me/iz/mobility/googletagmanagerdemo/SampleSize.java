@@ -0,0 +1,51 @@
+/*
+ * Copyright 2026 Basit Parkar.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ *  @date 10/17/26 7:05 PM
+ *  @modified 10/17/26 7:05 PM
+ */
+
+package me.iz.mobility.googletagmanagerdemo;
+
+/**
+ * Picks how much to subsample an image while decoding it for a target size.
+ */
+final class SampleSize {
+
+    private SampleSize() {
+    }
+
+    /**
+     * @return the largest power of two that, as {@code inSampleSize}, keeps the decoded image at
+     * least as large as the target in both dimensions. 1 if the image is not larger.
+     */
+    static int calculate(int width, int height, int targetWidth, int targetHeight) {
+        int sampleSize = 1;
+        if (targetWidth <= 0 || targetHeight <= 0) {
+            return sampleSize;
+        }
+        while (width / (sampleSize * 2) >= targetWidth && height / (sampleSize * 2) >= targetHeight) {
+            sampleSize *= 2;
+        }
+        return sampleSize;
+    }
+
+    /**
+     * @return the size of one side decoded with the sample size, rounded up as the decoder does.
+     */
+    static int sampled(int size, int sampleSize) {
+        return (size + sampleSize - 1) / sampleSize;
+    }
+}
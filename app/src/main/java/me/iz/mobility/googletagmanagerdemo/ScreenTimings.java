@@ -0,0 +1,130 @@
+/*
+ * Copyright 2026 Basit Parkar.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ *  @date 10/18/26 12:50 AM
+ *  @modified 10/18/26 12:50 AM
+ */
+
+package me.iz.mobility.googletagmanagerdemo;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * How long each screen takes to draw its first frame after it is created, and how long it stays
+ * open, as {@link LatencyHistogram}s kept in the process. The time to first draw starts in
+ * {@code onCreate}, so it includes inflating the layout; the dwell is fed from the same places
+ * that push the open and close screen events to the data layer.
+ * <p/>
+ * Once a screen has been seen, recording its timings doesn't allocate.
+ */
+public class ScreenTimings {
+
+    // System.nanoTime() may be any value, this one just isn't going to come up.
+    private static final long NOT_OPEN = Long.MIN_VALUE;
+
+    public static final class Screen {
+        final String name;
+        final LatencyHistogram timeToFirstDraw = new LatencyHistogram();
+        final LatencyHistogram dwell = new LatencyHistogram();
+        // NOT_OPEN while the screen is not open.
+        private volatile long openedNanos = NOT_OPEN;
+        // The create time until the first draw has been recorded, then NOT_OPEN.
+        private volatile long waitingForDrawNanos = NOT_OPEN;
+
+        Screen(String name) {
+            this.name = name;
+        }
+
+        public LatencyHistogram getTimeToFirstDraw() {
+            return timeToFirstDraw;
+        }
+
+        public LatencyHistogram getDwell() {
+            return dwell;
+        }
+    }
+
+    private final ConcurrentMap<String, Screen> screens = new ConcurrentHashMap<>();
+
+    public Screen getScreen(String name) {
+        Screen screen = screens.get(name);
+        if (screen == null) {
+            Screen created = new Screen(name);
+            screen = screens.putIfAbsent(name, created);
+            if (screen == null) {
+                screen = created;
+            }
+        }
+        return screen;
+    }
+
+    /**
+     * Starts the time to first draw, call it first thing in {@code onCreate}.
+     */
+    public void onScreenCreated(String name, long nowNanos) {
+        getScreen(name).waitingForDrawNanos = nowNanos;
+    }
+
+    public void onScreenOpened(String name, long nowNanos) {
+        getScreen(name).openedNanos = nowNanos;
+    }
+
+    /**
+     * Records the time to first draw, if this is the first draw since the screen was created.
+     */
+    public void onScreenDrawn(String name, long nowNanos) {
+        Screen screen = getScreen(name);
+        long openedNanos = screen.waitingForDrawNanos;
+        if (openedNanos != NOT_OPEN) {
+            screen.waitingForDrawNanos = NOT_OPEN;
+            screen.timeToFirstDraw.record(nowNanos - openedNanos);
+        }
+    }
+
+    public void onScreenClosed(String name, long nowNanos) {
+        Screen screen = getScreen(name);
+        long openedNanos = screen.openedNanos;
+        if (openedNanos != NOT_OPEN) {
+            screen.openedNanos = NOT_OPEN;
+            screen.waitingForDrawNanos = NOT_OPEN;
+            screen.dwell.record(nowNanos - openedNanos);
+        }
+    }
+
+    /**
+     * Writes one line per screen and measurement, sorted by screen name.
+     */
+    public void dump(Writer out) throws IOException {
+        List<String> names = new ArrayList<>(screens.keySet());
+        Collections.sort(names);
+        StringBuilder line = new StringBuilder();
+        for (String name : names) {
+            Screen screen = screens.get(name);
+            line.setLength(0);
+            line.append(name).append(" timeToFirstDraw ");
+            screen.timeToFirstDraw.appendSummary(line);
+            line.append('\n').append(name).append(" dwell ");
+            screen.dwell.appendSummary(line);
+            line.append('\n');
+            out.write(line.toString());
+        }
+    }
+}
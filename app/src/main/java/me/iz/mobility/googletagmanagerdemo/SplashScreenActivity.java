@@ -26,60 +26,57 @@ import android.content.Intent;
 import android.os.Bundle;
 import android.util.Log;
 
-import com.google.android.gms.common.api.PendingResult;
-import com.google.android.gms.common.api.ResultCallback;
 import com.google.android.gms.tagmanager.Container;
-import com.google.android.gms.tagmanager.Container.FunctionCallMacroCallback;
-import com.google.android.gms.tagmanager.Container.FunctionCallTagCallback;
 import com.google.android.gms.tagmanager.ContainerHolder;
-import com.google.android.gms.tagmanager.TagManager;
-
-import java.util.Map;
-import java.util.concurrent.TimeUnit;
 
 /**
  * Displays simple splash screen while GTM container is loading. Once the container is loaded,
  * launches the {@link MainActivity}.
  */
 public class SplashScreenActivity extends Activity {
-    private static final long TIMEOUT_FOR_CONTAINER_OPEN_MILLISECONDS = 2000;
-    private static final String CONTAINER_ID = "GTM-TVNB99";
+    // Container value with the sampling and rate limit rules of events, see HitThrottle.
+    private static final String HIT_THROTTLE_KEY = "hit_throttle";
+
+    // True if MainActivity was started from the catalog snapshot before the container loaded.
+    private boolean mainActivityStarted;
 
     @Override
     public void onCreate(Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
         setContentView(R.layout.activity_splashscreen);
 
-        TagManager tagManager = TagManager.getInstance(this);
-
-        // Modify the log level of the logger to print out not only
-        // warning and error messages, but also verbose, debug, info messages.
-        tagManager.setVerboseLoggingEnabled(true);
+        final long containerLoadStart = System.nanoTime();
+        final GTMDemo app = (GTMDemo) getApplication();
+        // The TagManager start up task loads the containers, this only waits for them.
+        ContainerRegistry<ContainerHolder> registry = app.getContainerRegistry();
 
-        PendingResult<ContainerHolder> pending =
-                tagManager.loadContainerPreferNonDefault(CONTAINER_ID,
-                R.raw.gtm_tvnb99);
-
-        // The onResult method will be called as soon as one of the following happens:
-        //     1. a saved container is loaded
-        //     2. if there is no saved container, a network container is loaded
-        //     3. the 2-second timeout occurs
-        pending.setResultCallback(new ResultCallback<ContainerHolder>() {
+        // Only the catalog container is needed to start, the others keep loading.
+        registry.whenReady(new ContainerRegistry.Listener<ContainerHolder>() {
             @Override
-            public void onResult(ContainerHolder containerHolder) {
-                ContainerHolderSingleton.setContainerHolder(containerHolder);
-                Container container = containerHolder.getContainer();
-                if (!containerHolder.getStatus().isSuccess()) {
-                    Log.e("CuteAnimals", "failure loading container");
-                    displayErrorToUser(R.string.load_error);
+            public void onContainersReady(ContainerRegistry<ContainerHolder> registry) {
+                app.getStartupPipeline().record(
+                        GTMDemo.PHASE_CONTAINER_LOAD, containerLoadStart, System.nanoTime());
+                ContainerHolder containerHolder = registry.get(GTMDemo.CATALOG_CONTAINER_ID);
+                if (containerHolder == null) {
+                    if (!mainActivityStarted) {
+                        displayErrorToUser(R.string.load_error);
+                    }
                     return;
                 }
-                ContainerHolderSingleton.setContainerHolder(containerHolder);
-                ContainerLoadedCallback.registerCallbacksForContainer(container);
-                containerHolder.setContainerAvailableListener(new ContainerLoadedCallback());
-                startMainActivity();
+                ContainerLoadedCallback.registerCallbacksForContainer(
+                        containerHolder.getContainer(), app);
+                containerHolder.setContainerAvailableListener(new ContainerLoadedCallback(app));
+                if (!mainActivityStarted) {
+                    startMainActivity();
+                }
             }
-        }, TIMEOUT_FOR_CONTAINER_OPEN_MILLISECONDS, TimeUnit.MILLISECONDS);
+        }, GTMDemo.CATALOG_CONTAINER_ID);
+
+        // With a snapshot of the last catalog, the main screen doesn't need to wait for the
+        // container at all.
+        if (((GTMDemo) getApplication()).hasCatalogSnapshot()) {
+            startMainActivity();
+        }
     }
 
     /**
@@ -101,47 +98,45 @@ public class SplashScreenActivity extends Activity {
     }
 
     private void startMainActivity() {
+        mainActivityStarted = true;
         Intent intent = new Intent(SplashScreenActivity.this, MainActivity.class);
         startActivity(intent);
     }
 
     private static class ContainerLoadedCallback implements ContainerHolder.ContainerAvailableListener {
-        @Override
-        public void onContainerAvailable(ContainerHolder containerHolder, String containerVersion) {
-            // We load each container when it becomes available.
-            Container container = containerHolder.getContainer();
-            registerCallbacksForContainer(container);
-        }
+        private final GTMDemo app;
 
-        public static void registerCallbacksForContainer(Container container) {
-            // Register two custom function call macros to the container.
-            container.registerFunctionCallMacroCallback("increment", new CustomMacroCallback());
-            container.registerFunctionCallMacroCallback("mod", new CustomMacroCallback());
-            // Register a custom function call tag to the container.
-            container.registerFunctionCallTagCallback("custom_tag", new CustomTagCallback());
+        ContainerLoadedCallback(GTMDemo app) {
+            this.app = app;
         }
-    }
-
-    private static class CustomMacroCallback implements FunctionCallMacroCallback {
-        private int numCalls;
 
         @Override
-        public Object getValue(String name, Map<String, Object> parameters) {
-            if ("increment".equals(name)) {
-                return ++numCalls;
-            } else if ("mod".equals(name)) {
-                return (Long) parameters.get("key1") % Integer.valueOf((String) parameters.get("key2"));
-            } else {
-                throw new IllegalArgumentException("Custom macro name: " + name + " is not supported.");
-            }
+        public void onContainerAvailable(ContainerHolder containerHolder, String containerVersion) {
+            // We load each container when it becomes available.
+            registerCallbacksForContainer(containerHolder.getContainer(), app);
         }
-    }
 
-    private static class CustomTagCallback implements FunctionCallTagCallback {
-        @Override
-        public void execute(String tagName, Map<String, Object> parameters) {
-            // The code for firing this custom tag.
-            Log.i("CuteAnimals", "Custom function call tag :" + tagName + " is fired.");
+        public static void registerCallbacksForContainer(Container container, GTMDemo app) {
+            // The container of the first registration doesn't tell its GTM version, so the
+            // cached values, the catalog and its snapshot all go by the refresh time, which
+            // stays the same for a container saved to disk and loaded again.
+            String version = String.valueOf(container.getLastRefreshTime());
+            // Values of the last version are dropped, each one is evaluated again on first use.
+            ContainerValues values = app.getContainerValues();
+            values.update(version, ContainerValues.of(container));
+            // Register the custom function call macros to the container.
+            MacroRegistry macros = app.getMacroRegistry();
+            for (String name : macros.getNames()) {
+                container.registerFunctionCallMacroCallback(name, macros);
+            }
+            // Register a custom function call tag to the container.
+            container.registerFunctionCallTagCallback(CustomTags.CUSTOM_TAG, app.getTagExecutor());
+            // Take up the sampling and rate limits of this container version.
+            app.updateHitThrottle(values.getString(HIT_THROTTLE_KEY));
+            // Open screens pick up the changes of this container version from the repository.
+            app.getCatalogRepository().publish(version,
+                    values.getString(MainActivity.ADJECTIVE_KEY),
+                    values.getString(MainActivity.CATEGORY_KEY));
         }
     }
 }
@@ -0,0 +1,287 @@
+/*
+ * Copyright 2026 Basit Parkar.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ *  @date 10/17/26 3:05 PM
+ *  @modified 10/17/26 3:05 PM
+ */
+
+package me.iz.mobility.googletagmanagerdemo;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs the application start up work as a graph of named tasks. A task is started on the
+ * executor as soon as all the tasks it depends on have finished, so independent tasks run
+ * concurrently. Deferred tasks additionally wait for {@link #startDeferred()}, which the app
+ * calls once the first frame is on screen.
+ * <p/>
+ * Every task is timed, and phases measured elsewhere (eg. the container load) can be added with
+ * {@link #record(String, long, long)}, so the whole cold start can be read from
+ * {@link #getTimings()}.
+ */
+public class StartupPipeline {
+
+    public static final class Timing {
+        public final String name;
+        // Relative to the creation of the pipeline.
+        public final long startNanos;
+        public final long durationNanos;
+        public final boolean failed;
+
+        Timing(String name, long startNanos, long durationNanos, boolean failed) {
+            this.name = name;
+            this.startNanos = startNanos;
+            this.durationNanos = durationNanos;
+            this.failed = failed;
+        }
+
+        @Override
+        public String toString() {
+            return name + " +" + TimeUnit.NANOSECONDS.toMillis(startNanos) + "ms "
+                    + TimeUnit.NANOSECONDS.toMicros(durationNanos) / 1000f + "ms"
+                    + (failed ? " FAILED" : "");
+        }
+    }
+
+    private final Executor executor;
+    private final long createdNanos = System.nanoTime();
+    private final Map<String, Task> tasks = new LinkedHashMap<>();
+    private final List<Timing> timings = new ArrayList<>();
+    private final AtomicBoolean deferredStarted = new AtomicBoolean();
+    private volatile boolean started;
+
+    public StartupPipeline(Executor executor) {
+        this.executor = executor;
+    }
+
+    /**
+     * Adds a task that starts as soon as its dependencies are done. Dependencies must have been
+     * added before, which also rules out cycles.
+     */
+    public StartupPipeline task(String name, Runnable body, String... dependsOn) {
+        return add(name, body, false, dependsOn);
+    }
+
+    /**
+     * Adds a task that also waits for {@link #startDeferred()}, for work that is not needed to
+     * show the first screen.
+     */
+    public StartupPipeline deferredTask(String name, Runnable body, String... dependsOn) {
+        return add(name, body, true, dependsOn);
+    }
+
+    private synchronized StartupPipeline add(String name, Runnable body, boolean deferred,
+                                             String... dependsOn) {
+        if (started) {
+            throw new IllegalStateException("Pipeline already started");
+        }
+        if (tasks.containsKey(name)) {
+            throw new IllegalArgumentException("Duplicate task " + name);
+        }
+        Task task = new Task(name, body, deferred, dependsOn.length);
+        for (String dependency : dependsOn) {
+            Task parent = tasks.get(dependency);
+            if (parent == null) {
+                throw new IllegalArgumentException(name + " depends on unknown task " + dependency);
+            }
+            parent.dependents.add(task);
+        }
+        tasks.put(name, task);
+        return this;
+    }
+
+    /**
+     * Starts every task that doesn't depend on anything.
+     */
+    public void start() {
+        synchronized (this) {
+            if (started) {
+                return;
+            }
+            started = true;
+        }
+        for (Task task : tasks.values()) {
+            if (task.remaining.get() == 0) {
+                schedule(task);
+            }
+        }
+    }
+
+    /**
+     * Lets the deferred tasks run once their dependencies are done.
+     */
+    public void startDeferred() {
+        if (!deferredStarted.compareAndSet(false, true)) {
+            return;
+        }
+        for (Task task : tasks.values()) {
+            if (task.deferred && task.remaining.get() == 0) {
+                schedule(task);
+            }
+        }
+    }
+
+    public boolean isDeferredStarted() {
+        return deferredStarted.get();
+    }
+
+    /**
+     * Blocks until the task has run, or was skipped because one of its dependencies failed.
+     *
+     * @return false if the task failed or was skipped.
+     */
+    public boolean await(String name) {
+        Task task = tasks.get(name);
+        if (task == null) {
+            throw new IllegalArgumentException("Unknown task " + name);
+        }
+        boolean interrupted = false;
+        while (true) {
+            try {
+                task.done.await();
+                break;
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+        return task.failure == null;
+    }
+
+    /**
+     * @return true if the task has finished, successfully or not.
+     */
+    public boolean isDone(String name) {
+        Task task = tasks.get(name);
+        return task != null && task.done.getCount() == 0;
+    }
+
+    /**
+     * @return the exception thrown by the task or the reason it was skipped, or null.
+     */
+    public Throwable getFailure(String name) {
+        Task task = tasks.get(name);
+        return task != null ? task.failure : null;
+    }
+
+    /**
+     * Adds a phase that was timed outside of the pipeline, with {@link System#nanoTime()}
+     * timestamps.
+     */
+    public void record(String phase, long startNanos, long endNanos) {
+        addTiming(new Timing(phase, startNanos - createdNanos, endNanos - startNanos, false));
+    }
+
+    /**
+     * Adds a phase that started when the pipeline was created.
+     */
+    public void recordSinceStart(String phase) {
+        record(phase, createdNanos, System.nanoTime());
+    }
+
+    /**
+     * @return the timings of every finished task and recorded phase, ordered by start time.
+     */
+    public List<Timing> getTimings() {
+        List<Timing> copy;
+        synchronized (timings) {
+            copy = new ArrayList<>(timings);
+        }
+        Collections.sort(copy, new Comparator<Timing>() {
+            @Override
+            public int compare(Timing a, Timing b) {
+                return a.startNanos < b.startNanos ? -1 : a.startNanos == b.startNanos ? 0 : 1;
+            }
+        });
+        return copy;
+    }
+
+    private void addTiming(Timing timing) {
+        synchronized (timings) {
+            timings.add(timing);
+        }
+    }
+
+    private void schedule(final Task task) {
+        if (task.deferred && !deferredStarted.get()) {
+            return;
+        }
+        if (!task.scheduled.compareAndSet(false, true)) {
+            return;
+        }
+        executor.execute(new Runnable() {
+            @Override
+            public void run() {
+                runTask(task);
+            }
+        });
+    }
+
+    private void runTask(Task task) {
+        long start = System.nanoTime();
+        if (task.failure == null) {
+            try {
+                task.body.run();
+            } catch (RuntimeException e) {
+                task.failure = e;
+            } catch (Error e) {
+                task.failure = e;
+            }
+        }
+        addTiming(new Timing(task.name, start - createdNanos, System.nanoTime() - start,
+                task.failure != null));
+        task.done.countDown();
+
+        for (Task dependent : task.dependents) {
+            if (task.failure != null && dependent.failure == null) {
+                dependent.failure = new IllegalStateException(
+                        "Skipped, " + task.name + " failed", task.failure);
+            }
+            if (dependent.remaining.decrementAndGet() == 0) {
+                schedule(dependent);
+            }
+        }
+    }
+
+    private static final class Task {
+        final String name;
+        final Runnable body;
+        final boolean deferred;
+        final AtomicInteger remaining;
+        final List<Task> dependents = new ArrayList<>();
+        final AtomicBoolean scheduled = new AtomicBoolean();
+        final CountDownLatch done = new CountDownLatch(1);
+        volatile Throwable failure;
+
+        Task(String name, Runnable body, boolean deferred, int dependencies) {
+            this.name = name;
+            this.body = body;
+            this.deferred = deferred;
+            this.remaining = new AtomicInteger(dependencies);
+        }
+    }
+}
@@ -0,0 +1,390 @@
+/*
+ * Copyright 2026 Basit Parkar.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ *  @date 10/18/26 4:10 AM
+ *  @modified 10/18/26 4:10 AM
+ */
+
+package me.iz.mobility.googletagmanagerdemo;
+
+import com.google.android.gms.tagmanager.Container.FunctionCallTagCallback;
+
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Runs function call tags on a pool of worker threads, so the container's tag evaluation never
+ * waits for a tag's work. Register it with the container for each tag name it has a
+ * {@link Tag} for.
+ * <p/>
+ * At most {@code capacity} firings wait at a time, what happens to the next one is decided by
+ * the {@link Overflow} policy. Each tag has a limit on how many of its firings run at once and
+ * on how long one may run, after which its worker is interrupted.
+ */
+public class TagExecutor implements FunctionCallTagCallback {
+
+    public enum Overflow {
+        /**
+         * Drops the firing that has waited the longest to make room. Firings held back by their
+         * tag's concurrency limit are not dropped, if only those are waiting the new one is.
+         */
+        DROP_OLDEST,
+        /**
+         * Drops the new firing.
+         */
+        DROP_NEWEST,
+        /**
+         * Blocks the thread that fires the tag until there is room.
+         */
+        BLOCK,
+    }
+
+    public interface Tag {
+        /**
+         * Called on a worker thread. Should give up when the thread is interrupted, which
+         * happens once the tag's timeout has passed.
+         */
+        void execute(Map<String, Object> parameters) throws Exception;
+    }
+
+    private static final class TagState {
+        final Tag tag;
+        final int maxConcurrent;
+        final long timeoutNanos;
+        // Guarded by this.
+        int running;
+        final ArrayDeque<Job> held = new ArrayDeque<>();
+
+        TagState(Tag tag, int maxConcurrent, long timeoutNanos) {
+            this.tag = tag;
+            this.maxConcurrent = maxConcurrent;
+            this.timeoutNanos = timeoutNanos;
+        }
+    }
+
+    /**
+     * One firing of a tag. Runs as the timeout on the watchdog.
+     */
+    private static final class Job implements Runnable {
+        static final int RUNNING = 1;
+        static final int DONE = 2;
+        static final int TIMED_OUT = 3;
+
+        final TagState tag;
+        final Map<String, Object> parameters;
+        final long queuedNanos;
+        final AtomicInteger state = new AtomicInteger();
+        volatile Thread worker;
+
+        Job(TagState tag, Map<String, Object> parameters, long queuedNanos) {
+            this.tag = tag;
+            this.parameters = parameters;
+            this.queuedNanos = queuedNanos;
+        }
+
+        @Override
+        public synchronized void run() {
+            // The worker syncs on the job before clearing the interrupt, so it can't clear it
+            // before it was made.
+            if (state.compareAndSet(RUNNING, TIMED_OUT)) {
+                worker.interrupt();
+            }
+        }
+    }
+
+    private static final Job STOP = new Job(null, null, 0);
+
+    private final int workerCount;
+    private final int capacity;
+    private final Overflow overflow;
+    private final Map<String, TagState> tags = new ConcurrentHashMap<>();
+    private final LinkedBlockingDeque<Job> queue = new LinkedBlockingDeque<>();
+    private final Semaphore slots;
+    private final LatencyHistogram waitLatency = new LatencyHistogram();
+    private final LatencyHistogram executionLatency = new LatencyHistogram();
+
+    private final AtomicLong fired = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicLong completed = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicLong timedOut = new AtomicLong();
+
+    private Thread[] workers;
+    private ScheduledThreadPoolExecutor watchdog;
+    private volatile boolean stopped;
+
+    /**
+     * @param workers  number of worker threads.
+     * @param capacity maximum number of firings waiting to run.
+     * @param overflow what to do with a firing when {@code capacity} are already waiting.
+     */
+    public TagExecutor(int workers, int capacity, Overflow overflow) {
+        if (workers < 1 || capacity < 1) {
+            throw new IllegalArgumentException("workers and capacity must be positive");
+        }
+        this.workerCount = workers;
+        this.capacity = capacity;
+        this.overflow = overflow;
+        this.slots = new Semaphore(capacity);
+    }
+
+    /**
+     * Adds or replaces the tag of a name.
+     *
+     * @param maxConcurrent how many firings of the tag may run at once.
+     * @param timeoutMillis how long a firing may run before its worker is interrupted, 0 for no
+     *                      limit.
+     */
+    public TagExecutor register(String name, Tag tag, int maxConcurrent, long timeoutMillis) {
+        if (maxConcurrent < 1) {
+            throw new IllegalArgumentException("maxConcurrent must be positive: " + maxConcurrent);
+        }
+        tags.put(name, new TagState(tag, maxConcurrent,
+                TimeUnit.MILLISECONDS.toNanos(timeoutMillis)));
+        return this;
+    }
+
+    public synchronized void start() {
+        if (workers != null || stopped) {
+            return;
+        }
+        watchdog = new ScheduledThreadPoolExecutor(1, new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable runnable) {
+                Thread thread = new Thread(runnable, "TagWatchdog");
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        workers = new Thread[workerCount];
+        for (int i = 0; i < workerCount; i++) {
+            Thread t = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    work();
+                }
+            }, "TagWorker-" + i);
+            t.setDaemon(true);
+            t.setPriority(Thread.MIN_PRIORITY);
+            workers[i] = t;
+            t.start();
+        }
+    }
+
+    /**
+     * Stops the workers after running every firing that is waiting. Later firings are dropped.
+     */
+    public synchronized void shutdown() throws InterruptedException {
+        if (stopped) {
+            return;
+        }
+        stopped = true;
+        if (workers == null) {
+            return;
+        }
+        for (int i = 0; i < workers.length; i++) {
+            queue.offerLast(STOP);
+        }
+        for (Thread t : workers) {
+            t.join();
+        }
+        watchdog.shutdownNow();
+    }
+
+    /**
+     * Queues a firing of the tag. Only blocks with {@link Overflow#BLOCK} and a full queue.
+     */
+    @Override
+    public void execute(String tagName, Map<String, Object> parameters) {
+        TagState tag = tags.get(tagName);
+        if (tag == null) {
+            throw new IllegalArgumentException("Custom tag name: " + tagName + " is not supported.");
+        }
+        fired.incrementAndGet();
+        // The container's map may be reused once this returns.
+        Job job = new Job(tag, new HashMap<>(parameters), System.nanoTime());
+        if (stopped || !acquireSlot()) {
+            dropped.incrementAndGet();
+            return;
+        }
+        queue.offerLast(job);
+    }
+
+    private boolean acquireSlot() {
+        if (slots.tryAcquire()) {
+            return true;
+        }
+        switch (overflow) {
+            case DROP_OLDEST:
+                Job oldest = queue.pollFirst();
+                if (oldest == STOP) {
+                    // Lost a race with shutdown.
+                    queue.offerFirst(oldest);
+                    return false;
+                }
+                if (oldest != null) {
+                    // Its slot goes to the new firing.
+                    dropped.incrementAndGet();
+                    return true;
+                }
+                return slots.tryAcquire();
+            case BLOCK:
+                try {
+                    slots.acquire();
+                    return true;
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return false;
+                }
+            default:
+                return false;
+        }
+    }
+
+    private void work() {
+        while (true) {
+            Job job;
+            try {
+                job = queue.takeFirst();
+            } catch (InterruptedException e) {
+                // Only the tags are interrupted, and the interrupt is cleared after each.
+                continue;
+            }
+            if (job == STOP) {
+                return;
+            }
+            TagState tag = job.tag;
+            synchronized (tag) {
+                if (tag.running >= tag.maxConcurrent) {
+                    // Run by the worker of the tag that finishes next.
+                    tag.held.addLast(job);
+                    continue;
+                }
+                tag.running++;
+            }
+            while (job != null) {
+                run(job);
+                synchronized (tag) {
+                    job = tag.held.pollFirst();
+                    if (job == null) {
+                        tag.running--;
+                    }
+                }
+            }
+        }
+    }
+
+    private void run(Job job) {
+        slots.release();
+        long start = System.nanoTime();
+        waitLatency.record(start - job.queuedNanos);
+        TagState tag = job.tag;
+        job.worker = Thread.currentThread();
+        job.state.set(Job.RUNNING);
+        ScheduledFuture<?> timeout = tag.timeoutNanos > 0
+                ? watchdog.schedule(job, tag.timeoutNanos, TimeUnit.NANOSECONDS) : null;
+        boolean threw = false;
+        try {
+            tag.tag.execute(job.parameters);
+        } catch (Exception e) {
+            threw = true;
+        } finally {
+            if (timeout != null && timeout.cancel(false)) {
+                // Out of the delay queue right away, not when it would have fired, so it doesn't
+                // keep the job and its parameters around. setRemoveOnCancelPolicy does this, but
+                // Android only has it from API 21.
+                watchdog.remove((Runnable) timeout);
+            }
+            if (!job.state.compareAndSet(Job.RUNNING, Job.DONE)) {
+                synchronized (job) {
+                    Thread.interrupted();
+                }
+                timedOut.incrementAndGet();
+            } else if (threw) {
+                failed.incrementAndGet();
+            } else {
+                completed.incrementAndGet();
+            }
+            executionLatency.record(System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * @return the number of firings waiting to run, including the ones held back by their tag's
+     * concurrency limit.
+     */
+    public int getQueueDepth() {
+        return capacity - slots.availablePermits();
+    }
+
+    public long getFiredCount() {
+        return fired.get();
+    }
+
+    public long getDroppedCount() {
+        return dropped.get();
+    }
+
+    public long getCompletedCount() {
+        return completed.get();
+    }
+
+    public long getFailedCount() {
+        return failed.get();
+    }
+
+    public long getTimedOutCount() {
+        return timedOut.get();
+    }
+
+    /**
+     * @return how long firings waited between being fired and starting to run.
+     */
+    public LatencyHistogram getWaitLatency() {
+        return waitLatency;
+    }
+
+    /**
+     * @return how long firings ran, including the ones that failed or timed out.
+     */
+    public LatencyHistogram getExecutionLatency() {
+        return executionLatency;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder("TagExecutor{depth=").append(getQueueDepth())
+                .append(", fired=").append(fired)
+                .append(", dropped=").append(dropped)
+                .append(", completed=").append(completed)
+                .append(", failed=").append(failed)
+                .append(", timedOut=").append(timedOut)
+                .append(", wait: ");
+        waitLatency.appendSummary(sb);
+        sb.append(", execution: ");
+        executionLatency.appendSummary(sb);
+        return sb.append('}').toString();
+    }
+}
@@ -0,0 +1,81 @@
+/*
+ * Copyright 2026 Basit Parkar.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ *  @date 10/17/26 9:31 AM
+ *  @modified 10/17/26 9:31 AM
+ */
+
+package me.iz.mobility.googletagmanagerdemo;
+
+import com.google.android.gms.analytics.Tracker;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * {@link HitSink} that builds the GA hit maps and sends them through the {@link Tracker}s of
+ * each hit. Runs on the {@link HitDispatcher} thread or wherever the {@link HitLog} ships from,
+ * so none of this work happens on the UI thread.
+ * <p/>
+ * A hit that goes to several trackers has its map built once, each tracker adds its own
+ * tracking id and other settings to it when sending.
+ */
+class TrackerHitSink implements HitSink {
+
+    private static final GTMDemo.TrackerName[] TRACKER_NAMES = GTMDemo.TrackerName.values();
+
+    private final GTMDemo application;
+    // Guarded by this, created on first use.
+    private final Tracker[] trackers = new Tracker[TRACKER_NAMES.length];
+    // Guarded by this. Filled for each hit, the trackers copy it on send.
+    private final Map<String, String> parameters = new HashMap<>();
+
+    TrackerHitSink(GTMDemo application) {
+        this.application = application;
+    }
+
+    @Override
+    public synchronized void send(List<Hit> batch) {
+        for (int i = 0, n = batch.size(); i < n; i++) {
+            Hit hit = batch.get(i);
+            // The tracker copies the map on send, so all of them can share it.
+            Map<String, String> parameters = HitMaps.build(hit, this.parameters);
+            for (int bits = hit.trackers; bits != 0; bits &= bits - 1) {
+                Tracker t = getTracker(Integer.numberOfTrailingZeros(bits));
+                if (hit.type == Hit.Type.SCREEN_VIEW) {
+                    t.setScreenName(hit.screenName);
+                }
+                t.send(parameters);
+            }
+        }
+    }
+
+    /**
+     * @throws IllegalStateException if GoogleAnalytics couldn't be initialized. The batch counts
+     *                               as failed then, the hit log keeps it for a later ship.
+     */
+    private Tracker getTracker(int ordinal) {
+        Tracker t = trackers[ordinal];
+        if (t == null) {
+            t = application.getTracker(TRACKER_NAMES[ordinal]);
+            if (t == null) {
+                throw new IllegalStateException("No tracker, GoogleAnalytics isn't initialized");
+            }
+            trackers[ordinal] = t;
+        }
+        return t;
+    }
+}
@@ -0,0 +1,65 @@
+/*
+ * Copyright 2026 Basit Parkar.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ *  @date 10/17/26 10:40 AM
+ *  @modified 10/17/26 10:40 AM
+ */
+
+package me.iz.mobility.googletagmanagerdemo;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Lock-free, lazily populated map from an enum key to a value, indexed by
+ * {@link Enum#ordinal()}.
+ * <p/>
+ * Lookups of an already created value are a single volatile array read. Creating a value takes
+ * a lock of its own key, so the {@link Factory} is called once per key even if threads race.
+ */
+public final class TrackerRegistry<K extends Enum<K>, V> {
+
+    public interface Factory<K, V> {
+        V create(K key);
+    }
+
+    private final AtomicReferenceArray<V> values;
+    private final Factory<K, V> factory;
+    private final Object[] locks;
+
+    public TrackerRegistry(Class<K> keyType, Factory<K, V> factory) {
+        this.values = new AtomicReferenceArray<>(keyType.getEnumConstants().length);
+        this.factory = factory;
+        this.locks = new Object[values.length()];
+        for (int i = 0; i < locks.length; i++) {
+            locks[i] = new Object();
+        }
+    }
+
+    public V get(K key) {
+        int index = key.ordinal();
+        V value = values.get(index);
+        if (value != null) {
+            return value;
+        }
+        synchronized (locks[index]) {
+            value = values.get(index);
+            if (value == null) {
+                value = factory.create(key);
+                values.set(index, value);
+            }
+            return value;
+        }
+    }
+}
@@ -19,10 +19,10 @@
 
 package me.iz.mobility.googletagmanagerdemo;
 
+import android.app.Activity;
 import android.content.Context;
-
-import com.google.android.gms.tagmanager.DataLayer;
-import com.google.android.gms.tagmanager.TagManager;
+import android.view.View;
+import android.view.ViewTreeObserver;
 
 /**
  * Utility class.
@@ -32,19 +32,62 @@ public class Utils {
         // private constructor.
     }
 
+    /**
+     * Starts the time to first draw of the screen, see {@link ScreenTimings}. Call it first thing
+     * in {@code onCreate}, so inflating the layout is included.
+     */
+    public static void onScreenCreated(Context context, String screenName) {
+        ((GTMDemo) context.getApplicationContext()).getScreenTimings()
+                .onScreenCreated(screenName, System.nanoTime());
+    }
+
     /**
      * Push an "openScreen" event with the given screen name. Tags that match that event will fire.
+     * Also starts timing how long the screen stays open, and records its first draw if it was
+     * just created.
      */
     public static void pushOpenScreenEvent(Context context, String screenName) {
-        DataLayer dataLayer = TagManager.getInstance(context).getDataLayer();
-        dataLayer.pushEvent("openScreen", DataLayer.mapOf("screenName", screenName));
+        getDataLayer(context).pushOpenScreenEvent(screenName);
+        ScreenTimings timings = ((GTMDemo) context.getApplicationContext()).getScreenTimings();
+        timings.onScreenOpened(screenName, System.nanoTime());
+        if (context instanceof Activity) {
+            // The first frame comes after onStart, the window is set up by then.
+            recordFirstDraw((Activity) context, timings, screenName);
+        }
+    }
+
+    private static void recordFirstDraw(Activity activity, final ScreenTimings timings,
+                                        final String screenName) {
+        final View decorView = activity.getWindow().getDecorView();
+        decorView.getViewTreeObserver().addOnPreDrawListener(new ViewTreeObserver.OnPreDrawListener() {
+            @Override
+            public boolean onPreDraw() {
+                decorView.getViewTreeObserver().removeOnPreDrawListener(this);
+                // Runs right before the frame is drawn, post to get past it.
+                decorView.post(new Runnable() {
+                    @Override
+                    public void run() {
+                        timings.onScreenDrawn(screenName, System.nanoTime());
+                    }
+                });
+                return true;
+            }
+        });
     }
 
     /**
      * Push a "closeScreen" event with the given screen name. Tags that match that event will fire.
      */
     public static void pushCloseScreenEvent(Context context, String screenName) {
-        DataLayer dataLayer = TagManager.getInstance(context).getDataLayer();
-        dataLayer.pushEvent("closeScreen", DataLayer.mapOf("screenName", screenName));
+        getDataLayer(context).pushCloseScreenEvent(screenName);
+        ((GTMDemo) context.getApplicationContext()).getScreenTimings()
+                .onScreenClosed(screenName, System.nanoTime());
+    }
+
+    /**
+     * @return the app's data layer, pushes to it are applied in order off the calling thread.
+     */
+    public static DataLayerFacade getDataLayer(Context context) {
+        return ((GTMDemo) context.getApplicationContext()).getDataLayer();
     }
 }
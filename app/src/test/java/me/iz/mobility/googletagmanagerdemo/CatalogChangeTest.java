@@ -0,0 +1,85 @@
+package me.iz.mobility.googletagmanagerdemo;
+
+import org.junit.Test;
+
+import java.util.HashMap;
+
+import static org.junit.Assert.*;
+
+public class CatalogChangeTest {
+
+    private static CatalogSnapshot snapshot(String version, String adjective, String json) {
+        return new CatalogSnapshot(version, adjective, json,
+                CatalogParser.parse(json, new HashMap<String, String>()));
+    }
+
+    private static final String BUNNY = "{\"name\": \"Bunny\", \"image_files\": [\"bunny_1\", \"bunny_2\"]}";
+    private static final String TIGER = "{\"name\": \"Tiger\", \"image_files\": [\"tiger_1\"]}";
+    private static final String TIGER_MORE =
+            "{\"name\": \"Tiger\", \"image_files\": [\"tiger_2\", \"tiger_1\"]}";
+
+    @Test
+    public void firstChange_coversEverything() {
+        CatalogChange change = CatalogChange.compute(null,
+                snapshot("1", "Cute", "[" + BUNNY + "," + TIGER + "]"));
+
+        assertFalse(change.isEmpty());
+        assertTrue(change.isAdjectiveChanged());
+        assertTrue(change.isCategoryChanged("Bunny"));
+        assertNull(change.getImageRows("Bunny"));
+        assertEquals(0, change.categories.oldKeys.length);
+        assertArrayEquals(new String[]{"Bunny", "Tiger"}, change.categories.newKeys);
+    }
+
+    @Test
+    public void sameCatalog_newVersion_isEmpty() {
+        String json = "[" + BUNNY + "," + TIGER + "]";
+        CatalogChange change = CatalogChange.compute(snapshot("1", "Cute", json),
+                snapshot("2", "Cute", json));
+
+        assertTrue(change.isEmpty());
+        assertFalse(change.isCategoryChanged("Bunny"));
+    }
+
+    @Test
+    public void adjectiveOnly_isNotEmpty() {
+        String json = "[" + BUNNY + "]";
+        CatalogChange change = CatalogChange.compute(snapshot("1", "Cute", json),
+                snapshot("2", "Fluffy", json));
+
+        assertFalse(change.isEmpty());
+        assertTrue(change.isAdjectiveChanged());
+        assertFalse(change.isCategoryChanged("Bunny"));
+        // The row shows the adjective, so it is rebound.
+        assertEquals(1, change.categories.diff.size());
+    }
+
+    @Test
+    public void changedImages_onlyThatCategoryHasRows() {
+        CatalogChange change = CatalogChange.compute(
+                snapshot("1", "Cute", "[" + BUNNY + "," + TIGER + "]"),
+                snapshot("2", "Cute", "[" + BUNNY + "," + TIGER_MORE + "]"));
+
+        assertFalse(change.isAdjectiveChanged());
+        assertFalse(change.isCategoryChanged("Bunny"));
+        assertTrue(change.isCategoryChanged("Tiger"));
+        // Only the Tiger row shows something else.
+        assertEquals(1, change.categories.diff.size());
+
+        CatalogChange.Rows images = change.getImageRows("Tiger");
+        assertArrayEquals(new String[]{"tiger_1"}, images.oldKeys);
+        assertArrayEquals(new String[]{"tiger_2", "tiger_1"}, images.newKeys);
+        assertEquals(1, images.diff.size());
+    }
+
+    @Test
+    public void removedCategory_isChangedWithoutRows() {
+        CatalogChange change = CatalogChange.compute(
+                snapshot("1", "Cute", "[" + BUNNY + "," + TIGER + "]"),
+                snapshot("2", "Cute", "[" + BUNNY + "]"));
+
+        assertTrue(change.isCategoryChanged("Tiger"));
+        assertNull(change.getImageRows("Tiger"));
+        assertEquals(1, change.categories.diff.size());
+    }
+}
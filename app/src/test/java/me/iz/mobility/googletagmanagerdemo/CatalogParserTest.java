@@ -0,0 +1,88 @@
+package me.iz.mobility.googletagmanagerdemo;
+
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+public class CatalogParserTest {
+
+    @Test
+    public void parse_sampleCatalog() throws Exception {
+        CategoryCatalog catalog = CatalogParser.parse("[\n"
+                + "  {\"name\": \"Bunny\", \"image_files\": [\"bunny_1\", \"bunny_2\", \"bunny_3\"]},\n"
+                + "  {\"name\": \"Tiger\", \"image_files\": [\"tiger_1\", \"tiger_2\"]}\n"
+                + "]", new HashMap<String, String>());
+
+        assertEquals(2, catalog.size());
+        assertEquals("Bunny", catalog.getName(0));
+        assertArrayEquals(new String[]{"bunny_1", "bunny_2", "bunny_3"}, catalog.getImages(0));
+        assertEquals("Tiger", catalog.getName(1));
+        assertEquals(2, catalog.getImageCount(1));
+        assertEquals("tiger_2", catalog.getImage(1, 1));
+        assertEquals(1, catalog.indexOf("Tiger"));
+    }
+
+    @Test
+    public void parse_emptyCatalogAndEmptyImages() throws Exception {
+        assertEquals(0, CatalogParser.parse(" [ ] ", new HashMap<String, String>()).size());
+
+        CategoryCatalog catalog = CatalogParser.parse(
+                "[{\"image_files\":[],\"name\":\"Cat\"},{\"name\":\"Dog\"}]",
+                new HashMap<String, String>());
+        assertEquals(0, catalog.getImageCount(0));
+        assertEquals("Dog", catalog.getName(1));
+        assertEquals(0, catalog.getImageCount(1));
+    }
+
+    @Test
+    public void parse_skipsUnknownKeysAndDecodesEscapes() throws Exception {
+        CategoryCatalog catalog = CatalogParser.parse("[{\"id\": 12.5e3, \"tags\": [true, null, {\"a\": []}],"
+                + " \"name\": \"Sea \\\"lion\\\" \\u00e9\", \"image_files\": [\"a\\/b\"]}]",
+                new HashMap<String, String>());
+
+        assertEquals("Sea \"lion\" \u00e9", catalog.getName(0));
+        assertEquals("a/b", catalog.getImage(0, 0));
+    }
+
+    @Test
+    public void parse_reusesPooledStrings() throws Exception {
+        String bunny = new String("Bunny");
+        Map<String, String> pool = new HashMap<>();
+        pool.put(bunny, bunny);
+
+        CategoryCatalog catalog = CatalogParser.parse(
+                "[{\"name\": \"Bunny\", \"image_files\": [\"x\"]}, {\"name\": \"Owl\", \"image_files\": [\"x\"]}]",
+                pool);
+
+        assertSame(bunny, catalog.getName(0));
+        assertSame(catalog.getImage(0, 0), catalog.getImage(1, 0));
+    }
+
+    @Test
+    public void parse_growsPastInitialCapacity() throws Exception {
+        StringBuilder json = new StringBuilder("[");
+        for (int i = 0; i < 1000; i++) {
+            json.append(i == 0 ? "" : ",").append("{\"name\":\"c").append(i)
+                    .append("\",\"image_files\":[\"a").append(i).append("\",\"b").append(i).append("\"]}");
+        }
+        CategoryCatalog catalog = CatalogParser.parse(json.append(']').toString(),
+                new HashMap<String, String>());
+
+        assertEquals(1000, catalog.size());
+        assertEquals("c999", catalog.getName(999));
+        assertEquals("b999", catalog.getImage(999, 1));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void parse_rejectsTruncatedInput() throws Exception {
+        CatalogParser.parse("[{\"name\": \"Bunny\", \"image_files\": [\"bunny_1\"", new HashMap<String, String>());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void parse_rejectsCategoryWithoutName() throws Exception {
+        CatalogParser.parse("[{\"image_files\": []}]", new HashMap<String, String>());
+    }
+}
@@ -0,0 +1,282 @@
+package me.iz.mobility.googletagmanagerdemo;
+
+import org.junit.Test;
+
+import java.io.File;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+import static org.junit.Assert.*;
+
+public class CatalogRepositoryTest {
+
+    private static final String JSON = "[{\"name\": \"Bunny\", \"image_files\": [\"bunny_1\"]}]";
+
+    /**
+     * Runs tasks only when asked to, so the test controls when parsing happens.
+     */
+    private static class ManualExecutor implements Executor {
+        final List<Runnable> tasks = new ArrayList<>();
+
+        @Override
+        public void execute(Runnable command) {
+            tasks.add(command);
+        }
+
+        void runAll() {
+            while (!tasks.isEmpty()) {
+                tasks.remove(0).run();
+            }
+        }
+    }
+
+    private static class DirectExecutor implements Executor {
+        @Override
+        public void execute(Runnable command) {
+            command.run();
+        }
+    }
+
+    private static class RecordingCallback implements CatalogRepository.Callback {
+        final List<CategoryCatalog> loaded = new ArrayList<>();
+        final List<Exception> errors = new ArrayList<>();
+
+        @Override
+        public void onCatalogLoaded(CategoryCatalog catalog) {
+            loaded.add(catalog);
+        }
+
+        @Override
+        public void onCatalogError(String json, Exception e) {
+            errors.add(e);
+        }
+    }
+
+    private static class RecordingListener implements CatalogRepository.ChangeListener {
+        final List<CatalogChange> changes = new ArrayList<>();
+
+        @Override
+        public void onCatalogChanged(CatalogChange change) {
+            changes.add(change);
+        }
+    }
+
+    @Test
+    public void sameVersion_isParsedOnce() throws Exception {
+        ManualExecutor parser = new ManualExecutor();
+        CatalogRepository repository = new CatalogRepository(parser, new DirectExecutor(), null);
+        RecordingCallback first = new RecordingCallback();
+        RecordingCallback second = new RecordingCallback();
+        RecordingCallback third = new RecordingCallback();
+
+        repository.load("1", "Cute", JSON, first);
+        // Joins the parse that is already pending.
+        repository.load("1", "Cute", JSON, second);
+        assertEquals(1, parser.tasks.size());
+        parser.runAll();
+
+        repository.load("1", "Cute", JSON, third);
+        assertEquals(0, parser.tasks.size());
+        assertSame(first.loaded.get(0), second.loaded.get(0));
+        assertSame(first.loaded.get(0), third.loaded.get(0));
+        assertSame(first.loaded.get(0), repository.getCached().catalog);
+    }
+
+    @Test
+    public void newVersion_isParsedAgain() throws Exception {
+        ManualExecutor parser = new ManualExecutor();
+        CatalogRepository repository = new CatalogRepository(parser, new DirectExecutor(), null);
+        RecordingCallback callback = new RecordingCallback();
+
+        repository.load("1", "Cute", JSON, callback);
+        parser.runAll();
+        repository.load("2", "Cute", JSON.replace("bunny_1", "bunny_2"), callback);
+        parser.runAll();
+
+        assertEquals(2, callback.loaded.size());
+        assertEquals("bunny_2", callback.loaded.get(1).getImage(0, 0));
+        // Unchanged names keep the instance of the previous version.
+        assertSame(callback.loaded.get(0).getName(0), callback.loaded.get(1).getName(0));
+    }
+
+    @Test
+    public void invalidJson_reportsErrorAndKeepsLastCatalog() throws Exception {
+        ManualExecutor parser = new ManualExecutor();
+        CatalogRepository repository = new CatalogRepository(parser, new DirectExecutor(), null);
+        RecordingCallback callback = new RecordingCallback();
+
+        repository.load("1", "Cute", JSON, callback);
+        parser.runAll();
+        repository.load("2", "Cute", "[{", callback);
+        parser.runAll();
+
+        assertEquals(1, callback.errors.size());
+        assertSame(callback.loaded.get(0), repository.getCached().catalog);
+    }
+
+    @Test
+    public void snapshot_isWrittenAndSatisfiesLoadOfSameVersion() throws Exception {
+        File file = File.createTempFile("catalog", ".snapshot");
+        file.delete();
+        try {
+            ManualExecutor parser = new ManualExecutor();
+            CatalogRepository repository = new CatalogRepository(parser, new DirectExecutor(), file);
+            repository.load("1", "Cute", JSON, new RecordingCallback());
+            parser.runAll();
+            assertTrue(file.exists());
+
+            // Next cold start.
+            parser = new ManualExecutor();
+            repository = new CatalogRepository(parser, new DirectExecutor(), file);
+            final CatalogSnapshot[] snapshot = new CatalogSnapshot[1];
+            repository.loadSnapshot(new CatalogRepository.SnapshotCallback() {
+                @Override
+                public void onSnapshotLoaded(CatalogSnapshot s) {
+                    snapshot[0] = s;
+                }
+            });
+            parser.runAll();
+            assertEquals("Cute", snapshot[0].adjective);
+            assertEquals("bunny_1", snapshot[0].catalog.getImage(0, 0));
+
+            RecordingCallback callback = new RecordingCallback();
+            repository.load("1", "Cute", JSON, callback);
+            assertEquals(0, parser.tasks.size());
+            assertSame(snapshot[0].catalog, callback.loaded.get(0));
+        } finally {
+            file.delete();
+        }
+    }
+
+    @Test
+    public void corruptSnapshot_isDeletedAndReportedAsMissing() throws Exception {
+        File file = File.createTempFile("catalog", ".snapshot");
+        try {
+            CategoryCatalog catalog = CatalogParser.parse(JSON, new HashMap<String, String>());
+            new CatalogSnapshot("1", "Cute", JSON, catalog).write(file);
+            // Flip the last payload byte.
+            RandomAccessFile raf = new RandomAccessFile(file, "rw");
+            raf.seek(raf.length() - 1);
+            int last = raf.read();
+            raf.seek(raf.length() - 1);
+            raf.write(last ^ 0xff);
+            raf.close();
+
+            ManualExecutor parser = new ManualExecutor();
+            CatalogRepository repository = new CatalogRepository(parser, new DirectExecutor(), file);
+            final CatalogSnapshot[] snapshot = new CatalogSnapshot[1];
+            final boolean[] called = new boolean[1];
+            repository.loadSnapshot(new CatalogRepository.SnapshotCallback() {
+                @Override
+                public void onSnapshotLoaded(CatalogSnapshot s) {
+                    snapshot[0] = s;
+                    called[0] = true;
+                }
+            });
+            parser.runAll();
+
+            assertTrue(called[0]);
+            assertNull(snapshot[0]);
+            assertFalse(file.exists());
+        } finally {
+            file.delete();
+        }
+    }
+
+    @Test
+    public void changeListener_getsOnlyChanges() throws Exception {
+        ManualExecutor parser = new ManualExecutor();
+        CatalogRepository repository = new CatalogRepository(parser, new DirectExecutor(), null);
+        RecordingListener listener = new RecordingListener();
+        repository.addChangeListener(listener);
+
+        repository.publish("1", "Cute", JSON);
+        parser.runAll();
+        assertEquals(1, listener.changes.size());
+        assertNull(listener.changes.get(0).previous);
+
+        // A refresh that changed nothing the screens show.
+        repository.publish("2", "Cute", JSON);
+        parser.runAll();
+        assertEquals(1, listener.changes.size());
+
+        String tiger = "[{\"name\": \"Tiger\", \"image_files\": [\"tiger_1\"]}]";
+        repository.publish("3", "Cute", tiger);
+        parser.runAll();
+        assertEquals(2, listener.changes.size());
+        CatalogChange change = listener.changes.get(1);
+        assertEquals("2", change.previous.version);
+        assertEquals("Tiger", change.current.catalog.getName(0));
+        assertTrue(change.isCategoryChanged("Bunny"));
+    }
+
+    @Test
+    public void newListener_getsCurrentCatalogFirst() throws Exception {
+        ManualExecutor parser = new ManualExecutor();
+        CatalogRepository repository = new CatalogRepository(parser, new DirectExecutor(), null);
+        repository.addChangeListener(new RecordingListener());
+        repository.publish("1", "Cute", JSON);
+        parser.runAll();
+
+        RecordingListener late = new RecordingListener();
+        repository.addChangeListener(late);
+        parser.runAll();
+        assertEquals(1, late.changes.size());
+        assertNull(late.changes.get(0).previous);
+        assertEquals("Bunny", late.changes.get(0).current.catalog.getName(0));
+    }
+
+    @Test
+    public void removedListener_getsNothing() throws Exception {
+        ManualExecutor parser = new ManualExecutor();
+        ManualExecutor ui = new ManualExecutor();
+        CatalogRepository repository = new CatalogRepository(parser, ui, null);
+        RecordingListener listener = new RecordingListener();
+        repository.addChangeListener(listener);
+        repository.publish("1", "Cute", JSON);
+        parser.runAll();
+
+        // Computed, but the screen went away before it was delivered.
+        repository.removeChangeListener(listener);
+        ui.runAll();
+        assertTrue(listener.changes.isEmpty());
+    }
+
+    @Test
+    public void emptyJson_publishesEmptyCatalog() throws Exception {
+        ManualExecutor parser = new ManualExecutor();
+        CatalogRepository repository = new CatalogRepository(parser, new DirectExecutor(), null);
+        RecordingListener listener = new RecordingListener();
+        repository.addChangeListener(listener);
+        repository.publish("1", "Cute", JSON);
+        repository.publish("2", "Cute", "");
+        parser.runAll();
+
+        assertEquals(2, listener.changes.size());
+        assertEquals(0, listener.changes.get(1).current.catalog.size());
+    }
+
+    @Test
+    public void snapshot_isPublished() throws Exception {
+        File file = File.createTempFile("catalog", ".snapshot");
+        try {
+            CategoryCatalog catalog = CatalogParser.parse(JSON, new HashMap<String, String>());
+            new CatalogSnapshot("1", "Cute", JSON, catalog).write(file);
+
+            ManualExecutor parser = new ManualExecutor();
+            CatalogRepository repository = new CatalogRepository(parser, new DirectExecutor(), file);
+            RecordingListener listener = new RecordingListener();
+            repository.addChangeListener(listener);
+            repository.publishSnapshot();
+            parser.runAll();
+
+            assertEquals(1, listener.changes.size());
+            assertEquals("Cute", listener.changes.get(0).current.adjective);
+        } finally {
+            file.delete();
+        }
+    }
+}
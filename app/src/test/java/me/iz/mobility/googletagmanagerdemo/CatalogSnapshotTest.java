@@ -0,0 +1,77 @@
+package me.iz.mobility.googletagmanagerdemo;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.HashMap;
+
+import static org.junit.Assert.*;
+
+public class CatalogSnapshotTest {
+
+    private static final String JSON = "[{\"name\": \"Bunny\", \"image_files\": [\"bunny_1\", \"shared\"]},"
+            + " {\"name\": \"K\u00e4tzchen\", \"image_files\": [\"shared\"]}, {\"name\": \"Empty\", \"image_files\": []}]";
+
+    private File file;
+
+    @Before
+    public void setUp() throws Exception {
+        file = File.createTempFile("catalog", ".snapshot");
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        file.delete();
+    }
+
+    @Test
+    public void writeAndRead_roundTrips() throws Exception {
+        CategoryCatalog catalog = CatalogParser.parse(JSON, new HashMap<String, String>());
+        new CatalogSnapshot("42", "Cute", JSON, catalog).write(file);
+
+        CatalogSnapshot snapshot = CatalogSnapshot.read(file);
+
+        assertEquals("42", snapshot.version);
+        assertEquals("Cute", snapshot.adjective);
+        assertTrue(snapshot.matches("42", JSON));
+        assertFalse(snapshot.matches("43", JSON));
+        assertFalse(snapshot.matches("42", JSON + " "));
+        assertEquals(3, snapshot.catalog.size());
+        assertEquals("K\u00e4tzchen", snapshot.catalog.getName(1));
+        assertArrayEquals(catalog.getImages(0), snapshot.catalog.getImages(0));
+        assertArrayEquals(catalog.getImages(1), snapshot.catalog.getImages(1));
+        assertEquals(0, snapshot.catalog.getImageCount(2));
+        // Strings are stored once, so repeated names come back as one instance.
+        assertSame(snapshot.catalog.getImage(0, 1), snapshot.catalog.getImage(1, 0));
+        assertFalse(new File(file.getPath() + ".tmp").exists());
+    }
+
+    @Test(expected = IOException.class)
+    public void read_rejectsOtherFormatVersion() throws Exception {
+        DataOutputStream out = new DataOutputStream(new FileOutputStream(file));
+        out.writeInt(CatalogSnapshot.MAGIC);
+        out.writeInt(CatalogSnapshot.FORMAT_VERSION + 1);
+        out.writeInt(0);
+        out.writeLong(0);
+        out.close();
+
+        CatalogSnapshot.read(file);
+    }
+
+    @Test(expected = IOException.class)
+    public void read_rejectsTruncatedFile() throws Exception {
+        new CatalogSnapshot("1", "Cute", JSON, CatalogParser.parse(JSON, new HashMap<String, String>()))
+                .write(file);
+        RandomAccessFile raf = new RandomAccessFile(file, "rw");
+        raf.setLength(raf.length() - 3);
+        raf.close();
+
+        CatalogSnapshot.read(file);
+    }
+}
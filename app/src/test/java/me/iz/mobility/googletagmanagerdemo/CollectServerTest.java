@@ -0,0 +1,127 @@
+package me.iz.mobility.googletagmanagerdemo;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class CollectServerTest {
+
+    private CollectServer server;
+    private String url;
+
+    @Before
+    public void setUp() throws Exception {
+        server = new CollectServer(100);
+        url = server.start();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        server.shutdown();
+    }
+
+    private int post(String path, String body) throws Exception {
+        HttpURLConnection connection = (HttpURLConnection) new URL(url + path).openConnection();
+        connection.setDoOutput(true);
+        OutputStream out = connection.getOutputStream();
+        out.write(body.getBytes("UTF-8"));
+        out.close();
+        return connection.getResponseCode();
+    }
+
+    @Test
+    public void collectAndBatch_countHitsByType() throws Exception {
+        assertEquals(200, post("/collect", "v=1&tid=UA-1&cid=1&t=event&ec=a&ea=b"));
+        assertEquals(200, post("/batch", "v=1&t=event&ec=a\nv=1&t=screenview&cd=Main\n"));
+
+        assertEquals(3, server.getHitCount());
+        assertEquals(2, server.getHitCount("event"));
+        assertEquals(1, server.getHitCount("screenview"));
+        assertEquals(2, server.getRequestCount());
+        assertEquals("v=1&tid=UA-1&cid=1&t=event&ec=a&ea=b", server.getRecordedHits().get(0));
+    }
+
+    @Test
+    public void unknownPathAndUntypedHits_areBad() throws Exception {
+        assertEquals(404, post("/other", "t=event"));
+        assertEquals(200, post("/collect", "v=1&ec=a"));
+
+        assertEquals(0, server.getHitCount());
+        assertEquals(2, server.getBadRequestCount());
+    }
+
+    @Test
+    public void sink_postsBatchesWithinLimits() throws Exception {
+        MeasurementProtocolSink sink = new MeasurementProtocolSink(url, "UA-1", "client 1");
+        List<Hit> batch = new ArrayList<>();
+        for (int i = 0; i < 45; i++) {
+            batch.add(Hit.event("load", "event", "label " + i));
+        }
+        batch.add(Hit.screenView("Main screen"));
+        sink.send(batch);
+
+        assertEquals(46, server.getHitCount());
+        assertEquals(45, server.getHitCount("event"));
+        // At most MAX_BATCH_HITS per request.
+        assertEquals(3, server.getRequestCount());
+        assertEquals(46, server.getLatency().getCount());
+        String first = server.getRecordedHits().get(0);
+        assertTrue(first, first.startsWith("v=1&tid=UA-1&cid=client+1&"));
+        assertTrue(first, first.contains("&ec=load&"));
+        assertTrue(first, first.contains("&el=label+0&"));
+        assertTrue(server.getRecordedHits().get(45).contains("&cd=Main+screen&"));
+    }
+
+    @Test
+    public void sink_dropsHitsOverTheSizeLimit() throws Exception {
+        MeasurementProtocolSink sink = new MeasurementProtocolSink(url, "UA-1", "1");
+        StringBuilder label = new StringBuilder();
+        while (label.length() <= MeasurementProtocolSink.MAX_HIT_BYTES) {
+            label.append("label");
+        }
+        List<Hit> batch = new ArrayList<>();
+        batch.add(Hit.event("load", "event", label.toString()));
+        batch.add(Hit.event("load", "event", "small"));
+        sink.send(batch);
+
+        assertEquals(1, sink.getDroppedHitCount());
+        assertEquals(1, server.getHitCount());
+    }
+
+    @Test
+    public void sink_fansOutWithTheTrackingIdOfEachTracker() throws Exception {
+        MeasurementProtocolSink sink = new MeasurementProtocolSink(url,
+                new String[]{"UA-APP", "UA-GLOBAL", null}, "1");
+        List<Hit> batch = new ArrayList<>();
+        // App and global tracker, then the ecommerce one only, which has no tracking id.
+        batch.add(Hit.event("load", "event", "label", 0x3));
+        batch.add(Hit.event("load", "event", "label", 0x4));
+        sink.send(batch);
+
+        List<String> hits = server.getRecordedHits();
+        assertEquals(2, hits.size());
+        assertTrue(hits.get(0), hits.get(0).startsWith("v=1&tid=UA-APP&cid=1&"));
+        assertTrue(hits.get(1), hits.get(1).startsWith("v=1&tid=UA-GLOBAL&cid=1&"));
+        // The same encoding behind each prefix.
+        assertEquals(hits.get(0).substring(hits.get(0).indexOf("&t=")),
+                hits.get(1).substring(hits.get(1).indexOf("&t=")));
+        assertEquals(1, server.getRequestCount());
+    }
+
+    @Test(expected = RuntimeException.class)
+    public void sink_failsWhenTheServerIsGone() throws Exception {
+        MeasurementProtocolSink sink = new MeasurementProtocolSink(url, "UA-1", "1");
+        server.shutdown();
+        List<Hit> batch = new ArrayList<>();
+        batch.add(Hit.event("load", "event", "label"));
+        sink.send(batch);
+    }
+}
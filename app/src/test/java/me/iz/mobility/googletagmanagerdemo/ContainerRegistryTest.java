@@ -0,0 +1,142 @@
+package me.iz.mobility.googletagmanagerdemo;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+
+import static org.junit.Assert.*;
+
+public class ContainerRegistryTest {
+
+    /**
+     * Remembers the loads it was asked for, the test decides when and how they finish.
+     */
+    private static class ManualLoader implements ContainerRegistry.Loader<String> {
+        final Map<String, ContainerRegistry.LoadCallback<String>> loads = new LinkedHashMap<>();
+        final List<ContainerRegistry.Spec> specs = new ArrayList<>();
+
+        @Override
+        public void load(ContainerRegistry.Spec spec, ContainerRegistry.LoadCallback<String> callback) {
+            specs.add(spec);
+            loads.put(spec.containerId, callback);
+        }
+
+        void finish(String containerId, String holder) {
+            loads.get(containerId).onLoaded(holder);
+        }
+    }
+
+    private static class DirectExecutor implements Executor {
+        @Override
+        public void execute(Runnable command) {
+            command.run();
+        }
+    }
+
+    private static class CountingListener implements ContainerRegistry.Listener<String> {
+        int calls;
+
+        @Override
+        public void onContainersReady(ContainerRegistry<String> registry) {
+            calls++;
+        }
+    }
+
+    private static ContainerRegistry<String> newRegistry(ManualLoader loader) {
+        return new ContainerRegistry.Builder<String>()
+                .add("GTM-CATALOG", 1, 2000)
+                .add("GTM-EXPERIMENTS", 2, 500)
+                .build(loader, new DirectExecutor());
+    }
+
+    @Test
+    public void loadAll_startsEveryContainerOnce() {
+        ManualLoader loader = new ManualLoader();
+        ContainerRegistry<String> registry = newRegistry(loader);
+
+        registry.loadAll();
+        registry.loadAll();
+
+        assertEquals(2, loader.specs.size());
+        assertEquals("GTM-CATALOG", loader.specs.get(0).containerId);
+        assertEquals(1, loader.specs.get(0).defaultResourceId);
+        assertEquals(500, loader.specs.get(1).timeoutMillis);
+    }
+
+    @Test
+    public void listener_waitsOnlyForItsContainers() {
+        ManualLoader loader = new ManualLoader();
+        ContainerRegistry<String> registry = newRegistry(loader);
+        CountingListener catalog = new CountingListener();
+        CountingListener both = new CountingListener();
+        registry.whenReady(catalog, "GTM-CATALOG");
+        registry.whenReady(both, "GTM-CATALOG", "GTM-EXPERIMENTS");
+        registry.loadAll();
+
+        loader.finish("GTM-CATALOG", "catalog");
+        assertEquals(1, catalog.calls);
+        assertEquals(0, both.calls);
+        assertEquals("catalog", registry.get("GTM-CATALOG"));
+        assertFalse(registry.isReady("GTM-EXPERIMENTS"));
+
+        loader.finish("GTM-EXPERIMENTS", "experiments");
+        assertEquals(1, catalog.calls);
+        assertEquals(1, both.calls);
+    }
+
+    @Test
+    public void readyContainers_callListenerRightAway() {
+        ManualLoader loader = new ManualLoader();
+        ContainerRegistry<String> registry = newRegistry(loader);
+        registry.loadAll();
+        loader.finish("GTM-CATALOG", "catalog");
+
+        CountingListener listener = new CountingListener();
+        registry.whenReady(listener, "GTM-CATALOG");
+        assertEquals(1, listener.calls);
+    }
+
+    @Test
+    public void failedContainer_isReadyWithoutHolder() {
+        ManualLoader loader = new ManualLoader();
+        ContainerRegistry<String> registry = newRegistry(loader);
+        CountingListener listener = new CountingListener();
+        registry.whenReady(listener, "GTM-EXPERIMENTS");
+        registry.loadAll();
+
+        loader.finish("GTM-EXPERIMENTS", null);
+        // A second, late callback is ignored.
+        loader.finish("GTM-EXPERIMENTS", "experiments");
+
+        assertEquals(1, listener.calls);
+        assertTrue(registry.isReady("GTM-EXPERIMENTS"));
+        assertNull(registry.get("GTM-EXPERIMENTS"));
+    }
+
+    @Test
+    public void removedListener_isNotCalled() {
+        ManualLoader loader = new ManualLoader();
+        ContainerRegistry<String> registry = newRegistry(loader);
+        CountingListener listener = new CountingListener();
+        registry.whenReady(listener, "GTM-CATALOG");
+        registry.loadAll();
+
+        registry.removeListener(listener);
+        loader.finish("GTM-CATALOG", "catalog");
+        assertEquals(0, listener.calls);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void unknownContainer_throws() {
+        newRegistry(new ManualLoader()).get("GTM-NONE");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void duplicateContainer_throws() {
+        new ContainerRegistry.Builder<String>().add("GTM-CATALOG", 1, 1).add("GTM-CATALOG", 1, 1);
+    }
+}
@@ -0,0 +1,114 @@
+package me.iz.mobility.googletagmanagerdemo;
+
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+public class ContainerValuesTest {
+
+    /**
+     * Counts how often each value is evaluated.
+     */
+    private static class CountingSource implements ContainerValues.Source {
+        final Map<String, String> strings = new HashMap<>();
+        int reads;
+
+        @Override
+        public String getString(String key) {
+            reads++;
+            return strings.get(key);
+        }
+
+        @Override
+        public long getLong(String key) {
+            reads++;
+            return 42;
+        }
+
+        @Override
+        public boolean getBoolean(String key) {
+            reads++;
+            return true;
+        }
+    }
+
+    private static class CountingParser implements ContainerValues.Parser<Integer> {
+        int calls;
+
+        @Override
+        public Integer parse(String value) {
+            calls++;
+            return Integer.valueOf(value);
+        }
+    }
+
+    @Test
+    public void beforeUpdate_readsDefaults() {
+        ContainerValues values = new ContainerValues();
+
+        assertNull(values.getVersion());
+        assertNull(values.getString("adjective"));
+        assertEquals(0, values.getLong("count"));
+        assertFalse(values.getBoolean("enabled"));
+        assertNull(values.get("count", new CountingParser()));
+    }
+
+    @Test
+    public void values_areEvaluatedOncePerVersion() {
+        ContainerValues values = new ContainerValues();
+        CountingSource source = new CountingSource();
+        source.strings.put("adjective", "Cute");
+        values.update("1", source);
+
+        assertEquals("Cute", values.getString("adjective"));
+        assertEquals("Cute", values.getString("adjective"));
+        assertEquals(42, values.getLong("count"));
+        assertEquals(42, values.getLong("count"));
+        assertTrue(values.getBoolean("enabled"));
+        assertTrue(values.getBoolean("enabled"));
+        assertNull(values.getString("missing"));
+        assertNull(values.getString("missing"));
+        assertEquals(4, source.reads);
+
+        // The same version again keeps what was read.
+        values.update("1", new CountingSource());
+        assertEquals("Cute", values.getString("adjective"));
+    }
+
+    @Test
+    public void newVersion_dropsValues() {
+        ContainerValues values = new ContainerValues();
+        CountingSource first = new CountingSource();
+        first.strings.put("adjective", "Cute");
+        values.update("1", first);
+        assertEquals("Cute", values.getString("adjective"));
+
+        CountingSource second = new CountingSource();
+        second.strings.put("adjective", "Fluffy");
+        values.update("2", second);
+
+        assertEquals("2", values.getVersion());
+        assertEquals("Fluffy", values.getString("adjective"));
+        assertEquals(1, first.reads);
+    }
+
+    @Test
+    public void parsedValues_areParsedOncePerVersion() {
+        ContainerValues values = new ContainerValues();
+        CountingSource source = new CountingSource();
+        source.strings.put("count", "7");
+        values.update("1", source);
+        CountingParser parser = new CountingParser();
+
+        assertEquals(Integer.valueOf(7), values.get("count", parser));
+        assertEquals(Integer.valueOf(7), values.get("count", parser));
+        assertEquals(1, parser.calls);
+
+        values.update("2", source);
+        assertEquals(Integer.valueOf(7), values.get("count", parser));
+        assertEquals(2, parser.calls);
+    }
+}
@@ -0,0 +1,135 @@
+package me.iz.mobility.googletagmanagerdemo;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class DataLayerQueueTest {
+
+    /**
+     * Runs tasks only when asked to, so a burst of pushes can be made before the drain.
+     */
+    private static class ManualExecutor implements Executor {
+        final List<Runnable> tasks = new ArrayList<>();
+
+        @Override
+        public void execute(Runnable command) {
+            tasks.add(command);
+        }
+
+        void runAll() {
+            while (!tasks.isEmpty()) {
+                tasks.remove(0).run();
+            }
+        }
+    }
+
+    private static Map<String, Object> payload(Object value) {
+        return Collections.<String, Object>singletonMap("event", value);
+    }
+
+    @Test
+    public void push_appliesBurstInOrderInOneTask() {
+        ManualExecutor executor = new ManualExecutor();
+        final List<Object> pushed = new ArrayList<>();
+        DataLayerQueue queue = new DataLayerQueue(executor, new DataLayerQueue.Target() {
+            @Override
+            public void push(Map<String, Object> payload) {
+                pushed.add(payload.get("event"));
+            }
+        });
+
+        queue.push(payload("closeScreen"));
+        queue.push(payload("openScreen"));
+        queue.push(payload("refresh"));
+
+        assertEquals(1, executor.tasks.size());
+        assertTrue(pushed.isEmpty());
+        executor.runAll();
+        assertEquals(Arrays.<Object>asList("closeScreen", "openScreen", "refresh"), pushed);
+        assertEquals(3, queue.getPushedCount());
+        assertEquals(1, queue.getBatchCount());
+
+        queue.push(payload("custom_tag"));
+        assertEquals(1, executor.tasks.size());
+        executor.runAll();
+        assertEquals("custom_tag", pushed.get(3));
+    }
+
+    @Test
+    public void push_skipsFailingPayload() {
+        ManualExecutor executor = new ManualExecutor();
+        final List<Object> pushed = new ArrayList<>();
+        DataLayerQueue queue = new DataLayerQueue(executor, new DataLayerQueue.Target() {
+            @Override
+            public void push(Map<String, Object> payload) {
+                if ("bad".equals(payload.get("event"))) {
+                    throw new IllegalStateException();
+                }
+                pushed.add(payload.get("event"));
+            }
+        });
+
+        queue.push(payload("a"));
+        queue.push(payload("bad"));
+        queue.push(payload("b"));
+        executor.runAll();
+
+        assertEquals(Arrays.<Object>asList("a", "b"), pushed);
+        assertEquals(1, queue.getFailedCount());
+    }
+
+    @Test
+    public void push_keepsPerThreadOrderFromManyThreads() throws Exception {
+        final int threads = 4;
+        final int pushesPerThread = 10000;
+        ExecutorService pool = Executors.newFixedThreadPool(3);
+        final List<Integer> pushed = Collections.synchronizedList(new ArrayList<Integer>());
+        final DataLayerQueue queue = new DataLayerQueue(pool, new DataLayerQueue.Target() {
+            @Override
+            public void push(Map<String, Object> payload) {
+                pushed.add((Integer) payload.get("event"));
+            }
+        });
+
+        final CountDownLatch done = new CountDownLatch(threads);
+        for (int t = 0; t < threads; t++) {
+            final int thread = t;
+            new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    for (int i = 0; i < pushesPerThread; i++) {
+                        queue.push(payload(thread * pushesPerThread + i));
+                    }
+                    done.countDown();
+                }
+            }).start();
+        }
+        assertTrue(done.await(10, TimeUnit.SECONDS));
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (queue.getPushedCount() < threads * pushesPerThread && System.nanoTime() < deadline) {
+            Thread.sleep(1);
+        }
+        pool.shutdown();
+
+        assertEquals(threads * pushesPerThread, pushed.size());
+        int[] last = new int[threads];
+        Arrays.fill(last, -1);
+        for (int value : pushed) {
+            int thread = value / pushesPerThread;
+            assertTrue(value > last[thread]);
+            last[thread] = value;
+        }
+    }
+}
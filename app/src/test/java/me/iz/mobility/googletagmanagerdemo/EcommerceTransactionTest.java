@@ -0,0 +1,175 @@
+package me.iz.mobility.googletagmanagerdemo;
+
+import org.junit.Test;
+
+import java.io.UnsupportedEncodingException;
+import java.net.URLEncoder;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+public class EcommerceTransactionTest {
+
+    private static int encodedSize(Map<String, String> parameters)
+            throws UnsupportedEncodingException {
+        int size = 0;
+        for (Map.Entry<String, String> parameter : parameters.entrySet()) {
+            size += parameter.getKey().length() + 1
+                    + URLEncoder.encode(parameter.getValue(), "UTF-8").length();
+        }
+        return size;
+    }
+
+    @Test
+    public void smallCart_isOneHit() {
+        List<Hit> hits = new EcommerceTransaction("T1", EcommerceTransaction.PURCHASE)
+                .setAffiliation("Store")
+                .setTotals(2599, 260, 500)
+                .addProduct("P1", "Bunny food", 1299, 1)
+                .addProduct("P2", null, 650, 2)
+                .addImpression("Search", "P3")
+                .toHits(Hit.APP_TRACKER);
+
+        assertEquals(1, hits.size());
+        Map<String, String> parameters = hits.get(0).parameters;
+        assertEquals("event", parameters.get("&t"));
+        assertEquals("purchase", parameters.get("&pa"));
+        assertEquals("T1", parameters.get("&ti"));
+        assertEquals("Store", parameters.get("&ta"));
+        assertEquals("25.99", parameters.get("&tr"));
+        assertEquals("2.60", parameters.get("&tt"));
+        assertEquals("P1", parameters.get("&pr1id"));
+        assertEquals("Bunny food", parameters.get("&pr1nm"));
+        assertEquals("12.99", parameters.get("&pr1pr"));
+        assertEquals("2", parameters.get("&pr2qt"));
+        assertNull(parameters.get("&pr2nm"));
+        assertEquals("Search", parameters.get("&il1nm"));
+        assertEquals("P3", parameters.get("&il1pi1id"));
+    }
+
+    @Test
+    public void largeCart_isSplitWithinLimits() throws Exception {
+        EcommerceTransaction transaction =
+                new EcommerceTransaction("T2", EcommerceTransaction.PURCHASE).setTotals(100, 0, 0);
+        for (int i = 0; i < 1000; i++) {
+            transaction.addProduct("SKU-" + i, "Product " + i, 100 + i, 1);
+        }
+        List<Hit> hits = transaction.toHits(Hit.APP_TRACKER);
+
+        int products = 0;
+        for (int h = 0; h < hits.size(); h++) {
+            Map<String, String> parameters = hits.get(h).parameters;
+            assertTrue(encodedSize(parameters) <= EcommerceTransaction.MAX_HIT_BYTES);
+            assertNull(parameters.get("&pr" + (EcommerceTransaction.MAX_ITEMS_PER_HIT + 1) + "id"));
+            assertEquals("T2", parameters.get("&ti"));
+            // The totals are only counted once.
+            assertEquals(h == 0, parameters.containsKey("&tr"));
+            for (int k = 1; parameters.containsKey("&pr" + k + "id"); k++) {
+                assertEquals("SKU-" + products, parameters.get("&pr" + k + "id"));
+                products++;
+            }
+        }
+        assertEquals(1000, products);
+        // Each hit is filled before the next one is started.
+        int perHit = (1000 + hits.size() - 1) / hits.size();
+        assertTrue(hits.size() + " hits", perHit > EcommerceTransaction.MAX_ITEMS_PER_HIT / 2);
+    }
+
+    @Test
+    public void longNames_splitBySize() throws Exception {
+        StringBuilder name = new StringBuilder();
+        while (name.length() < 1000) {
+            name.append("Very long product name ");
+        }
+        EcommerceTransaction transaction =
+                new EcommerceTransaction("T3", EcommerceTransaction.CHECKOUT);
+        for (int i = 0; i < 20; i++) {
+            transaction.addProduct("SKU-" + i, name.toString(), 100, 1);
+        }
+        List<Hit> hits = transaction.toHits(Hit.APP_TRACKER);
+
+        assertTrue(hits.size() > 1);
+        for (Hit hit : hits) {
+            assertTrue(encodedSize(hit.parameters) <= EcommerceTransaction.MAX_HIT_BYTES);
+        }
+    }
+
+    @Test
+    public void productTooLongForAnyHit_isRejected() {
+        StringBuilder name = new StringBuilder();
+        while (name.length() <= EcommerceTransaction.MAX_HIT_BYTES) {
+            name.append("Very long product name ");
+        }
+        EcommerceTransaction transaction =
+                new EcommerceTransaction("T5", EcommerceTransaction.PURCHASE);
+        try {
+            transaction.addProduct("SKU-1", name.toString(), 100, 1);
+            fail();
+        } catch (IllegalArgumentException expected) {
+        }
+        try {
+            transaction.addImpression(name.toString(), "SKU-1");
+            fail();
+        } catch (IllegalArgumentException expected) {
+        }
+        assertEquals(0, transaction.getProductCount());
+        assertEquals(0, transaction.getImpressionCount());
+    }
+
+    @Test
+    public void missingIds_areRejected() {
+        EcommerceTransaction transaction =
+                new EcommerceTransaction("T6", EcommerceTransaction.PURCHASE);
+        try {
+            transaction.addProduct(null, "Bunny", 100, 1);
+            fail();
+        } catch (IllegalArgumentException expected) {
+        }
+        try {
+            transaction.addImpression(null, "SKU-1");
+            fail();
+        } catch (IllegalArgumentException expected) {
+        }
+        try {
+            transaction.addImpression("Search", null);
+            fail();
+        } catch (IllegalArgumentException expected) {
+        }
+    }
+
+    @Test
+    public void impressions_areNumberedPerListAndHit() {
+        EcommerceTransaction transaction =
+                new EcommerceTransaction("T4", EcommerceTransaction.DETAIL);
+        for (int i = 0; i < 250; i++) {
+            transaction.addImpression(i % 2 == 0 ? "Search" : "Related", "P" + i);
+        }
+        List<Hit> hits = transaction.toHits(0x4);
+
+        assertEquals(1, hits.size());
+        Map<String, String> parameters = hits.get(0).parameters;
+        assertEquals(0x4, hits.get(0).trackers);
+        assertEquals("Search", parameters.get("&il1nm"));
+        assertEquals("Related", parameters.get("&il2nm"));
+        assertEquals("P248", parameters.get("&il1pi125id"));
+        assertEquals("P249", parameters.get("&il2pi125id"));
+    }
+
+    @Test
+    public void formatCents() {
+        assertEquals("0.05", EcommerceTransaction.formatCents(5));
+        assertEquals("12.30", EcommerceTransaction.formatCents(1230));
+        assertEquals("-1.01", EcommerceTransaction.formatCents(-101));
+    }
+
+    @Test
+    public void encodedLength_matchesUrlEncoder() throws Exception {
+        String[] values = {"plain", "with space", "a/b?c=d", "caf\u00e9", "\u20ac5",
+                "\ud83d\udc30"};
+        for (String value : values) {
+            assertEquals(value, 1 + 1 + URLEncoder.encode(value, "UTF-8").length(),
+                    EcommerceTransaction.encodedLength("k", value));
+        }
+    }
+}
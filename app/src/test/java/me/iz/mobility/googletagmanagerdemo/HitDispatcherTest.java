@@ -0,0 +1,128 @@
+package me.iz.mobility.googletagmanagerdemo;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class HitDispatcherTest {
+
+    private HitDispatcher dispatcher;
+
+    @After
+    public void tearDown() throws Exception {
+        if (dispatcher != null) {
+            dispatcher.shutdown();
+        }
+    }
+
+    @Test
+    public void queue_isFifoAndBounded() throws Exception {
+        HitQueue<Integer> queue = new HitQueue<>(4);
+        for (int i = 0; i < 4; i++) {
+            assertTrue(queue.offer(i));
+        }
+        assertFalse(queue.offer(4));
+        assertEquals(4, queue.size());
+
+        List<Integer> out = new ArrayList<>();
+        assertEquals(3, queue.drainTo(out, 3));
+        assertTrue(queue.offer(5));
+        assertEquals(2, queue.drainTo(out, 10));
+        assertEquals("[0, 1, 2, 3, 5]", out.toString());
+        assertNull(queue.poll());
+    }
+
+    @Test
+    public void fullBatch_isSentBeforeFlushInterval() throws Exception {
+        InMemoryHitSink sink = new InMemoryHitSink();
+        dispatcher = new HitDispatcher(sink, 64, 4, TimeUnit.MINUTES.toMillis(1));
+        dispatcher.start();
+
+        for (int i = 0; i < 8; i++) {
+            assertTrue(dispatcher.dispatch(Hit.event("cat", "action" + i, "label")));
+        }
+
+        assertTrue(sink.awaitHits(8, 5, TimeUnit.SECONDS));
+        assertEquals(2, sink.getBatchCount());
+        assertEquals("action0", sink.getHits().get(0).action);
+        assertEquals("action7", sink.getHits().get(7).action);
+    }
+
+    @Test
+    public void partialBatch_isSentAfterFlushInterval() throws Exception {
+        InMemoryHitSink sink = new InMemoryHitSink();
+        dispatcher = new HitDispatcher(sink, 64, 32, 50);
+        dispatcher.start();
+
+        dispatcher.dispatch(Hit.screenView("MainScreen"));
+
+        assertTrue(sink.awaitHits(1, 5, TimeUnit.SECONDS));
+        assertEquals("MainScreen", sink.getHits().get(0).screenName);
+    }
+
+    @Test
+    public void shutdown_drainsPendingHits() throws Exception {
+        InMemoryHitSink sink = new InMemoryHitSink();
+        dispatcher = new HitDispatcher(sink, 64, 32, TimeUnit.MINUTES.toMillis(1));
+        dispatcher.start();
+
+        for (int i = 0; i < 5; i++) {
+            dispatcher.dispatch(Hit.event("cat", "action", "label"));
+        }
+        dispatcher.shutdown();
+
+        assertEquals(5, sink.getHits().size());
+        assertEquals(5, dispatcher.getSentCount());
+    }
+
+    @Test
+    public void concurrentProducers_deliverEveryHitOnce() throws Exception {
+        final int threads = 4;
+        final int perThread = 10000;
+        InMemoryHitSink sink = new InMemoryHitSink();
+        dispatcher = new HitDispatcher(sink, 1024, 64, 10);
+        dispatcher.start();
+
+        final CountDownLatch start = new CountDownLatch(1);
+        List<Thread> producers = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            final String category = "thread" + t;
+            Thread producer = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        start.await();
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                    for (int i = 0; i < perThread; i++) {
+                        // Spin while the queue is full so that no hit is dropped.
+                        while (!dispatcher.dispatch(Hit.event(category, String.valueOf(i), null))) {
+                            Thread.yield();
+                        }
+                    }
+                }
+            });
+            producers.add(producer);
+            producer.start();
+        }
+        start.countDown();
+        for (Thread producer : producers) {
+            producer.join();
+        }
+
+        assertTrue(sink.awaitHits(threads * perThread, 10, TimeUnit.SECONDS));
+        // Hits of one producer keep their order.
+        int[] next = new int[threads];
+        for (Hit hit : sink.getHits()) {
+            int t = Integer.parseInt(hit.category.substring("thread".length()));
+            assertEquals(next[t]++, Integer.parseInt(hit.action));
+        }
+    }
+}
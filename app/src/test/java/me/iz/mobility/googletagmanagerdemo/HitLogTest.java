@@ -0,0 +1,257 @@
+package me.iz.mobility.googletagmanagerdemo;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class HitLogTest {
+
+    private File dir;
+    private InMemoryHitSink sink;
+
+    @Before
+    public void setUp() throws IOException {
+        dir = File.createTempFile("hits", "");
+        dir.delete();
+        sink = new InMemoryHitSink();
+    }
+
+    @After
+    public void tearDown() {
+        File[] files = dir.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+        dir.delete();
+    }
+
+    private HitLog newLog(long maxSegmentBytes) {
+        return new HitLog(dir, sink, null, maxSegmentBytes, 60 * 60 * 1000, 1024 * 1024, 4);
+    }
+
+    private static List<Hit> events(int from, int count) {
+        List<Hit> hits = new ArrayList<>();
+        for (int i = from; i < from + count; i++) {
+            hits.add(Hit.event("Category", "Action " + i, i % 2 == 0 ? null : "Label"));
+        }
+        return hits;
+    }
+
+    private static List<String> describe(List<Hit> hits) {
+        List<String> out = new ArrayList<>();
+        for (Hit hit : hits) {
+            out.add(hit.toString());
+        }
+        return out;
+    }
+
+    @Test
+    public void send_holdsHitsUntilShipped() {
+        HitLog log = newLog(1024 * 1024);
+
+        log.send(events(0, 3));
+        log.send(Collections.singletonList(Hit.screenView("Main")));
+
+        assertTrue(sink.getHits().isEmpty());
+        assertEquals(4, log.getAppendedCount());
+        assertEquals(2, log.getSyncCount());
+
+        log.ship();
+
+        List<Hit> expected = events(0, 3);
+        expected.add(Hit.screenView("Main"));
+        assertEquals(describe(expected), describe(sink.getHits()));
+        assertEquals(0, log.getSegmentCount());
+        assertEquals(0, dir.listFiles().length);
+    }
+
+    @Test
+    public void send_shipsInBatchesOnceSegmentIsFull() {
+        HitLog log = newLog(200);
+
+        for (int i = 0; i < 10; i++) {
+            log.send(events(i, 1));
+            if (!sink.getHits().isEmpty()) {
+                break;
+            }
+        }
+
+        int shipped = sink.getHits().size();
+        assertTrue(shipped > 4);
+        assertEquals(log.getAppendedCount(), shipped);
+        assertEquals((shipped + 3) / 4, sink.getBatchCount());
+        assertEquals(0, log.getSegmentCount());
+    }
+
+    @Test
+    public void requestShip_shipsWithNextSend() {
+        HitLog log = newLog(1024 * 1024);
+        log.send(events(0, 2));
+
+        log.requestShip();
+        log.send(events(2, 1));
+
+        assertEquals(describe(events(0, 3)), describe(sink.getHits()));
+    }
+
+    @Test
+    public void newLog_replaysSegmentsOfEarlierProcess() {
+        HitLog first = newLog(1024 * 1024);
+        for (int i = 0; i < 6; i++) {
+            first.send(events(i, 1));
+        }
+        // The process dies without shipping or closing the log.
+
+        HitLog second = newLog(1024 * 1024);
+        second.send(events(6, 1));
+        second.ship();
+
+        assertEquals(describe(events(0, 7)), describe(sink.getHits()));
+        assertEquals(0, dir.listFiles().length);
+    }
+
+    @Test
+    public void replay_stopsAtTornRecord() throws IOException {
+        HitLog first = newLog(1024 * 1024);
+        first.send(events(0, 3));
+        File segment = dir.listFiles()[0];
+        RandomAccessFile file = new RandomAccessFile(segment, "rw");
+        try {
+            // Cut the last record in half, as a crash in the middle of a write would.
+            file.setLength(file.length() - 5);
+        } finally {
+            file.close();
+        }
+
+        HitLog second = newLog(1024 * 1024);
+        second.ship();
+
+        assertEquals(describe(events(0, 2)), describe(sink.getHits()));
+        assertEquals(1, second.getCorruptSegmentCount());
+        assertEquals(0, dir.listFiles().length);
+    }
+
+    @Test
+    public void replay_stopsAtCorruptRecord() throws IOException {
+        HitLog first = newLog(1024 * 1024);
+        first.send(events(0, 1));
+        first.send(events(1, 1));
+        File segment = dir.listFiles()[0];
+        RandomAccessFile file = new RandomAccessFile(segment, "rw");
+        try {
+            file.seek(file.length() - 1);
+            int last = file.read();
+            file.seek(file.length() - 1);
+            file.write(last ^ 0xff);
+        } finally {
+            file.close();
+        }
+
+        HitLog second = newLog(1024 * 1024);
+        second.ship();
+
+        assertEquals(describe(events(0, 1)), describe(sink.getHits()));
+        assertEquals(1, second.getCorruptSegmentCount());
+    }
+
+    @Test
+    public void ship_retriesWithoutResendingAfterFailure() {
+        final List<Hit> received = new ArrayList<>();
+        final int[] failAfter = {1};
+        HitLog log = new HitLog(dir, new HitSink() {
+            @Override
+            public void send(List<Hit> batch) {
+                if (failAfter[0]-- == 0) {
+                    throw new IllegalStateException("offline");
+                }
+                received.addAll(batch);
+            }
+        }, null, 1024 * 1024, 60 * 60 * 1000, 1024 * 1024, 2);
+        log.send(events(0, 5));
+
+        log.ship();
+        assertEquals(1, log.getShipFailureCount());
+        assertEquals(2, received.size());
+        assertEquals(1, log.getSegmentCount());
+
+        log.ship();
+        assertEquals(describe(events(0, 5)), describe(received));
+        assertEquals(0, log.getSegmentCount());
+    }
+
+    @Test
+    public void seal_dropsOldestSegmentsBeyondLimit() {
+        HitLog log = new HitLog(dir, new HitSink() {
+            @Override
+            public void send(List<Hit> batch) {
+                throw new IllegalStateException("offline");
+            }
+        }, null, 100, 60 * 60 * 1000, 300, 4);
+
+        for (int i = 0; i < 20; i++) {
+            log.send(events(i, 1));
+        }
+
+        assertTrue(log.getDroppedSegmentCount() > 0);
+        assertTrue(log.getLogBytes() <= 300 + 100 + 64);
+    }
+
+    @Test
+    public void fileName_roundTrips() {
+        assertEquals("00000000000000ff.log", HitLog.fileName(255));
+        assertEquals(255, HitLog.sequenceOf("00000000000000ff.log"));
+        assertEquals(-1, HitLog.sequenceOf("catalog.snapshot"));
+        assertEquals(-1, HitLog.sequenceOf("zz000000000000ff.log"));
+    }
+
+    @Test
+    public void encode_keepsTrackers() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        HitLog.encode(Hit.event("c", "a", "l", 0x5), new DataOutputStream(bytes));
+        HitLog.encode(Hit.screenView("Main", 0x2), new DataOutputStream(bytes));
+        // A record written before hits had trackers.
+        DataOutputStream old = new DataOutputStream(bytes);
+        old.writeByte(Hit.Type.SCREEN_VIEW.ordinal());
+        old.writeBoolean(true);
+        old.writeUTF("Old");
+
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes.toByteArray()));
+        Hit event = HitLog.decode(in);
+        assertEquals("l", event.label);
+        assertEquals(0x5, event.trackers);
+        assertEquals(0x2, HitLog.decode(in).trackers);
+        Hit screenView = HitLog.decode(in);
+        assertEquals("Old", screenView.screenName);
+        assertEquals(Hit.APP_TRACKER, screenView.trackers);
+    }
+
+    @Test
+    public void encode_keepsPrebuiltParameters() throws IOException {
+        Hit purchase = new EcommerceTransaction("T1", EcommerceTransaction.PURCHASE)
+                .addProduct("P1", "Bunny food", 1299, 1)
+                .toHits(0x4).get(0);
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        HitLog.encode(purchase, new DataOutputStream(bytes));
+
+        Hit decoded = HitLog.decode(
+                new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+        assertEquals(purchase.parameters, decoded.parameters);
+        assertEquals("T1", decoded.label);
+        assertEquals(0x4, decoded.trackers);
+    }
+}
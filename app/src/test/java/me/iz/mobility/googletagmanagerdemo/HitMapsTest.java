@@ -0,0 +1,41 @@
+package me.iz.mobility.googletagmanagerdemo;
+
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+public class HitMapsTest {
+
+    @Test
+    public void build_reusingAMap_matchesHitBuilders() {
+        Map<String, String> reuse = new HashMap<>();
+
+        Hit event = Hit.event("animals", "refresh", "pictures");
+        assertEquals(HitMaps.build(event), HitMaps.build(event, reuse));
+
+        Hit screenView = Hit.screenView("Main");
+        assertEquals(HitMaps.build(screenView), HitMaps.build(screenView, reuse));
+    }
+
+    @Test
+    public void build_reusingAMap_fillsTheSameMapForEveryHit() {
+        Map<String, String> reuse = new HashMap<>();
+
+        assertSame(reuse, HitMaps.build(Hit.event("a", "b", "c"), reuse));
+        assertSame(reuse, HitMaps.build(Hit.screenView("Main"), reuse));
+        // Nothing of the event is left over.
+        assertEquals(HitMaps.build(Hit.screenView("Main")), reuse);
+    }
+
+    @Test
+    public void build_reusingAMap_returnsTheSharedMapOfATemplate() {
+        EventTemplate template = new EventTemplate("animals", "refresh", "pictures");
+        Map<String, String> reuse = new HashMap<>();
+
+        assertSame(template.parameters, HitMaps.build(Hit.event(template), reuse));
+        assertTrue(reuse.isEmpty());
+    }
+}
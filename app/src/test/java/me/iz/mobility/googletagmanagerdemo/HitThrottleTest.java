@@ -0,0 +1,133 @@
+package me.iz.mobility.googletagmanagerdemo;
+
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class HitThrottleTest {
+
+    private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    private static int admitted(HitThrottle throttle, String category, String action, int events,
+                                long now) {
+        int count = 0;
+        for (int i = 0; i < events; i++) {
+            if (throttle.admit(category, action, now)) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    @Test
+    public void none_admitsEverything() {
+        assertEquals(1000, admitted(HitThrottle.NONE, "Category", "Clicked", 1000, 0));
+        assertSame(HitThrottle.NONE, HitThrottle.parse(""));
+        assertSame(HitThrottle.NONE, HitThrottle.parse(null));
+    }
+
+    @Test
+    public void sample_keepsShareOfEvents() {
+        HitThrottle throttle = HitThrottle.parse("Category sample=0.1");
+
+        int kept = admitted(throttle, "Category", "Clicked", 100000, 0);
+
+        assertTrue("kept " + kept, kept > 9000 && kept < 11000);
+        assertEquals(100000 - kept, throttle.getSampledOutCount());
+        assertEquals(100, admitted(throttle, "Other", "Clicked", 100, 0));
+    }
+
+    @Test
+    public void sample_zeroAndOne() {
+        HitThrottle throttle = HitThrottle.parse("Off sample=0; On sample=1");
+
+        assertEquals(0, admitted(throttle, "Off", null, 1000, 0));
+        assertEquals(1000, admitted(throttle, "On", null, 1000, 0));
+    }
+
+    @Test
+    public void rate_allowsBurstThenSteadyRate() {
+        HitThrottle throttle = HitThrottle.parse("Category/Clicked rate=2 burst=5");
+        long now = 12345;
+
+        assertEquals(5, admitted(throttle, "Category", "Clicked", 100, now));
+        assertEquals(95, throttle.getRateLimitedCount());
+        // Two per second come back.
+        assertEquals(2, admitted(throttle, "Category", "Clicked", 100, now + SECOND));
+        // A long quiet spell refills the bucket, but only up to the burst.
+        assertEquals(5, admitted(throttle, "Category", "Clicked", 100, now + 60 * SECOND));
+    }
+
+    @Test
+    public void rate_defaultBurstIsOneSecond() {
+        HitThrottle throttle = HitThrottle.parse("* rate=3");
+
+        assertEquals(3, admitted(throttle, "Anything", "Clicked", 100, -5 * SECOND));
+    }
+
+    @Test
+    public void mostSpecificRuleWins() {
+        HitThrottle throttle = HitThrottle.parse(
+                "Category sample=0\nCategory/Clicked sample=1\n* sample=0");
+
+        assertEquals(10, admitted(throttle, "Category", "Clicked", 10, 0));
+        assertEquals(0, admitted(throttle, "Category", "Opened", 10, 0));
+        assertEquals(0, admitted(throttle, "Other", "Clicked", 10, 0));
+        assertEquals(0, admitted(throttle, null, null, 10, 0));
+    }
+
+    @Test
+    public void categoryWithOnlyActionRulesFallsBackToDefault() {
+        HitThrottle throttle = HitThrottle.parse("Category/Clicked sample=1; * sample=0");
+
+        assertEquals(0, admitted(throttle, "Category", "Opened", 10, 0));
+    }
+
+    @Test
+    public void screenViews_useTheirOwnCategory() {
+        HitThrottle throttle = HitThrottle.parse(HitThrottle.SCREEN_VIEW + " sample=0");
+
+        assertFalse(throttle.admit(HitThrottle.SCREEN_VIEW, "Main"));
+        assertTrue(throttle.admit("Category", "Main"));
+    }
+
+    @Test
+    public void parse_rejectsBadRules() {
+        String[] bad = {"Category sample=2", "Category rate=0", "Category rate=1 burst=0",
+                "Category sample=abc", "Category speed=1"};
+        for (String rules : bad) {
+            try {
+                HitThrottle.parse(rules);
+                fail("Accepted: " + rules);
+            } catch (IllegalArgumentException expected) {
+                assertTrue(expected.getMessage(), expected.getMessage().endsWith(rules));
+            }
+        }
+    }
+
+    @Test
+    public void rate_holdsUnderConcurrentCalls() throws Exception {
+        final HitThrottle throttle = HitThrottle.parse("Category rate=1 burst=1000");
+        final long now = 0;
+        Thread[] threads = new Thread[4];
+        for (int t = 0; t < threads.length; t++) {
+            threads[t] = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    for (int i = 0; i < 10000; i++) {
+                        throttle.admit("Category", "Clicked", now);
+                    }
+                }
+            });
+            threads[t].start();
+        }
+        for (Thread t : threads) {
+            t.join();
+        }
+
+        assertEquals(1000, throttle.getAdmittedCount());
+        assertEquals(39000, throttle.getRateLimitedCount());
+    }
+}
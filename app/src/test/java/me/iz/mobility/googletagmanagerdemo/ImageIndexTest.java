@@ -0,0 +1,85 @@
+package me.iz.mobility.googletagmanagerdemo;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+
+import static org.junit.Assert.*;
+
+public class ImageIndexTest {
+
+    private File file;
+
+    @Before
+    public void setUp() throws Exception {
+        file = File.createTempFile("image", ".index");
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        file.delete();
+    }
+
+    @Test
+    public void find_returnsEntriesOfAllNames() {
+        ImageIndex.Builder builder = new ImageIndex.Builder(ImageIndex.EMPTY, 1);
+        for (int i = 0; i < 1000; i++) {
+            builder.add("image_" + i, 0x7f020000 + i, i, 2 * i);
+        }
+        ImageIndex index = builder.build();
+
+        assertEquals(1000, index.size());
+        for (int i = 0; i < 1000; i++) {
+            int entry = index.find("image_" + i);
+            assertEquals("image_" + i, index.getName(entry));
+            assertEquals(0x7f020000 + i, index.getResourceId(entry));
+            assertEquals(i, index.getWidth(entry));
+            assertEquals(2 * i, index.getHeight(entry));
+        }
+        assertEquals(-1, index.find("image_1000"));
+        assertEquals(-1, ImageIndex.EMPTY.find("image_0"));
+    }
+
+    @Test
+    public void builder_keepsEntriesOfSameBuildOnly() {
+        ImageIndex base = new ImageIndex.Builder(ImageIndex.EMPTY, 1).add("bunny_1", 7, 10, 20).build();
+
+        ImageIndex sameBuild = new ImageIndex.Builder(base, 1).add("kitten_1", 8, 30, 40).build();
+        assertEquals(2, sameBuild.size());
+        assertEquals(7, sameBuild.getResourceId(sameBuild.find("bunny_1")));
+        assertEquals(8, sameBuild.getResourceId(sameBuild.find("kitten_1")));
+        assertEquals(1, base.size());
+
+        ImageIndex otherBuild = new ImageIndex.Builder(base, 2).add("kitten_1", 9, 30, 40).build();
+        assertEquals(-1, otherBuild.find("bunny_1"));
+        assertEquals(2, otherBuild.getStamp());
+    }
+
+    @Test
+    public void writeAndRead_roundTrips() throws Exception {
+        new ImageIndex.Builder(ImageIndex.EMPTY, 42)
+                .add("bunny_1", 7, 10, 20)
+                .add("missing", 0, 0, 0)
+                .build()
+                .write(file);
+
+        ImageIndex index = ImageIndex.read(file, 42);
+
+        assertEquals(2, index.size());
+        int entry = index.find("bunny_1");
+        assertEquals(7, index.getResourceId(entry));
+        assertEquals(10, index.getWidth(entry));
+        assertEquals(20, index.getHeight(entry));
+        assertEquals(0, index.getResourceId(index.find("missing")));
+        assertFalse(new File(file.getPath() + ".tmp").exists());
+    }
+
+    @Test
+    public void read_ignoresIndexOfOtherBuild() throws Exception {
+        new ImageIndex.Builder(ImageIndex.EMPTY, 42).add("bunny_1", 7, 10, 20).build().write(file);
+
+        assertNull(ImageIndex.read(file, 43));
+    }
+}
@@ -0,0 +1,81 @@
+package me.iz.mobility.googletagmanagerdemo;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class LatencyHistogramTest {
+
+    @Test
+    public void buckets_coverAllValuesInOrder() {
+        int previous = -1;
+        for (long micros = 0; micros < 1 << 20; micros++) {
+            int bucket = LatencyHistogram.bucketOf(micros);
+            assertTrue(bucket == previous || bucket == previous + 1);
+            assertTrue(micros <= LatencyHistogram.upperBoundOf(bucket));
+            assertTrue(bucket == 0 || micros > LatencyHistogram.upperBoundOf(bucket - 1));
+            previous = bucket;
+        }
+        assertEquals(LatencyHistogram.BUCKETS - 1, LatencyHistogram.bucketOf(Long.MAX_VALUE));
+    }
+
+    @Test
+    public void getPercentile_isWithinBucketError() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        Random random = new Random(3);
+        long[] values = new long[10000];
+        for (int i = 0; i < values.length; i++) {
+            // Between 100 us and 10 s, spread over the powers of ten.
+            values[i] = (long) Math.pow(10, 2 + random.nextDouble() * 5);
+            histogram.record(TimeUnit.MICROSECONDS.toNanos(values[i]));
+        }
+        Arrays.sort(values);
+
+        for (double percentile : new double[]{50, 95, 99}) {
+            long exact = values[(int) Math.ceil(percentile / 100 * values.length) - 1];
+            long estimate = histogram.getPercentile(percentile, TimeUnit.MICROSECONDS);
+            assertTrue(percentile + ": " + estimate + " vs " + exact, estimate >= exact);
+            assertTrue(percentile + ": " + estimate + " vs " + exact,
+                    estimate <= exact + exact / LatencyHistogram.SUB_BUCKETS);
+        }
+        assertEquals(values[values.length - 1], histogram.getMax(TimeUnit.MICROSECONDS));
+        assertEquals(values[values.length - 1], histogram.getPercentile(100, TimeUnit.MICROSECONDS));
+        assertEquals(10000, histogram.getCount());
+    }
+
+    @Test
+    public void emptyHistogram_reportsZero() {
+        LatencyHistogram histogram = new LatencyHistogram();
+
+        assertEquals(0, histogram.getPercentile(99, TimeUnit.MILLISECONDS));
+        assertEquals(0, histogram.getMean(TimeUnit.MILLISECONDS));
+        assertEquals("n=0 p50=0.0ms p95=0.0ms p99=0.0ms max=0.0ms", histogram.toString());
+    }
+
+    @Test
+    public void record_countsFromManyThreads() throws Exception {
+        final LatencyHistogram histogram = new LatencyHistogram();
+        Thread[] threads = new Thread[4];
+        for (int t = 0; t < threads.length; t++) {
+            threads[t] = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    for (int i = 0; i < 100000; i++) {
+                        histogram.record(TimeUnit.MILLISECONDS.toNanos(i % 100));
+                    }
+                }
+            });
+            threads[t].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        assertEquals(400000, histogram.getCount());
+        assertEquals(99, histogram.getMax(TimeUnit.MILLISECONDS));
+    }
+}
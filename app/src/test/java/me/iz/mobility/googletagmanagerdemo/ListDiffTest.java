@@ -0,0 +1,144 @@
+package me.iz.mobility.googletagmanagerdemo;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+
+public class ListDiffTest {
+
+    /**
+     * Applies the operations to a copy of the old rows, the way a RecyclerView would.
+     */
+    private static class Rows implements ListDiff.Target {
+        final List<String> keys;
+        final Set<String> changed = new HashSet<>();
+        int operations;
+
+        Rows(String[] oldKeys) {
+            keys = new ArrayList<>(Arrays.asList(oldKeys));
+        }
+
+        @Override
+        public void onRemoved(int position) {
+            keys.remove(position);
+            operations++;
+        }
+
+        @Override
+        public void onInserted(int position) {
+            keys.add(position, null);
+            operations++;
+        }
+
+        @Override
+        public void onMoved(int fromPosition, int toPosition) {
+            keys.add(toPosition, keys.remove(fromPosition));
+            operations++;
+        }
+
+        @Override
+        public void onChanged(int position) {
+            changed.add(keys.get(position));
+            operations++;
+        }
+    }
+
+    private static Rows apply(String[] oldKeys, int[] oldContents, String[] newKeys, int[] newContents) {
+        ListDiff diff = ListDiff.compute(oldKeys, oldContents, newKeys, newContents, Integer.MAX_VALUE);
+        Rows rows = new Rows(oldKeys);
+        diff.dispatch(rows);
+        assertEquals(diff.size(), rows.operations);
+        // Inserted rows are null, everything else must have ended up in its new place.
+        for (int i = 0; i < newKeys.length; i++) {
+            if (rows.keys.get(i) != null) {
+                assertEquals(newKeys[i], rows.keys.get(i));
+            }
+        }
+        assertEquals(newKeys.length, rows.keys.size());
+        return rows;
+    }
+
+    @Test
+    public void compute_unchangedListHasNoOperations() {
+        String[] keys = {"Bunny", "Tiger", "Kitten"};
+        int[] contents = {3, 2, 1};
+
+        assertEquals(0, ListDiff.compute(keys, contents, keys.clone(), contents.clone(), 10).size());
+    }
+
+    @Test
+    public void compute_onlyTouchesChangedRows() {
+        Rows rows = apply(new String[]{"Bunny", "Tiger", "Kitten", "Puppy"}, new int[]{3, 2, 1, 4},
+                new String[]{"Bunny", "Lion", "Kitten", "Puppy"}, new int[]{3, 5, 7, 4});
+
+        assertEquals(Arrays.asList("Bunny", null, "Kitten", "Puppy"), rows.keys);
+        assertEquals(Collections.singleton("Kitten"), rows.changed);
+        // Tiger removed, Lion inserted, Kitten changed.
+        assertEquals(3, rows.operations);
+    }
+
+    @Test
+    public void compute_movesRowsAndKeepsThem() {
+        Rows rows = apply(new String[]{"A", "B", "C", "D"}, new int[]{1, 2, 3, 4},
+                new String[]{"D", "A", "B", "C"}, new int[]{4, 1, 2, 3});
+
+        assertEquals(Arrays.asList("D", "A", "B", "C"), rows.keys);
+        assertEquals(1, rows.operations);
+        assertTrue(rows.changed.isEmpty());
+    }
+
+    @Test
+    public void compute_handlesRandomEdits() {
+        Random random = new Random(7);
+        for (int round = 0; round < 200; round++) {
+            List<String> pool = new ArrayList<>();
+            for (int i = 0; i < 30; i++) {
+                pool.add("k" + i);
+            }
+            Collections.shuffle(pool, random);
+            String[] oldKeys = pool.subList(0, random.nextInt(20)).toArray(new String[0]);
+            Collections.shuffle(pool, random);
+            String[] newKeys = pool.subList(0, random.nextInt(20)).toArray(new String[0]);
+            int[] oldContents = new int[oldKeys.length];
+            int[] newContents = new int[newKeys.length];
+            for (int i = 0; i < newContents.length; i++) {
+                newContents[i] = random.nextInt(2);
+            }
+
+            Rows rows = apply(oldKeys, oldContents, newKeys, newContents);
+
+            for (int i = 0; i < newKeys.length; i++) {
+                boolean kept = Arrays.asList(oldKeys).contains(newKeys[i]);
+                assertEquals(kept && newContents[i] != 0, rows.changed.contains(newKeys[i]));
+            }
+        }
+    }
+
+    @Test
+    public void compute_givesUpPastLimit() {
+        String[] oldKeys = {"A", "B", "C"};
+        String[] newKeys = {"D", "E", "F"};
+
+        assertNull(ListDiff.compute(oldKeys, new int[3], newKeys, new int[3], 5));
+        assertEquals(6, ListDiff.compute(oldKeys, new int[3], newKeys, new int[3], 6).size());
+    }
+
+    @Test
+    public void uniqueKeys_numbersRepeats() {
+        String[] keys = {"bunny_1", "bunny_2"};
+        assertSame(keys, ListDiff.uniqueKeys(keys));
+
+        String[] unique = ListDiff.uniqueKeys(new String[]{"a", "b", "a", "a"});
+        assertEquals(4, new HashSet<>(Arrays.asList(unique)).size());
+        assertEquals("a", unique[0]);
+        assertEquals("b", unique[1]);
+    }
+}
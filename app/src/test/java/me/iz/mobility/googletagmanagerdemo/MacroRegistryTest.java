@@ -0,0 +1,103 @@
+package me.iz.mobility.googletagmanagerdemo;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.Assert.*;
+
+public class MacroRegistryTest {
+
+    private static Map<String, Object> modParameters(long key1, String key2) {
+        Map<String, Object> parameters = new HashMap<>();
+        parameters.put("key1", key1);
+        parameters.put("key2", key2);
+        return parameters;
+    }
+
+    @Test
+    public void getValue_dispatchesByName() {
+        MacroRegistry registry = CustomMacros.newRegistry();
+        Map<String, Object> none = new HashMap<>();
+
+        assertEquals(1, registry.getValue("increment", none));
+        assertEquals(2, registry.getValue("increment", none));
+        assertEquals(3L, registry.getValue("mod", modParameters(10, "7")));
+        assertEquals(new HashSet<>(Arrays.asList("increment", "mod")),
+                new HashSet<>(Arrays.asList(registry.getNames())));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void getValue_rejectsUnknownName() {
+        CustomMacros.newRegistry().getValue("unknown", new HashMap<String, Object>());
+    }
+
+    @Test
+    public void mod_followsChangedModulus() {
+        MacroRegistry registry = CustomMacros.newRegistry();
+
+        assertEquals(3L, registry.getValue("mod", modParameters(10, "7")));
+        assertEquals(1L, registry.getValue("mod", modParameters(10, "3")));
+        assertEquals(-1L, registry.getValue("mod", modParameters(-10, "3")));
+        assertEquals(1234567L % 5000, registry.getValue("mod", modParameters(1234567, "5000")));
+    }
+
+    @Test
+    public void mod_reusesBoxedResults() {
+        MacroRegistry registry = CustomMacros.newRegistry();
+
+        Object first = registry.getValue("mod", modParameters(1000, "999"));
+        assertSame(first, registry.getValue("mod", modParameters(1000, "999")));
+    }
+
+    @Test(expected = ArithmeticException.class)
+    public void mod_byZeroThrows() {
+        CustomMacros.newRegistry().getValue("mod", modParameters(10, "0"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void builder_rejectsDuplicateNames() {
+        new MacroRegistry.Builder()
+                .add("mod", new CustomMacros.Mod())
+                .add("mod", new CustomMacros.Mod());
+    }
+
+    @Test
+    public void increment_givesEveryConcurrentCallItsOwnNumber() throws Exception {
+        final MacroRegistry registry = CustomMacros.newRegistry();
+        final Map<String, Object> none = new HashMap<>();
+        final int threads = 4;
+        final int callsPerThread = 10000;
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            Future<?>[] futures = new Future<?>[threads];
+            for (int t = 0; t < threads; t++) {
+                futures[t] = pool.submit(new Callable<Set<Object>>() {
+                    @Override
+                    public Set<Object> call() {
+                        Set<Object> seen = new HashSet<>();
+                        for (int i = 0; i < callsPerThread; i++) {
+                            seen.add(registry.getValue("increment", none));
+                        }
+                        return seen;
+                    }
+                });
+            }
+            Set<Object> all = new HashSet<>();
+            for (Future<?> future : futures) {
+                all.addAll((Set<?>) future.get());
+            }
+            assertEquals(threads * callsPerThread, all.size());
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+}
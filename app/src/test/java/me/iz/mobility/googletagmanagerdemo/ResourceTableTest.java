@@ -0,0 +1,37 @@
+package me.iz.mobility.googletagmanagerdemo;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class ResourceTableTest {
+
+    @SuppressWarnings("unused")
+    public static final class drawable {
+        public static final int bunny_1 = 0x7f020000;
+        public static final int bunny_2 = 0x7f020001;
+        public static int tiger_1 = 0x7f020002;
+        public final int not_static = 1;
+        public static final String not_an_id = "";
+        static final int not_public = 0x7f020003;
+    }
+
+    @Test
+    public void of_readsStaticIntFields() {
+        ResourceTable table = ResourceTable.of(drawable.class);
+
+        assertEquals(3, table.size());
+        assertEquals(0x7f020000, table.getId("bunny_1"));
+        assertEquals(0x7f020001, table.getId("bunny_2"));
+        assertEquals(0x7f020002, table.getId("tiger_1"));
+    }
+
+    @Test
+    public void getId_returnsZeroForUnknownNames() {
+        ResourceTable table = ResourceTable.of(drawable.class);
+
+        assertEquals(0, table.getId("kitten_1"));
+        assertEquals(0, table.getId("not_static"));
+        assertEquals(0, table.getId("not_public"));
+    }
+}
@@ -0,0 +1,31 @@
+package me.iz.mobility.googletagmanagerdemo;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class SampleSizeTest {
+
+    @Test
+    public void calculate_keepsImageAtLeastAsLargeAsTarget() {
+        assertEquals(1, SampleSize.calculate(1080, 1920, 1080, 1920));
+        assertEquals(1, SampleSize.calculate(2000, 3000, 1080, 1920));
+        assertEquals(2, SampleSize.calculate(2160, 3840, 1080, 1920));
+        assertEquals(4, SampleSize.calculate(4320, 7680, 1080, 1920));
+        // The smaller ratio decides, so neither side ends up below the target.
+        assertEquals(2, SampleSize.calculate(8000, 4000, 1080, 1920));
+    }
+
+    @Test
+    public void calculate_doesNotScaleUpOrForMissingTarget() {
+        assertEquals(1, SampleSize.calculate(100, 100, 1080, 1920));
+        assertEquals(1, SampleSize.calculate(4000, 4000, 0, 0));
+    }
+
+    @Test
+    public void sampled_roundsUp() {
+        assertEquals(540, SampleSize.sampled(1080, 2));
+        assertEquals(541, SampleSize.sampled(1081, 2));
+        assertEquals(1, SampleSize.sampled(1, 4));
+    }
+}
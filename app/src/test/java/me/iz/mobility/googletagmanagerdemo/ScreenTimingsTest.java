@@ -0,0 +1,66 @@
+package me.iz.mobility.googletagmanagerdemo;
+
+import org.junit.Test;
+
+import java.io.StringWriter;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class ScreenTimingsTest {
+
+    private static final long MS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    @Test
+    public void recordsFirstDrawOncePerCreateAndDwell() {
+        ScreenTimings timings = new ScreenTimings();
+
+        timings.onScreenCreated("MainScreen", 1000 * MS);
+        timings.onScreenOpened("MainScreen", 1030 * MS);
+        timings.onScreenDrawn("MainScreen", 1040 * MS);
+        timings.onScreenDrawn("MainScreen", 1056 * MS);
+        timings.onScreenClosed("MainScreen", 3030 * MS);
+        // Back from the background, without being created again.
+        timings.onScreenOpened("MainScreen", 4000 * MS);
+        timings.onScreenDrawn("MainScreen", 4010 * MS);
+
+        ScreenTimings.Screen screen = timings.getScreen("MainScreen");
+        assertEquals(1, screen.getTimeToFirstDraw().getCount());
+        assertEquals(40, screen.getTimeToFirstDraw().getMax(TimeUnit.MILLISECONDS));
+        assertEquals(1, screen.getDwell().getCount());
+        assertEquals(2000, screen.getDwell().getMax(TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    public void ignoresDrawsAndClosesWithoutOpen() {
+        ScreenTimings timings = new ScreenTimings();
+
+        timings.onScreenDrawn("ImageViewScreen", 10 * MS);
+        timings.onScreenClosed("ImageViewScreen", 20 * MS);
+        timings.onScreenCreated("ImageViewScreen", 25 * MS);
+        timings.onScreenOpened("ImageViewScreen", 30 * MS);
+        timings.onScreenClosed("ImageViewScreen", 50 * MS);
+        // Closed before it was drawn, the late draw doesn't count.
+        timings.onScreenDrawn("ImageViewScreen", 60 * MS);
+
+        ScreenTimings.Screen screen = timings.getScreen("ImageViewScreen");
+        assertEquals(0, screen.getTimeToFirstDraw().getCount());
+        assertEquals(1, screen.getDwell().getCount());
+    }
+
+    @Test
+    public void dump_writesTwoLinesPerScreen() throws Exception {
+        ScreenTimings timings = new ScreenTimings();
+        timings.onScreenCreated("MainScreen", 0);
+        timings.onScreenDrawn("MainScreen", 16 * MS);
+        timings.onScreenCreated("CategoryViewScreen", 0);
+
+        StringWriter out = new StringWriter();
+        timings.dump(out);
+
+        assertEquals("CategoryViewScreen timeToFirstDraw n=0 p50=0.0ms p95=0.0ms p99=0.0ms max=0.0ms\n"
+                + "CategoryViewScreen dwell n=0 p50=0.0ms p95=0.0ms p99=0.0ms max=0.0ms\n"
+                + "MainScreen timeToFirstDraw n=1 p50=16.0ms p95=16.0ms p99=16.0ms max=16.0ms\n"
+                + "MainScreen dwell n=0 p50=0.0ms p95=0.0ms p99=0.0ms max=0.0ms\n", out.toString());
+    }
+}
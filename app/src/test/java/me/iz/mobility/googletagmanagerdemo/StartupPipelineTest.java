@@ -0,0 +1,134 @@
+package me.iz.mobility.googletagmanagerdemo;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class StartupPipelineTest {
+
+    private ExecutorService pool;
+    private final List<String> ran = Collections.synchronizedList(new ArrayList<String>());
+
+    @Before
+    public void setUp() throws Exception {
+        pool = Executors.newFixedThreadPool(2);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        pool.shutdownNow();
+    }
+
+    private Runnable record(final String name) {
+        return new Runnable() {
+            @Override
+            public void run() {
+                ran.add(name);
+            }
+        };
+    }
+
+    @Test
+    public void dependencies_runFirst() throws Exception {
+        StartupPipeline pipeline = new StartupPipeline(pool)
+                .task("a", record("a"))
+                .task("b", record("b"), "a")
+                .task("c", record("c"), "a", "b");
+        pipeline.start();
+
+        assertTrue(pipeline.await("c"));
+        assertEquals("[a, b, c]", ran.toString());
+    }
+
+    @Test
+    public void independentTasks_runConcurrently() throws Exception {
+        // Each task waits for the other one to start, which only works if they run in parallel.
+        final CountDownLatch bothStarted = new CountDownLatch(2);
+        Runnable rendezvous = new Runnable() {
+            @Override
+            public void run() {
+                bothStarted.countDown();
+                try {
+                    if (!bothStarted.await(5, TimeUnit.SECONDS)) {
+                        throw new IllegalStateException("Not run concurrently");
+                    }
+                } catch (InterruptedException e) {
+                    throw new IllegalStateException(e);
+                }
+            }
+        };
+        StartupPipeline pipeline = new StartupPipeline(pool)
+                .task("analytics", rendezvous)
+                .task("tagManager", rendezvous);
+        pipeline.start();
+
+        assertTrue(pipeline.await("analytics"));
+        assertTrue(pipeline.await("tagManager"));
+    }
+
+    @Test
+    public void deferredTasks_waitForStartDeferred() throws Exception {
+        StartupPipeline pipeline = new StartupPipeline(pool)
+                .task("tracker", record("tracker"))
+                .deferredTask("exceptionReporting", record("exceptionReporting"), "tracker");
+        pipeline.start();
+        pipeline.await("tracker");
+        Thread.sleep(50);
+        assertFalse(pipeline.isDone("exceptionReporting"));
+
+        pipeline.startDeferred();
+
+        assertTrue(pipeline.await("exceptionReporting"));
+        assertEquals("[tracker, exceptionReporting]", ran.toString());
+    }
+
+    @Test
+    public void failure_skipsDependents() throws Exception {
+        StartupPipeline pipeline = new StartupPipeline(pool)
+                .task("analytics", new Runnable() {
+                    @Override
+                    public void run() {
+                        throw new IllegalStateException("boom");
+                    }
+                })
+                .task("tracker", record("tracker"), "analytics")
+                .task("tagManager", record("tagManager"));
+        pipeline.start();
+
+        assertFalse(pipeline.await("tracker"));
+        assertTrue(pipeline.await("tagManager"));
+        assertEquals("[tagManager]", ran.toString());
+        assertEquals("boom", pipeline.getFailure("tracker").getCause().getMessage());
+    }
+
+    @Test
+    public void timings_coverTasksAndRecordedPhases() throws Exception {
+        StartupPipeline pipeline = new StartupPipeline(pool)
+                .task("a", record("a"));
+        pipeline.start();
+        pipeline.await("a");
+        long start = System.nanoTime();
+        pipeline.record("containerLoad", start, start + TimeUnit.MILLISECONDS.toNanos(3));
+
+        List<StartupPipeline.Timing> timings = pipeline.getTimings();
+        assertEquals(2, timings.size());
+        assertEquals("a", timings.get(0).name);
+        assertEquals("containerLoad", timings.get(1).name);
+        assertEquals(TimeUnit.MILLISECONDS.toNanos(3), timings.get(1).durationNanos);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void unknownDependency_isRejected() throws Exception {
+        new StartupPipeline(pool).task("b", record("b"), "a");
+    }
+}
@@ -0,0 +1,225 @@
+package me.iz.mobility.googletagmanagerdemo;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class TagExecutorTest {
+
+    private static Map<String, Object> parameters(Object value) {
+        return Collections.<String, Object>singletonMap("value", value);
+    }
+
+    /**
+     * Records the values of the firings it ran, in order.
+     */
+    private static class RecordingTag implements TagExecutor.Tag {
+        final List<Object> values = Collections.synchronizedList(new ArrayList<>());
+
+        @Override
+        public void execute(Map<String, Object> parameters) throws Exception {
+            values.add(parameters.get("value"));
+        }
+    }
+
+    @Test
+    public void execute_runsOffTheFiringThread() throws Exception {
+        final List<Thread> threads = new ArrayList<>();
+        TagExecutor executor = new TagExecutor(1, 4, TagExecutor.Overflow.DROP_NEWEST)
+                .register("tag", new TagExecutor.Tag() {
+                    @Override
+                    public void execute(Map<String, Object> parameters) {
+                        threads.add(Thread.currentThread());
+                    }
+                }, 1, 0);
+        executor.start();
+
+        executor.execute("tag", parameters(1));
+        executor.shutdown();
+
+        assertEquals(1, threads.size());
+        assertNotSame(Thread.currentThread(), threads.get(0));
+        assertEquals(1, executor.getCompletedCount());
+        assertEquals(1, executor.getExecutionLatency().getCount());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void execute_rejectsUnknownTag() {
+        new TagExecutor(1, 4, TagExecutor.Overflow.DROP_NEWEST)
+                .execute("unknown", parameters(1));
+    }
+
+    @Test
+    public void dropNewest_dropsFiringsBeyondCapacity() throws Exception {
+        RecordingTag tag = new RecordingTag();
+        TagExecutor executor = new TagExecutor(1, 2, TagExecutor.Overflow.DROP_NEWEST)
+                .register("tag", tag, 1, 0);
+
+        for (int i = 0; i < 4; i++) {
+            executor.execute("tag", parameters(i));
+        }
+        assertEquals(2, executor.getQueueDepth());
+        executor.start();
+        executor.shutdown();
+
+        assertEquals(Arrays.<Object>asList(0, 1), tag.values);
+        assertEquals(4, executor.getFiredCount());
+        assertEquals(2, executor.getDroppedCount());
+        assertEquals(0, executor.getQueueDepth());
+    }
+
+    @Test
+    public void dropOldest_keepsNewestFirings() throws Exception {
+        RecordingTag tag = new RecordingTag();
+        TagExecutor executor = new TagExecutor(1, 2, TagExecutor.Overflow.DROP_OLDEST)
+                .register("tag", tag, 1, 0);
+
+        for (int i = 0; i < 4; i++) {
+            executor.execute("tag", parameters(i));
+        }
+        executor.start();
+        executor.shutdown();
+
+        assertEquals(Arrays.<Object>asList(2, 3), tag.values);
+        assertEquals(2, executor.getDroppedCount());
+    }
+
+    @Test
+    public void block_waitsForRoom() throws Exception {
+        final CountDownLatch release = new CountDownLatch(1);
+        final CountDownLatch started = new CountDownLatch(1);
+        final TagExecutor executor = new TagExecutor(1, 1, TagExecutor.Overflow.BLOCK)
+                .register("tag", new TagExecutor.Tag() {
+                    @Override
+                    public void execute(Map<String, Object> parameters) throws Exception {
+                        started.countDown();
+                        release.await();
+                    }
+                }, 1, 0);
+        executor.start();
+        executor.execute("tag", parameters(0));
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        // The first one is running, this one fills the queue.
+        executor.execute("tag", parameters(1));
+
+        Thread firing = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                executor.execute("tag", parameters(2));
+            }
+        });
+        firing.start();
+        firing.join(200);
+        assertTrue(firing.isAlive());
+
+        release.countDown();
+        firing.join(5000);
+        assertFalse(firing.isAlive());
+        executor.shutdown();
+        assertEquals(3, executor.getCompletedCount());
+        assertEquals(0, executor.getDroppedCount());
+    }
+
+    @Test
+    public void maxConcurrent_limitsRunningFiringsOfOneTag() throws Exception {
+        final AtomicInteger running = new AtomicInteger();
+        final AtomicInteger maxRunning = new AtomicInteger();
+        TagExecutor executor = new TagExecutor(4, 64, TagExecutor.Overflow.BLOCK)
+                .register("tag", new TagExecutor.Tag() {
+                    @Override
+                    public void execute(Map<String, Object> parameters) throws Exception {
+                        int now = running.incrementAndGet();
+                        while (true) {
+                            int max = maxRunning.get();
+                            if (now <= max || maxRunning.compareAndSet(max, now)) {
+                                break;
+                            }
+                        }
+                        Thread.sleep(2);
+                        running.decrementAndGet();
+                    }
+                }, 2, 0);
+        executor.start();
+
+        for (int i = 0; i < 40; i++) {
+            executor.execute("tag", parameters(i));
+        }
+        executor.shutdown();
+
+        assertEquals(40, executor.getCompletedCount());
+        assertTrue("max running: " + maxRunning.get(), maxRunning.get() <= 2);
+    }
+
+    @Test
+    public void timeout_interruptsTagAndFreesWorker() throws Exception {
+        final List<Boolean> interruptedAtStart = new ArrayList<>();
+        TagExecutor executor = new TagExecutor(1, 4, TagExecutor.Overflow.DROP_NEWEST)
+                .register("slow", new TagExecutor.Tag() {
+                    @Override
+                    public void execute(Map<String, Object> parameters) throws Exception {
+                        Thread.sleep(10000);
+                    }
+                }, 1, 50)
+                .register("fast", new TagExecutor.Tag() {
+                    @Override
+                    public void execute(Map<String, Object> parameters) {
+                        interruptedAtStart.add(Thread.currentThread().isInterrupted());
+                    }
+                }, 1, 0);
+        executor.start();
+
+        long start = System.nanoTime();
+        executor.execute("slow", parameters(0));
+        executor.execute("fast", parameters(1));
+        executor.shutdown();
+
+        assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(5));
+        assertEquals(1, executor.getTimedOutCount());
+        assertEquals(1, executor.getCompletedCount());
+        assertEquals(Collections.singletonList(false), interruptedAtStart);
+    }
+
+    @Test
+    public void failingTag_isCountedAndDoesNotStopWorker() throws Exception {
+        RecordingTag tag = new RecordingTag();
+        TagExecutor executor = new TagExecutor(1, 4, TagExecutor.Overflow.DROP_NEWEST)
+                .register("bad", new TagExecutor.Tag() {
+                    @Override
+                    public void execute(Map<String, Object> parameters) {
+                        throw new IllegalStateException();
+                    }
+                }, 1, 0)
+                .register("good", tag, 1, 0);
+        executor.start();
+
+        executor.execute("bad", parameters(0));
+        executor.execute("good", parameters(1));
+        executor.shutdown();
+
+        assertEquals(1, executor.getFailedCount());
+        assertEquals(Collections.<Object>singletonList(1), tag.values);
+    }
+
+    @Test
+    public void execute_afterShutdownDrops() throws Exception {
+        RecordingTag tag = new RecordingTag();
+        TagExecutor executor = new TagExecutor(1, 4, TagExecutor.Overflow.DROP_NEWEST)
+                .register("tag", tag, 1, 0);
+        executor.start();
+        executor.shutdown();
+
+        executor.execute("tag", parameters(0));
+
+        assertEquals(1, executor.getDroppedCount());
+        assertTrue(tag.values.isEmpty());
+    }
+}
@@ -0,0 +1,79 @@
+package me.iz.mobility.googletagmanagerdemo;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class TrackerRegistryTest {
+
+    private enum Name {
+        APP, GLOBAL, ECOMMERCE,
+    }
+
+    @Test
+    public void get_createsEachValueOnce() throws Exception {
+        final AtomicInteger created = new AtomicInteger();
+        TrackerRegistry<Name, String> registry = new TrackerRegistry<>(
+                Name.class, new TrackerRegistry.Factory<Name, String>() {
+                    @Override
+                    public String create(Name key) {
+                        created.incrementAndGet();
+                        return key.name().toLowerCase();
+                    }
+                });
+
+        assertEquals("app", registry.get(Name.APP));
+        assertEquals("app", registry.get(Name.APP));
+        assertEquals("ecommerce", registry.get(Name.ECOMMERCE));
+        assertEquals(2, created.get());
+    }
+
+    @Test
+    public void racingThreads_seeTheSameValueCreatedOnce() throws Exception {
+        final AtomicInteger created = new AtomicInteger();
+        final TrackerRegistry<Name, Object> registry = new TrackerRegistry<>(
+                Name.class, new TrackerRegistry.Factory<Name, Object>() {
+                    @Override
+                    public Object create(Name key) {
+                        created.incrementAndGet();
+                        // Widen the window for the others to find no value yet.
+                        Thread.yield();
+                        return new Object();
+                    }
+                });
+
+        final CountDownLatch start = new CountDownLatch(1);
+        final Object[] seen = new Object[8];
+        List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < seen.length; i++) {
+            final int index = i;
+            Thread thread = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        start.await();
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                    seen[index] = registry.get(Name.GLOBAL);
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+        start.countDown();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        for (Object value : seen) {
+            assertSame(seen[0], value);
+        }
+        assertEquals(1, created.get());
+    }
+}
@@ -0,0 +1,336 @@
+/*
+ * Copyright 2026 Basit Parkar.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ *  @date 10/18/26 9:10 AM
+ *  @modified 10/18/26 9:10 AM
+ */
+
+package me.iz.mobility.googletagmanagerdemo;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UnsupportedEncodingException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.URLDecoder;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Local stand-in for the Measurement Protocol collect endpoint, to measure analytics throughput
+ * without sending anything to Google. Serves {@code /collect} (one hit per request, GET or POST)
+ * and {@code /batch} (one hit per line) on the loopback interface, and counts the hits by type.
+ * <p/>
+ * A hit whose {@code z} parameter is the {@code System.nanoTime()} it was created at, as the
+ * {@link MeasurementProtocolSink} sends it, also has its end-to-end latency recorded. That only
+ * means something when the hits come from the same process.
+ */
+public final class CollectServer {
+
+    static final String COLLECT_PATH = "/collect";
+    static final String BATCH_PATH = "/batch";
+    private static final int MAX_LINE = 8192;
+    private static final int MAX_BODY = 64 * 1024;
+
+    private final int maxRecordedHits;
+    private final ExecutorService connections = Executors.newCachedThreadPool();
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong requests = new AtomicLong();
+    private final AtomicLong badRequests = new AtomicLong();
+    private final ConcurrentHashMap<String, AtomicLong> hitsByType = new ConcurrentHashMap<>();
+    private final LatencyHistogram latency = new LatencyHistogram();
+    // Guarded by itself, the payloads of the first hits.
+    private final List<String> recorded = new ArrayList<>();
+    private ServerSocket serverSocket;
+
+    /**
+     * @param maxRecordedHits how many hit payloads to keep for {@link #getRecordedHits()}.
+     */
+    public CollectServer(int maxRecordedHits) {
+        this.maxRecordedHits = maxRecordedHits;
+    }
+
+    /**
+     * Starts listening on a free port of the loopback interface.
+     *
+     * @return the base URL of the server, eg. {@code http://127.0.0.1:40123}.
+     */
+    public synchronized String start() throws IOException {
+        if (serverSocket != null) {
+            throw new IllegalStateException("Already started");
+        }
+        serverSocket = new ServerSocket(0, 50, InetAddress.getByName("127.0.0.1"));
+        final ServerSocket socket = serverSocket;
+        Thread acceptor = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                accept(socket);
+            }
+        }, "CollectServer");
+        acceptor.setDaemon(true);
+        acceptor.start();
+        return "http://127.0.0.1:" + socket.getLocalPort();
+    }
+
+    public synchronized void shutdown() throws InterruptedException {
+        if (serverSocket == null) {
+            return;
+        }
+        try {
+            serverSocket.close();
+        } catch (IOException e) {
+            // Closing anyway.
+        }
+        connections.shutdownNow();
+        connections.awaitTermination(5, TimeUnit.SECONDS);
+    }
+
+    private void accept(ServerSocket socket) {
+        while (!socket.isClosed()) {
+            final Socket client;
+            try {
+                client = socket.accept();
+            } catch (IOException e) {
+                // Closed by shutdown.
+                return;
+            }
+            try {
+                connections.execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        serve(client);
+                    }
+                });
+            } catch (RuntimeException e) {
+                // Shut down in between.
+                closeQuietly(client);
+                return;
+            }
+        }
+    }
+
+    /**
+     * Answers the requests of one keep-alive connection until the client closes it.
+     */
+    private void serve(Socket client) {
+        try {
+            InputStream in = new BufferedInputStream(client.getInputStream());
+            OutputStream out = client.getOutputStream();
+            String requestLine;
+            while ((requestLine = readLine(in)) != null) {
+                if (requestLine.isEmpty()) {
+                    continue;
+                }
+                int contentLength = 0;
+                boolean close = false;
+                String header;
+                while ((header = readLine(in)) != null && !header.isEmpty()) {
+                    int colon = header.indexOf(':');
+                    if (colon < 0) {
+                        continue;
+                    }
+                    String name = header.substring(0, colon).trim();
+                    String value = header.substring(colon + 1).trim();
+                    if (name.equalsIgnoreCase("Content-Length")) {
+                        contentLength = Integer.parseInt(value);
+                    } else if (name.equalsIgnoreCase("Connection")) {
+                        close = value.equalsIgnoreCase("close");
+                    }
+                }
+                if (contentLength < 0 || contentLength > MAX_BODY) {
+                    respond(out, "413 Payload Too Large");
+                    return;
+                }
+                byte[] body = new byte[contentLength];
+                for (int read = 0; read < contentLength; ) {
+                    int n = in.read(body, read, contentLength - read);
+                    if (n < 0) {
+                        return;
+                    }
+                    read += n;
+                }
+                respond(out, handle(requestLine, new String(body, "UTF-8")));
+                if (close) {
+                    return;
+                }
+            }
+        } catch (IOException | NumberFormatException e) {
+            // The client went away or sent garbage, either way the connection is done.
+        } finally {
+            closeQuietly(client);
+        }
+    }
+
+    /**
+     * @return the status line of the response.
+     */
+    String handle(String requestLine, String body) throws UnsupportedEncodingException {
+        requests.incrementAndGet();
+        String[] parts = requestLine.split(" ");
+        if (parts.length != 3) {
+            badRequests.incrementAndGet();
+            return "400 Bad Request";
+        }
+        String target = parts[1];
+        int query = target.indexOf('?');
+        String path = query < 0 ? target : target.substring(0, query);
+        if (parts[0].equals("GET") && path.equals(COLLECT_PATH) && query >= 0) {
+            record(target.substring(query + 1));
+        } else if (parts[0].equals("POST") && path.equals(COLLECT_PATH)) {
+            record(body);
+        } else if (parts[0].equals("POST") && path.equals(BATCH_PATH)) {
+            for (String payload : body.split("\n")) {
+                if (!payload.isEmpty()) {
+                    record(payload);
+                }
+            }
+        } else {
+            badRequests.incrementAndGet();
+            return "404 Not Found";
+        }
+        return "200 OK";
+    }
+
+    private void record(String payload) throws UnsupportedEncodingException {
+        long now = System.nanoTime();
+        String type = null;
+        for (String parameter : payload.split("&")) {
+            int equals = parameter.indexOf('=');
+            if (equals < 0) {
+                continue;
+            }
+            String name = parameter.substring(0, equals);
+            String value = URLDecoder.decode(parameter.substring(equals + 1), "UTF-8");
+            if (name.equals("t")) {
+                type = value;
+            } else if (name.equals("z")) {
+                try {
+                    long created = Long.parseLong(value);
+                    if (now - created >= 0) {
+                        latency.record(now - created);
+                    }
+                } catch (NumberFormatException e) {
+                    // An ordinary cache buster.
+                }
+            }
+        }
+        if (type == null) {
+            // The real endpoint drops these without telling, so does this one.
+            badRequests.incrementAndGet();
+            return;
+        }
+        hits.incrementAndGet();
+        AtomicLong count = hitsByType.get(type);
+        if (count == null) {
+            AtomicLong added = hitsByType.putIfAbsent(type, count = new AtomicLong());
+            if (added != null) {
+                count = added;
+            }
+        }
+        count.incrementAndGet();
+        synchronized (recorded) {
+            if (recorded.size() < maxRecordedHits) {
+                recorded.add(payload);
+            }
+        }
+    }
+
+    private static void respond(OutputStream out, String status) throws IOException {
+        out.write(("HTTP/1.1 " + status + "\r\nContent-Length: 0\r\n\r\n").getBytes("US-ASCII"));
+        out.flush();
+    }
+
+    /**
+     * @return the next line without its line break, or null at the end of the stream.
+     */
+    private static String readLine(InputStream in) throws IOException {
+        StringBuilder line = new StringBuilder();
+        int c;
+        while ((c = in.read()) >= 0) {
+            if (c == '\n') {
+                int length = line.length();
+                if (length > 0 && line.charAt(length - 1) == '\r') {
+                    line.setLength(length - 1);
+                }
+                return line.toString();
+            }
+            if (line.length() >= MAX_LINE) {
+                throw new IOException("Line too long");
+            }
+            line.append((char) c);
+        }
+        return line.length() > 0 ? line.toString() : null;
+    }
+
+    private static void closeQuietly(Socket socket) {
+        try {
+            socket.close();
+        } catch (IOException e) {
+            // Nothing left to do with it.
+        }
+    }
+
+    public long getHitCount() {
+        return hits.get();
+    }
+
+    /**
+     * @param type the {@code t} parameter, eg. {@code event} or {@code screenview}.
+     */
+    public long getHitCount(String type) {
+        AtomicLong count = hitsByType.get(type);
+        return count != null ? count.get() : 0;
+    }
+
+    public long getRequestCount() {
+        return requests.get();
+    }
+
+    /**
+     * @return requests to an unknown path and hits without a type.
+     */
+    public long getBadRequestCount() {
+        return badRequests.get();
+    }
+
+    /**
+     * @return the time from creating a hit to it arriving here.
+     */
+    public LatencyHistogram getLatency() {
+        return latency;
+    }
+
+    public List<String> getRecordedHits() {
+        synchronized (recorded) {
+            return Collections.unmodifiableList(new ArrayList<>(recorded));
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "CollectServer{hits=" + hits.get() + ", requests=" + requests.get()
+                + ", bad=" + badRequests.get() + ", types=" + hitsByType + ", latency=" + latency
+                + "}";
+    }
+}
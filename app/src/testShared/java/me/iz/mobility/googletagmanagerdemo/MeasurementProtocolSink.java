@@ -0,0 +1,200 @@
+/*
+ * Copyright 2026 Basit Parkar.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ *  @date 10/18/26 9:25 AM
+ *  @modified 10/18/26 9:25 AM
+ */
+
+package me.iz.mobility.googletagmanagerdemo;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UnsupportedEncodingException;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.net.URLEncoder;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * {@link HitSink} that posts the hits itself, as Measurement Protocol payloads, instead of
+ * handing them to a {@code Tracker}. Pointed at a {@link CollectServer}, it lets the whole
+ * pipeline be measured without the GA SDK's own dispatching in the way.
+ * <p/>
+ * Hits go to the {@code /batch} endpoint in the largest batches the protocol allows: at most
+ * {@value #MAX_BATCH_HITS} hits and {@value #MAX_BATCH_BYTES} bytes per request. A hit of more
+ * than {@value #MAX_HIT_BYTES} bytes is dropped, the endpoint would drop it as well.
+ * <p/>
+ * A hit that goes to several trackers is encoded once. Each tracker's copy is that encoding
+ * behind a prefix with the tracking id of the tracker.
+ */
+public class MeasurementProtocolSink implements HitSink {
+
+    public static final String GOOGLE_ANALYTICS_URL = "https://www.google-analytics.com";
+    static final int MAX_BATCH_HITS = 20;
+    static final int MAX_BATCH_BYTES = 16 * 1024;
+    static final int MAX_HIT_BYTES = 8 * 1024;
+    private static final int TIMEOUT_MILLIS = 10000;
+
+    private final URL batchUrl;
+    // The protocol version, tracking id and client id, by tracker ordinal.
+    private final String[] prefixes;
+    // Guarded by this.
+    private final StringBuilder payload = new StringBuilder();
+    private final StringBuilder body = new StringBuilder();
+    private final Map<String, String> parameters = new HashMap<>();
+    private long droppedHits;
+    private long requests;
+
+    /**
+     * @param baseUrl {@link #GOOGLE_ANALYTICS_URL} or the one of a {@link CollectServer}.
+     * @param clientId the anonymous id of the app installation.
+     */
+    public MeasurementProtocolSink(String baseUrl, String trackingId, String clientId) {
+        this(baseUrl, new String[]{trackingId}, clientId);
+    }
+
+    /**
+     * @param trackingIds the tracking id of each tracker, by the ordinal of its
+     * {@link GTMDemo.TrackerName}. Hits aren't sent for trackers without one.
+     */
+    public MeasurementProtocolSink(String baseUrl, String[] trackingIds, String clientId) {
+        try {
+            this.batchUrl = new URL(baseUrl + CollectServer.BATCH_PATH);
+            this.prefixes = new String[trackingIds.length];
+            for (int i = 0; i < trackingIds.length; i++) {
+                if (trackingIds[i] != null) {
+                    prefixes[i] = "v=1&tid=" + encode(trackingIds[i]) + "&cid=" + encode(clientId);
+                }
+            }
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Bad base url: " + baseUrl, e);
+        }
+    }
+
+    /**
+     * @throws RuntimeException if a request failed, the hits of the requests before it have
+     * been sent.
+     */
+    @Override
+    public synchronized void send(List<Hit> batch) {
+        body.setLength(0);
+        int hits = 0;
+        try {
+            for (int i = 0; i < batch.size(); i++) {
+                Hit hit = batch.get(i);
+                String parameters = encode(hit);
+                for (int bits = hit.trackers; bits != 0; bits &= bits - 1) {
+                    int tracker = Integer.numberOfTrailingZeros(bits);
+                    String prefix = tracker < prefixes.length ? prefixes[tracker] : null;
+                    if (prefix == null) {
+                        continue;
+                    }
+                    int length = prefix.length() + parameters.length();
+                    if (length > MAX_HIT_BYTES) {
+                        droppedHits++;
+                        continue;
+                    }
+                    if (hits == MAX_BATCH_HITS || body.length() + length + 1 > MAX_BATCH_BYTES) {
+                        post(body);
+                        body.setLength(0);
+                        hits = 0;
+                    }
+                    body.append(prefix).append(parameters).append('\n');
+                    hits++;
+                }
+            }
+            if (hits > 0) {
+                post(body);
+            }
+        } catch (IOException e) {
+            throw new RuntimeException("Posting hits to " + batchUrl + " failed", e);
+        }
+    }
+
+    /**
+     * @return the parameters of one hit, each behind an ampersand, to go after the prefix of a
+     * tracker. All of it is ASCII, so its length is its size in bytes.
+     */
+    String encode(Hit hit) throws UnsupportedEncodingException {
+        StringBuilder out = payload;
+        out.setLength(0);
+        for (Map.Entry<String, String> parameter : HitMaps.build(hit, parameters).entrySet()) {
+            String name = parameter.getKey();
+            // The tracker's parameter names start with an ampersand.
+            out.append('&').append(name.startsWith("&") ? name.substring(1) : name)
+                    .append('=').append(encode(parameter.getValue()));
+        }
+        if (hit.type == Hit.Type.SCREEN_VIEW) {
+            // The tracker takes the screen name from its own field.
+            out.append("&cd=").append(encode(hit.screenName));
+        }
+        long age = System.nanoTime() - hit.createdNanos;
+        // How long the hit waited, and its creation time as the cache buster, which lets a
+        // CollectServer in this process work out the end-to-end latency.
+        out.append("&qt=").append(age / 1000000).append("&z=").append(hit.createdNanos);
+        return out.toString();
+    }
+
+    private void post(CharSequence hits) throws IOException {
+        byte[] bytes = hits.toString().getBytes("US-ASCII");
+        HttpURLConnection connection = (HttpURLConnection) batchUrl.openConnection();
+        int status;
+        try {
+            connection.setConnectTimeout(TIMEOUT_MILLIS);
+            connection.setReadTimeout(TIMEOUT_MILLIS);
+            connection.setDoOutput(true);
+            connection.setFixedLengthStreamingMode(bytes.length);
+            connection.setRequestProperty("Content-Type", "text/plain");
+            OutputStream out = connection.getOutputStream();
+            out.write(bytes);
+            out.close();
+            status = connection.getResponseCode();
+            // Read to the end so the connection goes back to the pool for the next request.
+            InputStream in = status < 400 ? connection.getInputStream()
+                    : connection.getErrorStream();
+            if (in != null) {
+                while (in.read() >= 0) {
+                    // Nothing in there is of interest.
+                }
+                in.close();
+            }
+        } catch (IOException e) {
+            connection.disconnect();
+            throw e;
+        }
+        requests++;
+        if (status / 100 != 2) {
+            throw new IOException("HTTP " + status);
+        }
+    }
+
+    private static String encode(String value) throws UnsupportedEncodingException {
+        return value != null ? URLEncoder.encode(value, "UTF-8") : "";
+    }
+
+    /**
+     * @return tracker copies of hits dropped for being too large.
+     */
+    public synchronized long getDroppedHitCount() {
+        return droppedHits;
+    }
+
+    public synchronized long getRequestCount() {
+        return requests;
+    }
+}
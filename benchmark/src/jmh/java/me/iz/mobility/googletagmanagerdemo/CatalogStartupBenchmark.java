@@ -0,0 +1,97 @@
+/*
+ * Copyright 2026 Basit Parkar.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ *  @date 10/17/26 2:15 PM
+ *  @modified 10/17/26 2:15 PM
+ */
+
+package me.iz.mobility.googletagmanagerdemo;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Time to get a {@link CategoryCatalog} on a cold start: parsing the container JSON against
+ * reading the {@link CatalogSnapshot} of the last run. The JSON path additionally has to wait
+ * for the container to load on a real device, which is not part of these numbers.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class CatalogStartupBenchmark {
+
+    @Param({"100", "1000", "5000"})
+    public int categories;
+
+    private String json;
+    private File snapshotFile;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        json = catalogJson(categories, 5);
+        snapshotFile = File.createTempFile("catalog", ".snapshot");
+        new CatalogSnapshot("1", "Cute", json,
+                CatalogParser.parse(json, new HashMap<String, String>())).write(snapshotFile);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        snapshotFile.delete();
+    }
+
+    @Benchmark
+    public CategoryCatalog jsonPath() {
+        return CatalogParser.parse(json, new HashMap<String, String>());
+    }
+
+    @Benchmark
+    public CategoryCatalog snapshotPath() throws IOException {
+        return CatalogSnapshot.read(snapshotFile).catalog;
+    }
+
+    /**
+     * A catalog in the format of the container's "category" value.
+     */
+    static String catalogJson(int categories, int imagesPerCategory) {
+        StringBuilder sb = new StringBuilder("[");
+        for (int i = 0; i < categories; i++) {
+            if (i > 0) {
+                sb.append(',');
+            }
+            sb.append("{\"name\": \"Animal ").append(i).append("\", \"image_files\": [");
+            for (int j = 0; j < imagesPerCategory; j++) {
+                if (j > 0) {
+                    sb.append(", ");
+                }
+                sb.append("\"animal_").append(i).append('_').append(j).append('"');
+            }
+            sb.append("]}");
+        }
+        return sb.append(']').toString();
+    }
+}
@@ -0,0 +1,86 @@
+/*
+ * Copyright 2026 Basit Parkar.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ *  @date 10/18/26 2:12 AM
+ *  @modified 10/18/26 2:12 AM
+ */
+
+package me.iz.mobility.googletagmanagerdemo;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Parsing the container's "category" value: the {@code org.json} tree walk of the original
+ * {@code MainActivity.updateCategories} against {@link CatalogParser}. The org.json used here is
+ * the reference implementation, not the one built into Android, so only compare the two on the
+ * same JVM.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class CategoryParseBenchmark {
+
+    @Param({"10", "100", "1000"})
+    public int categories;
+
+    private String json;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        json = CatalogStartupBenchmark.catalogJson(categories, 5);
+    }
+
+    @Benchmark
+    public Map<String, List<String>> jsonTree() throws JSONException {
+        // Same logic as the original MainActivity.updateCategories.
+        List<String> categoryNames = new ArrayList<String>();
+        Map<String, List<String>> categoryImagesMap = new HashMap<String, List<String>>();
+        JSONArray categories = new JSONArray(json);
+        for (int i = 0; i < categories.length(); i++) {
+            JSONObject category = categories.getJSONObject(i);
+            String categoryName = category.getString("name");
+            JSONArray images = category.getJSONArray("image_files");
+            categoryNames.add(categoryName);
+            List<String> imageNames = new ArrayList<String>(images.length());
+            for (int j = 0; j < images.length(); j++) {
+                imageNames.add(images.getString(j));
+            }
+            categoryImagesMap.put(categoryName, imageNames);
+        }
+        return categoryImagesMap;
+    }
+
+    @Benchmark
+    public CategoryCatalog catalogParser() {
+        return CatalogParser.parse(json, new HashMap<String, String>());
+    }
+}
@@ -0,0 +1,93 @@
+/*
+ * Copyright 2026 Basit Parkar.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ *  @date 10/18/26 10:45 AM
+ *  @modified 10/18/26 10:45 AM
+ */
+
+package me.iz.mobility.googletagmanagerdemo;
+
+import com.google.android.gms.analytics.HitBuilders;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of a checkout of a large cart: filling an {@link EcommerceTransaction} and packing it
+ * into hits, against building one hit per line item with the stand-in {@link HitBuilders}. The
+ * bytes allocated per checkout are reported as gc.alloc.rate.norm.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class EcommerceBenchmark {
+
+    @Param({"10", "1000", "5000"})
+    public int lineItems;
+
+    private String[] ids;
+    private String[] names;
+
+    @Setup
+    public void setUp() {
+        ids = new String[lineItems];
+        names = new String[lineItems];
+        for (int i = 0; i < lineItems; i++) {
+            ids[i] = "SKU-" + i;
+            names[i] = "Product " + i;
+        }
+    }
+
+    @Benchmark
+    public List<Hit> transaction() {
+        EcommerceTransaction transaction =
+                new EcommerceTransaction("T-1", EcommerceTransaction.PURCHASE)
+                        .setTotals(123456, 1234, 500);
+        for (int i = 0; i < lineItems; i++) {
+            transaction.addProduct(ids[i], names[i], 999 + i, 1);
+        }
+        return transaction.toHits(Hit.APP_TRACKER);
+    }
+
+    @Benchmark
+    public List<Map<String, String>> hitPerLineItem() {
+        List<Map<String, String>> hits = new ArrayList<>(lineItems);
+        for (int i = 0; i < lineItems; i++) {
+            hits.add(new HitBuilders.EventBuilder()
+                    .setCategory("ecommerce")
+                    .setAction(EcommerceTransaction.PURCHASE)
+                    .setLabel("T-1")
+                    .set("&pa", EcommerceTransaction.PURCHASE)
+                    .set("&ti", "T-1")
+                    .set("&pr1id", ids[i])
+                    .set("&pr1nm", names[i])
+                    .set("&pr1pr", EcommerceTransaction.formatCents(999 + i))
+                    .set("&pr1qt", "1")
+                    .build());
+        }
+        return hits;
+    }
+}
@@ -0,0 +1,82 @@
+/*
+ * Copyright 2026 Basit Parkar.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ *  @date 10/18/26 2:20 AM
+ *  @modified 10/18/26 7:34 AM
+ */
+
+package me.iz.mobility.googletagmanagerdemo;
+
+import com.google.android.gms.analytics.HitBuilders;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of turning an event into the parameter map a tracker sends: the builder chain of the
+ * original {@code GTMAnalytics.sendEvent} against queueing a {@link Hit} and building its map on
+ * the dispatch thread through {@link HitMaps}, and against an {@link EventTemplate} whose map was
+ * built once. Runs against the stand-in {@link HitBuilders}. The bytes allocated per event are
+ * reported as gc.alloc.rate.norm.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class EventBuildingBenchmark {
+
+    private String category = "Category";
+    private String action = "Clicked";
+    private String label = "Bunny";
+    private final EventTemplate template = new EventTemplate(category, action, label);
+
+    @Benchmark
+    public Map<String, String> eventBuilder() {
+        return new HitBuilders.EventBuilder()
+                .setCategory(category)
+                .setAction(action)
+                .setLabel(label)
+                .build();
+    }
+
+    /**
+     * The part of an event that stays on the calling thread.
+     */
+    @Benchmark
+    public Hit hit() {
+        return Hit.event(category, action, label);
+    }
+
+    @Benchmark
+    public Map<String, String> hitMap() {
+        return HitMaps.build(Hit.event(category, action, label));
+    }
+
+    @Benchmark
+    public Hit templateHit() {
+        return Hit.event(template);
+    }
+
+    @Benchmark
+    public Map<String, String> templateHitMap() {
+        return HitMaps.build(Hit.event(template));
+    }
+}
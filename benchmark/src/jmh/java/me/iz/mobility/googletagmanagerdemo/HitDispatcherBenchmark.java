@@ -0,0 +1,110 @@
+/*
+ * Copyright 2026 Basit Parkar.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ *  @date 10/17/26 10:02 AM
+ *  @modified 10/17/26 10:02 AM
+ */
+
+package me.iz.mobility.googletagmanagerdemo;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost on the calling thread of {@link HitDispatcher#dispatch(Hit)} compared to building the hit
+ * map and sending it inline, which is what {@code GTMAnalytics} used to do.
+ * <p/>
+ * Producers spin while the queue is full, so the throughput numbers are the sustained rate the
+ * dispatcher thread can keep up with rather than the rate of dropped hits.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class HitDispatcherBenchmark {
+
+    private HitDispatcher dispatcher;
+    private CountingSink inlineSink;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        dispatcher = new HitDispatcher(new CountingSink(), 4096, 64, 10);
+        dispatcher.start();
+        inlineSink = new CountingSink();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws InterruptedException {
+        dispatcher.shutdown();
+    }
+
+    @Benchmark
+    public void inlineSend() {
+        Hit hit = Hit.event("category", "action", "label");
+        inlineSink.send(Collections.singletonList(hit));
+    }
+
+    @Benchmark
+    public boolean dispatch() {
+        return enqueue();
+    }
+
+    @Benchmark
+    @Threads(4)
+    public boolean dispatch_4threads() {
+        return enqueue();
+    }
+
+    private boolean enqueue() {
+        Hit hit = Hit.event("category", "action", "label");
+        while (!dispatcher.dispatch(hit)) {
+            Thread.yield();
+        }
+        return true;
+    }
+
+    /**
+     * Builds the same parameter map the GA {@code HitBuilders.EventBuilder} would, then drops it.
+     */
+    static final class CountingSink implements HitSink {
+        long count;
+
+        @Override
+        public void send(List<Hit> batch) {
+            for (int i = 0, n = batch.size(); i < n; i++) {
+                Hit hit = batch.get(i);
+                Map<String, String> params = new HashMap<>();
+                params.put("&t", "event");
+                params.put("&ec", hit.category);
+                params.put("&ea", hit.action);
+                params.put("&el", hit.label);
+                count += params.size();
+            }
+        }
+    }
+}
@@ -0,0 +1,73 @@
+/*
+ * Copyright 2026 Basit Parkar.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ *  @date 10/18/26 6:48 AM
+ *  @modified 10/18/26 6:48 AM
+ */
+
+package me.iz.mobility.googletagmanagerdemo;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * What a throttled event costs the calling thread with {@link HitThrottle}: an event without a
+ * rule, one that is sampled out and one that hits the rate limit, from one and from 8 threads.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class HitThrottleBenchmark {
+
+    private final HitThrottle throttle = HitThrottle.parse(
+            "Sampled sample=0.01\nLimited rate=1 burst=1\nCategory/Other sample=0.5");
+
+    @Benchmark
+    @Threads(1)
+    public boolean noRule_1thread() {
+        return throttle.admit("Category", "Clicked");
+    }
+
+    @Benchmark
+    @Threads(1)
+    public boolean sampledOut_1thread() {
+        return throttle.admit("Sampled", "Clicked");
+    }
+
+    @Benchmark
+    @Threads(8)
+    public boolean sampledOut_8threads() {
+        return throttle.admit("Sampled", "Clicked");
+    }
+
+    @Benchmark
+    @Threads(1)
+    public boolean rateLimited_1thread() {
+        return throttle.admit("Limited", "Clicked");
+    }
+
+    @Benchmark
+    @Threads(8)
+    public boolean rateLimited_8threads() {
+        return throttle.admit("Limited", "Clicked");
+    }
+}
@@ -0,0 +1,130 @@
+/*
+ * Copyright 2026 Basit Parkar.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ *  @date 10/18/26 2:41 AM
+ *  @modified 10/18/26 2:41 AM
+ */
+
+package me.iz.mobility.googletagmanagerdemo;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.io.ByteArrayOutputStream;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compares two JMH result files in the JSON format and prints the change of every benchmark that
+ * is in both, e.g. between the results of master and the ones of a branch. A run is identified by
+ * its benchmark method and its parameters.
+ *
+ * <p>Usage: {@code JmhResultDiff <baseline.json> <results.json>}, or through
+ * {@code ./gradlew :benchmark:jmhDiff -Pbaseline=<baseline.json>}.
+ */
+public final class JmhResultDiff {
+
+    private JmhResultDiff() {
+    }
+
+    public static void main(String[] args) throws IOException, JSONException {
+        if (args.length != 2) {
+            System.err.println("Usage: JmhResultDiff <baseline.json> <results.json>");
+            System.exit(2);
+        }
+        Map<String, JSONObject> baseline = readRuns(args[0]);
+        Map<String, JSONObject> current = readRuns(args[1]);
+
+        System.out.println(String.format("%-72s %14s %14s %9s", "Benchmark", "Baseline", "Current",
+                "Change"));
+        for (Map.Entry<String, JSONObject> entry : current.entrySet()) {
+            JSONObject before = baseline.get(entry.getKey());
+            JSONObject after = entry.getValue().getJSONObject("primaryMetric");
+            if (before == null) {
+                System.out.println(String.format("%-72s %14s %14.3f %9s", entry.getKey(), "-",
+                        after.getDouble("score"), "new"));
+                continue;
+            }
+            before = before.getJSONObject("primaryMetric");
+            double oldScore = before.getDouble("score");
+            double newScore = after.getDouble("score");
+            System.out.println(String.format("%-72s %14.3f %14.3f %+8.1f%% %s", entry.getKey(),
+                    oldScore, newScore, (newScore - oldScore) / oldScore * 100,
+                    after.getString("scoreUnit")));
+        }
+        for (String key : baseline.keySet()) {
+            if (!current.containsKey(key)) {
+                System.out.println(String.format("%-72s %14.3f %14s %9s", key,
+                        baseline.get(key).getJSONObject("primaryMetric").getDouble("score"), "-",
+                        "removed"));
+            }
+        }
+    }
+
+    /**
+     * @return the runs of a result file keyed by benchmark and parameters, in file order.
+     */
+    static Map<String, JSONObject> readRuns(String fileName) throws IOException, JSONException {
+        JSONArray runs = new JSONArray(readFully(fileName));
+        Map<String, JSONObject> byKey = new LinkedHashMap<>();
+        for (int i = 0; i < runs.length(); i++) {
+            JSONObject run = runs.getJSONObject(i);
+            byKey.put(keyOf(run), run);
+        }
+        return byKey;
+    }
+
+    private static String keyOf(JSONObject run) throws JSONException {
+        String benchmark = run.getString("benchmark");
+        StringBuilder key = new StringBuilder(benchmark.substring(benchmark.lastIndexOf('.',
+                benchmark.lastIndexOf('.') - 1) + 1));
+        JSONObject params = run.optJSONObject("params");
+        if (params != null) {
+            List<String> names = new ArrayList<>();
+            Iterator<String> it = params.keys();
+            while (it.hasNext()) {
+                names.add(it.next());
+            }
+            Collections.sort(names);
+            for (String name : names) {
+                key.append(' ').append(name).append('=').append(params.getString(name));
+            }
+        }
+        return key.toString();
+    }
+
+    private static String readFully(String fileName) throws IOException {
+        InputStream in = new FileInputStream(fileName);
+        try {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] buffer = new byte[8192];
+            int n;
+            while ((n = in.read(buffer)) != -1) {
+                out.write(buffer, 0, n);
+            }
+            return out.toString("UTF-8");
+        } finally {
+            in.close();
+        }
+    }
+}
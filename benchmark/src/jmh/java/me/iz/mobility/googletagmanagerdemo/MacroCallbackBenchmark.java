@@ -0,0 +1,123 @@
+/*
+ * Copyright 2026 Basit Parkar.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ *  @date 10/18/26 2:27 AM
+ *  @modified 10/18/26 3:40 AM
+ */
+
+package me.iz.mobility.googletagmanagerdemo;
+
+import com.google.android.gms.tagmanager.Container.FunctionCallMacroCallback;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Function call macros as the container calls them, from one and from several threads: the
+ * original {@code CustomMacroCallback} against {@link MacroRegistry} with {@link CustomMacros}.
+ * Parameters are shaped like the ones the container passes, a {@code Long} and a numeric
+ * {@code String}. The original counter loses increments when called concurrently, its numbers
+ * with several threads are only an upper bound.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class MacroCallbackBenchmark {
+
+    /**
+     * Same logic as the original {@code CustomMacroCallback}.
+     */
+    static class CustomMacroCallback implements FunctionCallMacroCallback {
+        private int numCalls;
+
+        @Override
+        public Object getValue(String name, Map<String, Object> parameters) {
+            if ("increment".equals(name)) {
+                return ++numCalls;
+            } else if ("mod".equals(name)) {
+                return (Long) parameters.get("key1") % Integer.valueOf((String) parameters.get("key2"));
+            } else {
+                throw new IllegalArgumentException("Custom macro name: " + name + " is not supported.");
+            }
+        }
+    }
+
+    private final FunctionCallMacroCallback callback = new CustomMacroCallback();
+    private final MacroRegistry registry = CustomMacros.newRegistry();
+    private final Map<String, Object> noParameters = new HashMap<>();
+    private final Map<String, Object> modParameters = new HashMap<>();
+
+    public MacroCallbackBenchmark() {
+        modParameters.put("key1", 1234567L);
+        modParameters.put("key2", "7");
+    }
+
+    @Benchmark
+    @Threads(1)
+    public Object callback_increment_1thread() {
+        return callback.getValue("increment", noParameters);
+    }
+
+    @Benchmark
+    @Threads(8)
+    public Object callback_increment_8threads() {
+        return callback.getValue("increment", noParameters);
+    }
+
+    @Benchmark
+    @Threads(1)
+    public Object callback_mod_1thread() {
+        return callback.getValue("mod", modParameters);
+    }
+
+    @Benchmark
+    @Threads(8)
+    public Object callback_mod_8threads() {
+        return callback.getValue("mod", modParameters);
+    }
+
+    @Benchmark
+    @Threads(1)
+    public Object registry_increment_1thread() {
+        return registry.getValue("increment", noParameters);
+    }
+
+    @Benchmark
+    @Threads(8)
+    public Object registry_increment_8threads() {
+        return registry.getValue("increment", noParameters);
+    }
+
+    @Benchmark
+    @Threads(1)
+    public Object registry_mod_1thread() {
+        return registry.getValue("mod", modParameters);
+    }
+
+    @Benchmark
+    @Threads(8)
+    public Object registry_mod_8threads() {
+        return registry.getValue("mod", modParameters);
+    }
+}
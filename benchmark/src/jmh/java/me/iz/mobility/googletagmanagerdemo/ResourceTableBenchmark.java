@@ -0,0 +1,156 @@
+/*
+ * Copyright 2026 Basit Parkar.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ *  @date 10/17/26 10:37 PM
+ *  @modified 10/17/26 10:37 PM
+ */
+
+package me.iz.mobility.googletagmanagerdemo;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.lang.reflect.Field;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Resource id by name: a reflective field lookup per call, the JVM stand-in for
+ * {@code Resources.getIdentifier} (see {@code DrawableLookupBenchmark} in androidTest for the
+ * real one), a boxing {@code HashMap} and {@link ResourceTable}. Half the names don't exist.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class ResourceTableBenchmark {
+
+    @SuppressWarnings("unused")
+    public static final class drawable {
+        public static final int image_0 = 0x7f020000;
+        public static final int image_1 = 0x7f020001;
+        public static final int image_2 = 0x7f020002;
+        public static final int image_3 = 0x7f020003;
+        public static final int image_4 = 0x7f020004;
+        public static final int image_5 = 0x7f020005;
+        public static final int image_6 = 0x7f020006;
+        public static final int image_7 = 0x7f020007;
+        public static final int image_8 = 0x7f020008;
+        public static final int image_9 = 0x7f020009;
+        public static final int image_10 = 0x7f02000a;
+        public static final int image_11 = 0x7f02000b;
+        public static final int image_12 = 0x7f02000c;
+        public static final int image_13 = 0x7f02000d;
+        public static final int image_14 = 0x7f02000e;
+        public static final int image_15 = 0x7f02000f;
+        public static final int image_16 = 0x7f020010;
+        public static final int image_17 = 0x7f020011;
+        public static final int image_18 = 0x7f020012;
+        public static final int image_19 = 0x7f020013;
+        public static final int image_20 = 0x7f020014;
+        public static final int image_21 = 0x7f020015;
+        public static final int image_22 = 0x7f020016;
+        public static final int image_23 = 0x7f020017;
+        public static final int image_24 = 0x7f020018;
+        public static final int image_25 = 0x7f020019;
+        public static final int image_26 = 0x7f02001a;
+        public static final int image_27 = 0x7f02001b;
+        public static final int image_28 = 0x7f02001c;
+        public static final int image_29 = 0x7f02001d;
+        public static final int image_30 = 0x7f02001e;
+        public static final int image_31 = 0x7f02001f;
+        public static final int image_32 = 0x7f020020;
+        public static final int image_33 = 0x7f020021;
+        public static final int image_34 = 0x7f020022;
+        public static final int image_35 = 0x7f020023;
+        public static final int image_36 = 0x7f020024;
+        public static final int image_37 = 0x7f020025;
+        public static final int image_38 = 0x7f020026;
+        public static final int image_39 = 0x7f020027;
+        public static final int image_40 = 0x7f020028;
+        public static final int image_41 = 0x7f020029;
+        public static final int image_42 = 0x7f02002a;
+        public static final int image_43 = 0x7f02002b;
+        public static final int image_44 = 0x7f02002c;
+        public static final int image_45 = 0x7f02002d;
+        public static final int image_46 = 0x7f02002e;
+        public static final int image_47 = 0x7f02002f;
+        public static final int image_48 = 0x7f020030;
+        public static final int image_49 = 0x7f020031;
+        public static final int image_50 = 0x7f020032;
+        public static final int image_51 = 0x7f020033;
+        public static final int image_52 = 0x7f020034;
+        public static final int image_53 = 0x7f020035;
+        public static final int image_54 = 0x7f020036;
+        public static final int image_55 = 0x7f020037;
+        public static final int image_56 = 0x7f020038;
+        public static final int image_57 = 0x7f020039;
+        public static final int image_58 = 0x7f02003a;
+        public static final int image_59 = 0x7f02003b;
+        public static final int image_60 = 0x7f02003c;
+        public static final int image_61 = 0x7f02003d;
+        public static final int image_62 = 0x7f02003e;
+        public static final int image_63 = 0x7f02003f;
+    }
+
+    private final String[] names = new String[128];
+    private final Map<String, Integer> map = new HashMap<>();
+    private ResourceTable table;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        for (int i = 0; i < names.length; i++) {
+            names[i] = "image_" + i;
+        }
+        table = ResourceTable.of(drawable.class);
+        for (Field field : drawable.class.getFields()) {
+            try {
+                map.put(field.getName(), field.getInt(null));
+            } catch (IllegalAccessException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+
+    private String nextName() {
+        return names[next++ & (names.length - 1)];
+    }
+
+    @Benchmark
+    public int reflection() throws IllegalAccessException {
+        try {
+            return drawable.class.getField(nextName()).getInt(null);
+        } catch (NoSuchFieldException e) {
+            return 0;
+        }
+    }
+
+    @Benchmark
+    public int hashMap() {
+        Integer id = map.get(nextName());
+        return id != null ? id : 0;
+    }
+
+    @Benchmark
+    public int resourceTable() {
+        return table.getId(nextName());
+    }
+}
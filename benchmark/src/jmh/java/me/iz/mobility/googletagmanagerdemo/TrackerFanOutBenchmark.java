@@ -0,0 +1,89 @@
+/*
+ * Copyright 2026 Basit Parkar.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ *  @date 10/18/26 9:55 AM
+ *  @modified 10/18/26 9:55 AM
+ */
+
+package me.iz.mobility.googletagmanagerdemo;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.UnsupportedEncodingException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost per event of sending it to 1 to 3 trackers with the {@link MeasurementProtocolSink}: one
+ * hit per tracker, each built and encoded on its own, against one hit for all of them that is
+ * encoded once and only gets the prefix of each tracker. Both write the batch body the sink posts
+ * without posting it.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class TrackerFanOutBenchmark {
+
+    private static final String[] TRACKING_IDS = {"UA-1111111-1", "UA-2222222-1", "UA-3333333-1"};
+
+    @Param({"1", "2", "3"})
+    public int trackerCount;
+
+    private final String category = "Category";
+    private final String action = "Clicked";
+    private final String label = "Bunny";
+    private final StringBuilder body = new StringBuilder();
+    private MeasurementProtocolSink sink;
+    private String[] prefixes;
+    private int trackers;
+
+    @Setup
+    public void setUp() {
+        sink = new MeasurementProtocolSink("http://127.0.0.1", TRACKING_IDS, "client");
+        prefixes = new String[TRACKING_IDS.length];
+        for (int i = 0; i < prefixes.length; i++) {
+            prefixes[i] = "v=1&tid=" + TRACKING_IDS[i] + "&cid=client";
+        }
+        trackers = (1 << trackerCount) - 1;
+    }
+
+    @Benchmark
+    public int hitPerTracker() throws UnsupportedEncodingException {
+        body.setLength(0);
+        for (int i = 0; i < trackerCount; i++) {
+            Hit hit = Hit.event(category, action, label, 1 << i);
+            body.append(prefixes[i]).append(sink.encode(hit)).append('\n');
+        }
+        return body.length();
+    }
+
+    @Benchmark
+    public int fanOut() throws UnsupportedEncodingException {
+        body.setLength(0);
+        Hit hit = Hit.event(category, action, label, trackers);
+        String parameters = sink.encode(hit);
+        for (int bits = hit.trackers; bits != 0; bits &= bits - 1) {
+            body.append(prefixes[Integer.numberOfTrailingZeros(bits)]).append(parameters)
+                    .append('\n');
+        }
+        return body.length();
+    }
+}
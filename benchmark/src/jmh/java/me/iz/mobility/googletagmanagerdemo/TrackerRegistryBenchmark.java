@@ -0,0 +1,89 @@
+/*
+ * Copyright 2026 Basit Parkar.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ *  @date 10/17/26 10:58 AM
+ *  @modified 10/17/26 10:58 AM
+ */
+
+package me.iz.mobility.googletagmanagerdemo;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+
+import java.util.HashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tracker lookup under contention: the old {@code synchronized} {@code HashMap} in
+ * {@code GTMDemo.getTracker} against {@link TrackerRegistry}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class TrackerRegistryBenchmark {
+
+    enum TrackerName {
+        APP_TRACKER, GLOBAL_TRACKER, ECOMMERCE_TRACKER,
+    }
+
+    private final HashMap<TrackerName, Object> mTrackers = new HashMap<>();
+
+    private final TrackerRegistry<TrackerName, Object> registry = new TrackerRegistry<>(
+            TrackerName.class, new TrackerRegistry.Factory<TrackerName, Object>() {
+                @Override
+                public Object create(TrackerName key) {
+                    return new Object();
+                }
+            });
+
+    /**
+     * Same logic as the original {@code GTMDemo.getTracker}.
+     */
+    synchronized Object getTrackerSynchronized(TrackerName trackerId) {
+        if (!mTrackers.containsKey(trackerId)) {
+            mTrackers.put(trackerId, new Object());
+        }
+        return mTrackers.get(trackerId);
+    }
+
+    @Benchmark
+    @Threads(1)
+    public Object synchronizedMap_1thread() {
+        return getTrackerSynchronized(TrackerName.APP_TRACKER);
+    }
+
+    @Benchmark
+    @Threads(8)
+    public Object synchronizedMap_8threads() {
+        return getTrackerSynchronized(TrackerName.APP_TRACKER);
+    }
+
+    @Benchmark
+    @Threads(1)
+    public Object registry_1thread() {
+        return registry.get(TrackerName.APP_TRACKER);
+    }
+
+    @Benchmark
+    @Threads(8)
+    public Object registry_8threads() {
+        return registry.get(TrackerName.APP_TRACKER);
+    }
+}
@@ -0,0 +1,71 @@
+/*
+ * Copyright 2026 Basit Parkar.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ *  @date 10/18/26 1:58 AM
+ *  @modified 10/18/26 1:58 AM
+ */
+
+package com.google.android.gms.analytics;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Plain Java stand-in for the Play Services class of the same name, so the app code that builds
+ * hits can be benchmarked on a JVM. Only keeps the map of parameters, which is copied on
+ * {@link HitBuilder#build()}.
+ */
+public class HitBuilders {
+
+    public static class HitBuilder<T extends HitBuilder<T>> {
+        private final Map<String, String> params = new HashMap<>();
+
+        @SuppressWarnings("unchecked")
+        public final T set(String name, String value) {
+            if (name != null) {
+                params.put(name, value);
+            }
+            return (T) this;
+        }
+
+        public Map<String, String> build() {
+            return new HashMap<>(params);
+        }
+    }
+
+    public static class EventBuilder extends HitBuilder<EventBuilder> {
+        public EventBuilder() {
+            set("&t", "event");
+        }
+
+        public EventBuilder setCategory(String category) {
+            return set("&ec", category);
+        }
+
+        public EventBuilder setAction(String action) {
+            return set("&ea", action);
+        }
+
+        public EventBuilder setLabel(String label) {
+            return set("&el", label);
+        }
+    }
+
+    public static class ScreenViewBuilder extends HitBuilder<ScreenViewBuilder> {
+        public ScreenViewBuilder() {
+            set("&t", "screenview");
+        }
+    }
+}
@@ -0,0 +1,37 @@
+/*
+ * Copyright 2026 Basit Parkar.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ *  @date 10/18/26 2:04 AM
+ *  @modified 10/18/26 2:04 AM
+ */
+
+package com.google.android.gms.tagmanager;
+
+import java.util.Map;
+
+/**
+ * Plain Java stand-in for the callback interfaces of the Play Services {@code Container}, so
+ * function call macros and tags of the app can be benchmarked on a JVM.
+ */
+public class Container {
+
+    public interface FunctionCallMacroCallback {
+        Object getValue(String functionName, Map<String, Object> parameters);
+    }
+
+    public interface FunctionCallTagCallback {
+        void execute(String tagName, Map<String, Object> parameters);
+    }
+}